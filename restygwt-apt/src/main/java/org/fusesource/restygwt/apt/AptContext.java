@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * State shared by all creators of one javac run: the classes written so far and the deferred binding rules which
+ * end up in the generated GWT modules.
+ * <p>
+ * Sources are kept back until {@link #commit()}, so a service which turns out to be unsupported half way through
+ * does not leave codecs behind which refer to classes that never got written.
+ */
+class AptContext {
+
+    private final ProcessingEnvironment env;
+    private final Set<String> generated = new HashSet<String>();
+    private final Set<String> pendingClaims = new HashSet<String>();
+    private final Map<String, String> pendingSources = new LinkedHashMap<String, String>();
+    private final Map<String, TypeElement> pendingOrigins = new LinkedHashMap<String, TypeElement>();
+    private final Map<String, Map<String, String>> bindings = new TreeMap<String, Map<String, String>>();
+    private final Set<String> packages = new TreeSet<String>();
+
+    AptContext(ProcessingEnvironment env) {
+        this.env = env;
+    }
+
+    ProcessingEnvironment getEnv() {
+        return env;
+    }
+
+    Elements getElements() {
+        return env.getElementUtils();
+    }
+
+    Types getTypes() {
+        return env.getTypeUtils();
+    }
+
+    /**
+     * @return true if the class was not claimed before and has to be written by the caller
+     */
+    boolean claim(String qualifiedName) {
+        if (!generated.add(qualifiedName)) {
+            return false;
+        }
+        pendingClaims.add(qualifiedName);
+        return true;
+    }
+
+    void addSource(String qualifiedName, TypeElement origin, String content) {
+        pendingSources.put(qualifiedName, content);
+        pendingOrigins.put(qualifiedName, origin);
+    }
+
+    /**
+     * Writes the sources added since the last commit or rollback.
+     */
+    void commit() throws IOException {
+        for (Map.Entry<String, String> entry : pendingSources.entrySet()) {
+            Writer writer = env.getFiler().createSourceFile(entry.getKey(), pendingOrigins.get(entry.getKey()))
+                .openWriter();
+            try {
+                writer.write(entry.getValue());
+            } finally {
+                writer.close();
+            }
+            packages.add(getElements().getPackageOf(pendingOrigins.get(entry.getKey())).getQualifiedName().toString());
+        }
+        pendingClaims.clear();
+        pendingSources.clear();
+        pendingOrigins.clear();
+    }
+
+    /**
+     * Drops the sources added since the last commit, they get generated again when they are needed later on.
+     */
+    void rollback() {
+        generated.removeAll(pendingClaims);
+        pendingClaims.clear();
+        pendingSources.clear();
+        pendingOrigins.clear();
+    }
+
+    /**
+     * Makes GWT.create(type) return the given implementation once the module of the package is inherited.
+     */
+    void bind(TypeElement type, String implementation) {
+        String packageName = getElements().getPackageOf(type).getQualifiedName().toString();
+        Map<String, String> rules = bindings.get(packageName);
+        if (rules == null) {
+            rules = new TreeMap<String, String>();
+            bindings.put(packageName, rules);
+        }
+        rules.put(getElements().getBinaryName(type).toString(), implementation);
+    }
+
+    /**
+     * @return the rules of the given package, keyed by the binary name of the bound type
+     */
+    Map<String, String> getBindings(String packageName) {
+        Map<String, String> rules = bindings.get(packageName);
+        return rules != null ? rules : new TreeMap<String, String>();
+    }
+
+    /**
+     * @return the packages sources got written to
+     */
+    Set<String> getPackages() {
+        return packages;
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+/**
+ * Builds the encode and decode expressions of the generated sources, like the JsonEncoderDecoderInstanceLocator of
+ * the deferred binding generators does. Codecs of nested bean and enum types are written on first use.
+ */
+class AptEncoderDecoderLocator {
+
+    static final String JSON_ENCODER_DECODER_CLASS = "org.fusesource.restygwt.client.AbstractJsonEncoderDecoder";
+    static final String JSON_NESTED_ENCODER_DECODER_CLASS =
+        "org.fusesource.restygwt.client.AbstractNestedJsonEncoderDecoder";
+    static final String JSON_CLASS = "org.fusesource.restygwt.client.Json";
+    static final String JSON_PARSER_CLASS = "com.google.gwt.json.client.JSONParser";
+
+    private static final Map<String, String> BUILT_IN_ENCODER_DECODERS = new HashMap<String, String>();
+
+    static {
+        String[][] builtIns = {
+            { "boolean", "BOOLEAN" }, { "java.lang.Boolean", "BOOLEAN" },
+            { "byte", "BYTE" }, { "java.lang.Byte", "BYTE" },
+            { "char", "CHAR" }, { "java.lang.Character", "CHAR" },
+            { "short", "SHORT" }, { "java.lang.Short", "SHORT" },
+            { "int", "INT" }, { "java.lang.Integer", "INT" },
+            { "long", "LONG" }, { "java.lang.Long", "LONG" },
+            { "float", "FLOAT" }, { "java.lang.Float", "FLOAT" },
+            { "double", "DOUBLE" }, { "java.lang.Double", "DOUBLE" },
+            { "java.math.BigDecimal", "BIG_DECIMAL" },
+            { "java.math.BigInteger", "BIG_INTEGER" },
+            { "java.lang.String", "STRING" },
+            { "com.google.gwt.xml.client.Document", "DOCUMENT" },
+            { "com.google.gwt.json.client.JSONValue", "JSON_VALUE" },
+            { "java.util.Date", "DATE" } };
+        for (String[] builtIn : builtIns) {
+            BUILT_IN_ENCODER_DECODERS.put(builtIn[0], JSON_ENCODER_DECODER_CLASS + "." + builtIn[1]);
+        }
+        BUILT_IN_ENCODER_DECODERS.put("java.lang.Object",
+            "org.fusesource.restygwt.client.ObjectEncoderDecoder.INSTANCE");
+    }
+
+    private final AptContext context;
+    private final Element element;
+
+    /**
+     * @param element the element errors get reported on
+     */
+    AptEncoderDecoderLocator(AptContext context, Element element) {
+        this.context = context;
+        this.element = element;
+    }
+
+    String encodeExpression(TypeMirror type, String expression, String style) throws AptGenerationException {
+        return encodeDecodeExpression(type, expression, style, true);
+    }
+
+    String decodeExpression(TypeMirror type, String expression, String style, boolean lazy)
+        throws AptGenerationException {
+        if (lazy && isAssignableTo(type, List.class.getName())) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            if (args.size() == 1) {
+                return JSON_ENCODER_DECODER_CLASS + ".toLazyList(" + expression + ", " +
+                    getNestedEncoderDecoder(args.get(0), style) + ")";
+            }
+        }
+        return encodeDecodeExpression(type, expression, style, false);
+    }
+
+    String decodeFromStringExpression(TypeMirror type, String expression, String style, boolean lazy)
+        throws AptGenerationException {
+        return decodeExpression(type, JSON_PARSER_CLASS + ".parse(" + expression + ")", style, lazy);
+    }
+
+    private String encodeDecodeExpression(TypeMirror type, String expression, String style, boolean encode)
+        throws AptGenerationException {
+        String method = encode ? "encode" : "decode";
+        String encoderDecoder = getEncoderDecoder(type);
+        if (encoderDecoder != null) {
+            return encoderDecoder + "." + method + "(" + expression + ")";
+        }
+
+        if (type.getKind() == TypeKind.DECLARED) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            if (isAssignableTo(type, Map.class.getName())) {
+                checkArguments(type, args, 2);
+                return JSON_ENCODER_DECODER_CLASS + (encode ? ".toJSON(" : ".toMap(") + expression + ", " +
+                    getNestedEncoderDecoder(args.get(0), style) + ", " + getNestedEncoderDecoder(args.get(1), style) +
+                    ", " + JSON_CLASS + ".Style." + style + ")";
+            }
+            String collectionMethod = null;
+            if (isAssignableTo(type, java.util.Set.class.getName())) {
+                collectionMethod = encode ? "toJSON" : "toSet";
+            } else if (isAssignableTo(type, java.util.Collection.class.getName())) {
+                collectionMethod = encode ? "toJSON" : "toList";
+            }
+            if (collectionMethod != null) {
+                checkArguments(type, args, 1);
+                return JSON_ENCODER_DECODER_CLASS + "." + collectionMethod + "(" + expression + ", " +
+                    getNestedEncoderDecoder(args.get(0), style) + ")";
+            }
+        }
+
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            if (componentType.getKind() == TypeKind.ARRAY) {
+                throw new AptGenerationException(element, "Multi-dimensional arrays are not yet supported");
+            }
+            encoderDecoder = getNestedEncoderDecoder(componentType, style);
+            if (encode) {
+                return JSON_ENCODER_DECODER_CLASS + ".toJSON(" + expression + ", " + encoderDecoder + ")";
+            } else if (componentType.getKind() == TypeKind.BYTE) {
+                return JSON_ENCODER_DECODER_CLASS + ".toArray(" + expression + ", " + encoderDecoder + ")";
+            }
+            return JSON_ENCODER_DECODER_CLASS + ".toArray(" + expression + ", " + encoderDecoder + ", new " +
+                context.getTypes().erasure(componentType) + "[" + JSON_ENCODER_DECODER_CLASS + ".getSize(" +
+                expression + ")])";
+        }
+
+        throw new AptGenerationException(element, "Do not know how to encode/decode " + type);
+    }
+
+    private String getNestedEncoderDecoder(TypeMirror type, String style) throws AptGenerationException {
+        if (type.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) type).getExtendsBound();
+            type = bound == null ? context.getElements().getTypeElement(Object.class.getName()).asType() : bound;
+        }
+        String result = getEncoderDecoder(type);
+        if (result != null) {
+            return result;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            if (isAssignableTo(type, Map.class.getName())) {
+                checkArguments(type, args, 2);
+                return JSON_NESTED_ENCODER_DECODER_CLASS + ".mapEncoderDecoder(" +
+                    getNestedEncoderDecoder(args.get(0), style) + ", " + getNestedEncoderDecoder(args.get(1), style) +
+                    ", " + JSON_CLASS + ".Style." + style + ")";
+            }
+            String factory = null;
+            if (isAssignableTo(type, List.class.getName())) {
+                factory = "listEncoderDecoder";
+            } else if (isAssignableTo(type, java.util.Set.class.getName())) {
+                factory = "setEncoderDecoder";
+            } else if (isAssignableTo(type, java.util.Collection.class.getName())) {
+                factory = "collectionEncoderDecoder";
+            }
+            if (factory != null) {
+                checkArguments(type, args, 1);
+                return JSON_NESTED_ENCODER_DECODER_CLASS + "." + factory + "(" +
+                    getNestedEncoderDecoder(args.get(0), style) + ")";
+            }
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            if (componentType.getKind() == TypeKind.ARRAY || componentType.getKind().isPrimitive()) {
+                throw new AptGenerationException(element, "Do not know how to encode/decode nested " + type);
+            }
+            return JSON_NESTED_ENCODER_DECODER_CLASS + ".arrayEncoderDecoder(" +
+                getNestedEncoderDecoder(componentType, style) + ")";
+        }
+        throw new AptGenerationException(element, "Do not know how to encode/decode " + type);
+    }
+
+    /**
+     * @return the built-in codec, the generated codec of a bean or enum type or null for collections and arrays
+     */
+    private String getEncoderDecoder(TypeMirror type) throws AptGenerationException {
+        String builtIn = BUILT_IN_ENCODER_DECODERS.get(context.getTypes().erasure(type).toString());
+        if (builtIn != null) {
+            return builtIn;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            if (type.getKind() == TypeKind.TYPEVAR) {
+                throw new AptGenerationException(element,
+                    "Type variables are not supported by the annotation processor, use deferred binding for " + type);
+            }
+            return null;
+        }
+        if (isAssignableTo(type, Map.class.getName()) || isAssignableTo(type, java.util.Collection.class.getName())) {
+            return null;
+        }
+        TypeElement typeElement = AptUtils.asTypeElement(type);
+        if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
+            throw new AptGenerationException(element,
+                "Generic beans are not supported by the annotation processor, use deferred binding for " + type);
+        }
+        if (typeElement.getKind() == ElementKind.ENUM) {
+            return new AptEnumEncoderDecoderCreator(context, typeElement).create() + ".INSTANCE";
+        }
+        return new AptJsonEncoderDecoderCreator(context, typeElement).create() + ".INSTANCE";
+    }
+
+    private boolean isAssignableTo(TypeMirror type, String className) {
+        TypeMirror target = context.getTypes().erasure(context.getElements().getTypeElement(className).asType());
+        return type.getKind() == TypeKind.DECLARED &&
+            context.getTypes().isAssignable(context.getTypes().erasure(type), target);
+    }
+
+    private void checkArguments(TypeMirror type, List<? extends TypeMirror> args, int count)
+        throws AptGenerationException {
+        if (args.size() != count) {
+            throw new AptGenerationException(element,
+                type + " must define " + (count == 1 ? "one and only one type parameter" : "two type parameters"));
+        }
+    }
+}
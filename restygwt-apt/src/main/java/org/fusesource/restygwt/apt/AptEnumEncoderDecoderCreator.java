@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * Writes the codec of an enum type. Constants are encoded with their name or the method annotated with
+ * {@code @JsonValue}.
+ */
+class AptEnumEncoderDecoderCreator extends AptSourceCreator {
+
+    private static final String JSON_VALUE = "com.fasterxml.jackson.annotation.JsonValue";
+
+    AptEnumEncoderDecoderCreator(AptContext context, TypeElement source) {
+        super(context, source, AptJsonEncoderDecoderCreator.JSON_ENCODER_SUFFIX);
+    }
+
+    @Override
+    protected String classDeclaration() {
+        return "public class " + shortName + " extends " + AptEncoderDecoderLocator.JSON_ENCODER_DECODER_CLASS + "<" +
+            source.getQualifiedName() + ">";
+    }
+
+    @Override
+    protected void generate() {
+        String className = source.getQualifiedName().toString();
+        String method = getValueMethod();
+
+        p();
+        p("public static final " + shortName + " INSTANCE = new " + shortName + "();");
+        p();
+        p("public " + AptJsonEncoderDecoderCreator.JSON_VALUE_CLASS + " encode(" + className + " value) {").i(1);
+        {
+            p("if( value==null ) {").i(1);
+            {
+                p("return com.google.gwt.json.client.JSONNull.getInstance();").i(-1);
+            }
+            p("}");
+            p("return new com.google.gwt.json.client.JSONString(value." + method + "());");
+        }
+        i(-1).p("}");
+        p();
+        p("public " + className + " decode(" + AptJsonEncoderDecoderCreator.JSON_VALUE_CLASS + " value) {").i(1);
+        {
+            p("if( value == null || value.isNull()!=null ) {").i(1);
+            {
+                p("return null;").i(-1);
+            }
+            p("}");
+            p("com.google.gwt.json.client.JSONString str = value.isString();");
+            p("if( null == str ) {").i(1);
+            {
+                p("throw new " + AptJsonEncoderDecoderCreator.DECODING_EXCEPTION_CLASS +
+                    "(\"Expected a json string (for enum), but was given: \"+value);").i(-1);
+            }
+            p("}");
+            p("for(" + className + " v: " + className + ".values()) {").i(1);
+            {
+                p("if(v." + method + "().equals(str.stringValue())) {").i(1);
+                {
+                    p("return v;").i(-1);
+                }
+                p("}").i(-1);
+            }
+            p("}");
+            p("throw new " + AptJsonEncoderDecoderCreator.DECODING_EXCEPTION_CLASS +
+                "(\"can not find enum for given value: \"+str.stringValue());");
+        }
+        i(-1).p("}");
+    }
+
+    private String getValueMethod() {
+        for (ExecutableElement method : ElementFilter.methodsIn(source.getEnclosedElements())) {
+            if (AptUtils.getAnnotation(method, JSON_VALUE) != null) {
+                return method.getSimpleName().toString();
+            }
+        }
+        return "name";
+    }
+}
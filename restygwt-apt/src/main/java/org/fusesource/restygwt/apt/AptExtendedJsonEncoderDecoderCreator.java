@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Writes the implementation of an interface extending {@code JsonEncoderDecoder<T>}, which delegates to the codec of
+ * {@code T}.
+ */
+class AptExtendedJsonEncoderDecoderCreator extends AptSourceCreator {
+
+    static final String EXTENDED_JSON_ENCODER_SUFFIX = "_Apt_ExtendedJsonEncoderDecoder_";
+
+    private final TypeMirror valueType;
+
+    AptExtendedJsonEncoderDecoderCreator(AptContext context, TypeElement source, TypeMirror valueType) {
+        super(context, source, EXTENDED_JSON_ENCODER_SUFFIX);
+        this.valueType = valueType;
+    }
+
+    @Override
+    protected String classDeclaration() throws AptGenerationException {
+        if (!source.getTypeParameters().isEmpty()) {
+            throw new AptGenerationException(source,
+                "Generic codec interfaces are not supported by the annotation processor, use deferred binding");
+        }
+        return "public class " + shortName + " implements " + source.getQualifiedName();
+    }
+
+    @Override
+    protected void generate() throws AptGenerationException {
+        AptEncoderDecoderLocator locator = new AptEncoderDecoderLocator(context, source);
+        String style = AptUtils.getEnumName(AptUtils.getAnnotation(source, AptUtils.JSON), "style", "DEFAULT");
+
+        p();
+        p("public " + AptJsonEncoderDecoderCreator.JSON_VALUE_CLASS + " encode(" + valueType + " value) {").i(1);
+        {
+            p("return " + locator.encodeExpression(valueType, "value", style) + ";");
+        }
+        i(-1).p("}");
+        p();
+        p("public " + valueType + " decode(" + AptJsonEncoderDecoderCreator.JSON_VALUE_CLASS + " value) {").i(1);
+        {
+            p("return " + locator.decodeExpression(valueType, "value", style, false) + ";");
+        }
+        i(-1).p("}");
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Thrown when a type is outside of what the annotation processor supports. The message is reported as a compile
+ * error on the given element, the counterpart of logging an error and throwing an UnableToCompleteException in the
+ * deferred binding generators.
+ */
+class AptGenerationException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Element element;
+
+    AptGenerationException(Element element, String message) {
+        super(message);
+        this.element = element;
+    }
+
+    Element getElement() {
+        return element;
+    }
+}
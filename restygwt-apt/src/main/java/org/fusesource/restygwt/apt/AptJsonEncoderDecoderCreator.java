@@ -0,0 +1,580 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * Writes the codec of a bean type at javac time. It covers the common subset of what the deferred binding
+ * JsonEncoderDecoderClassCreator supports:
+ * <ul>
+ * <li>beans with a public no argument constructor, fields are accessed through getters and setters or directly when
+ * they are not private, getter and setter pairs without a field are properties as well</li>
+ * <li>{@code @Json(name, style, lazy)}, {@code @JsonProperty} on fields, getters and setters, {@code @JsonIgnore}
+ * and {@code @JsonIgnoreProperties}</li>
+ * <li>{@code @JsonTypeInfo} with {@code include = As.PROPERTY} and {@code use = Id.NAME} or {@code Id.CLASS},
+ * the sub types are taken from {@code @JsonSubTypes}, values without the type property are decoded as the base
+ * type</li>
+ * </ul>
+ * Everything else, e.g. {@code @JsonCreator} constructors, is reported as an {@link AptGenerationException}, such
+ * types stay on deferred binding.
+ */
+class AptJsonEncoderDecoderCreator extends AptSourceCreator {
+
+    static final String JSON_ENCODER_SUFFIX = "_Apt_JsonEncoderDecoder_";
+    static final String JSON_VALUE_CLASS = "com.google.gwt.json.client.JSONValue";
+    static final String JSON_OBJECT_CLASS = "com.google.gwt.json.client.JSONObject";
+    static final String DECODING_EXCEPTION_CLASS =
+        "org.fusesource.restygwt.client.JsonEncoderDecoder.DecodingException";
+
+    private static final String XML_TRANSIENT = "javax.xml.bind.annotation.XmlTransient";
+
+    private final Map<String, String> jsonKeys = new LinkedHashMap<String, String>();
+    private final Map<String, String> jsonTags = new LinkedHashMap<String, String>();
+    private AptEncoderDecoderLocator locator;
+
+    AptJsonEncoderDecoderCreator(AptContext context, TypeElement source) {
+        super(context, source, JSON_ENCODER_SUFFIX);
+    }
+
+    private static class Subtype {
+        final TypeElement type;
+        final String tag;
+
+        Subtype(TypeElement type, String tag) {
+            this.type = type;
+            this.tag = tag;
+        }
+    }
+
+    private static class Property {
+        String jsonName;
+        TypeMirror type;
+        String style;
+        boolean lazy;
+        String getter;
+        String setter;
+        String field;
+    }
+
+    @Override
+    protected String classDeclaration() {
+        return "public class " + shortName + " extends " + AptEncoderDecoderLocator.JSON_ENCODER_DECODER_CLASS + "<" +
+            source.getQualifiedName() + ">";
+    }
+
+    @Override
+    protected void generate() throws AptGenerationException {
+        locator = new AptEncoderDecoderLocator(context, source);
+
+        AnnotationMirror typeInfo = AptUtils.getClassAnnotation(source, AptUtils.JSON_TYPE_INFO);
+        if (typeInfo == null && isAbstract(source)) {
+            throw new AptGenerationException(source, "Abstract classes must be annotated with JsonTypeInfo");
+        }
+        String typeProperty = null;
+        if (typeInfo != null) {
+            if (!"PROPERTY".equals(AptUtils.getEnumName(typeInfo, "include", "PROPERTY"))) {
+                throw new AptGenerationException(source,
+                    "Only JsonTypeInfo.As.PROPERTY is supported by the annotation processor, use deferred binding");
+            }
+            String use = AptUtils.getEnumName(typeInfo, "use", null);
+            if ("NAME".equals(use)) {
+                typeProperty = "@type";
+            } else if ("CLASS".equals(use)) {
+                typeProperty = "@class";
+            } else {
+                throw new AptGenerationException(source, "JsonTypeInfo.Id." + use +
+                    " is not supported by the annotation processor, use deferred binding");
+            }
+            typeProperty = AptUtils.getString(typeInfo, "property", "").isEmpty() ? typeProperty :
+                AptUtils.getString(typeInfo, "property", "");
+        }
+
+        String classStyle = AptUtils.getEnumName(AptUtils.getAnnotation(source, AptUtils.JSON), "style", "DEFAULT");
+        if ("RAILS".equals(classStyle)) {
+            throw new AptGenerationException(source,
+                "Json.Style.RAILS is not supported by the annotation processor, use deferred binding");
+        }
+
+        List<Subtype> possibleTypes = getPossibleTypes(typeInfo);
+        boolean dispatch = possibleTypes.size() > 1 || isAbstract(source);
+        for (Subtype possibleType : possibleTypes) {
+            if (!isAbstract(possibleType.type)) {
+                checkConstructor(possibleType.type);
+            }
+        }
+
+        p();
+        p("public static final " + shortName + " INSTANCE = new " + shortName + "();");
+        p();
+        generateEncodeMethod(possibleTypes, dispatch, typeProperty, classStyle);
+        generateDecodeMethod(possibleTypes, dispatch, typeProperty, classStyle);
+        generateConstants();
+    }
+
+    private void generateEncodeMethod(List<Subtype> possibleTypes, boolean dispatch, String typeProperty,
+                                      String classStyle) throws AptGenerationException {
+        p("public " + JSON_VALUE_CLASS + " encode(" + source.getQualifiedName() + " value) {").i(1);
+        {
+            p("if( value==null ) {").i(1);
+            {
+                p("return getNullType();");
+            }
+            i(-1).p("}");
+            p(JSON_OBJECT_CLASS + " rc = new " + JSON_OBJECT_CLASS + "();");
+
+            for (Subtype possibleType : mostSpecificFirst(possibleTypes)) {
+                if (dispatch && isAbstract(possibleType.type)) {
+                    continue;
+                }
+                String className = possibleType.type.getQualifiedName().toString();
+                if (dispatch) {
+                    p("if(value instanceof " + className + ") {").i(1);
+                }
+                if (typeProperty != null) {
+                    p("rc.put(" + jsonKey(typeProperty) + ", " + jsonTag(possibleType.tag) + ");");
+                }
+                p(className + " parseValue = (" + className + ")value;");
+                for (Property property : getProperties(possibleType.type, classStyle)) {
+                    if (property.getter == null && property.field == null) {
+                        continue;
+                    }
+                    String fieldExpr = "parseValue." + (property.getter != null ? property.getter + "()" :
+                        property.field);
+                    String expression = locator.encodeExpression(property.type, fieldExpr, property.style);
+                    if (property.type.getKind().isPrimitive()) {
+                        p("isNotNullValuePut(" + expression + ", rc, " + jsonKey(property.jsonName) + ");");
+                    } else {
+                        p("if(isNotNullAndCheckDefaults(" + fieldExpr + ", rc, " + jsonKey(property.jsonName) +
+                            ")) {").i(1);
+                        {
+                            p("isNotNullValuePut(" + expression + ", rc, " + jsonKey(property.jsonName) + ");");
+                        }
+                        i(-1).p("}");
+                    }
+                }
+                p("return rc;");
+                if (dispatch) {
+                    i(-1).p("}");
+                }
+            }
+            if (dispatch) {
+                p("return null;");
+            }
+        }
+        i(-1).p("}");
+        p();
+    }
+
+    private void generateDecodeMethod(List<Subtype> possibleTypes, boolean dispatch, String typeProperty,
+                                      String classStyle) throws AptGenerationException {
+        p("public " + source.getQualifiedName() + " decode(" + JSON_VALUE_CLASS + " value) {").i(1);
+        {
+            p("if( value == null || value.isNull()!=null ) {").i(1);
+            {
+                p("return null;").i(-1);
+            }
+            p("}");
+            p(JSON_OBJECT_CLASS + " object = toObject(value);");
+            if (dispatch) {
+                p("String sourceName = " + AptEncoderDecoderLocator.JSON_ENCODER_DECODER_CLASS +
+                    ".STRING.decode(object.get(" + jsonKey(typeProperty) + "));");
+            }
+
+            for (Subtype possibleType : possibleTypes) {
+                if (isAbstract(possibleType.type)) {
+                    continue;
+                }
+                String className = possibleType.type.getQualifiedName().toString();
+                if (dispatch && possibleType.type.equals(source)) {
+                    p("if(sourceName == null || " + jsonKey(possibleType.tag) + ".equals(sourceName)) {").i(1);
+                } else if (dispatch) {
+                    p("if(" + jsonKey(possibleType.tag) + ".equals(sourceName)) {").i(1);
+                }
+                p(className + " rc = new " + className + "();");
+                for (Property property : getProperties(possibleType.type, classStyle)) {
+                    if (property.setter == null && property.field == null) {
+                        continue;
+                    }
+                    String expression = locator.decodeExpression(property.type, "object.get(" +
+                        jsonKey(property.jsonName) + ")", property.style, property.lazy);
+                    String methodName = property.type.getKind() == TypeKind.SHORT ? "getValueToSetForShort" :
+                        "getValueToSet";
+                    String valueToSet = methodName + "(" + expression + ", " + getDefaultValue(property.type) + ")";
+                    if (property.setter != null) {
+                        p("rc." + property.setter + "(" + valueToSet + ");");
+                    } else {
+                        p("rc." + property.field + " = " + valueToSet + ";");
+                    }
+                }
+                p("return rc;");
+                if (dispatch) {
+                    i(-1).p("}");
+                }
+            }
+            if (dispatch) {
+                p("return null;");
+            }
+        }
+        i(-1).p("}");
+        p();
+    }
+
+    /**
+     * The same constants as the deferred binding codecs use, so keys and tags are not rebuilt for every value.
+     */
+    private void generateConstants() {
+        for (Map.Entry<String, String> entry : jsonKeys.entrySet()) {
+            p("private static final String " + entry.getValue() + " = " + AptUtils.wrap(entry.getKey()) + ";");
+        }
+        for (Map.Entry<String, String> entry : jsonTags.entrySet()) {
+            p("private static final " + JSON_VALUE_CLASS + " " + entry.getValue() + " = " +
+                AptEncoderDecoderLocator.JSON_ENCODER_DECODER_CLASS + ".STRING.encode(" +
+                AptUtils.wrap(entry.getKey()) + ");");
+        }
+    }
+
+    private String jsonKey(String name) {
+        String constant = jsonKeys.get(name);
+        if (constant == null) {
+            constant = "KEY_" + jsonKeys.size() + "__";
+            jsonKeys.put(name, constant);
+        }
+        return constant;
+    }
+
+    private String jsonTag(String tag) {
+        String constant = jsonTags.get(tag);
+        if (constant == null) {
+            constant = "TAG_" + jsonTags.size() + "__";
+            jsonTags.put(tag, constant);
+        }
+        return constant;
+    }
+
+    private List<Subtype> getPossibleTypes(AnnotationMirror typeInfo) throws AptGenerationException {
+        List<Subtype> result = new ArrayList<Subtype>();
+        if (typeInfo == null) {
+            result.add(new Subtype(source, null));
+            return result;
+        }
+        boolean useClass = "CLASS".equals(AptUtils.getEnumName(typeInfo, "use", null));
+        Map<TypeElement, String> subTypes = new LinkedHashMap<TypeElement, String>();
+        findJsonSubTypes(source, subTypes);
+        if (!subTypes.containsKey(source)) {
+            subTypes.put(source, "");
+        }
+        for (Map.Entry<TypeElement, String> entry : subTypes.entrySet()) {
+            TypeElement type = entry.getKey();
+            if (!context.getTypes().isAssignable(type.asType(), source.asType())) {
+                continue;
+            }
+            if (useClass) {
+                result.add(new Subtype(type, context.getElements().getBinaryName(type).toString()));
+            } else if (!entry.getValue().isEmpty()) {
+                result.add(new Subtype(type, entry.getValue()));
+            } else {
+                AnnotationMirror typeName = AptUtils.getAnnotation(type, AptUtils.JSON_TYPE_NAME);
+                String tag = AptUtils.getString(typeName, "value", "");
+                result.add(new Subtype(type, tag.isEmpty() ? type.getSimpleName().toString() : tag));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the types listed by {@code @JsonSubTypes} on the type, its super types and, recursively, on the
+     * listed types, together with the name given in the annotation.
+     */
+    private void findJsonSubTypes(TypeElement type, Map<TypeElement, String> subTypes) {
+        AnnotationMirror annotation = AptUtils.getClassAnnotation(type, AptUtils.JSON_SUB_TYPES);
+        for (AnnotationValue value : AptUtils.getList(annotation, "value")) {
+            AnnotationMirror subType = (AnnotationMirror) value.getValue();
+            TypeElement subTypeElement = AptUtils.asTypeElement(AptUtils.getType(subType, "value"));
+            if (!subTypes.containsKey(subTypeElement)) {
+                subTypes.put(subTypeElement, AptUtils.getString(subType, "name", ""));
+                findJsonSubTypes(subTypeElement, subTypes);
+            }
+        }
+    }
+
+    private List<Subtype> mostSpecificFirst(List<Subtype> possibleTypes) {
+        List<Subtype> ordered = new ArrayList<Subtype>(possibleTypes);
+        Collections.sort(ordered, new Comparator<Subtype>() {
+            @Override
+            public int compare(Subtype a, Subtype b) {
+                return countSupertypes(b.type.asType(), new TreeSet<String>()) -
+                    countSupertypes(a.type.asType(), new TreeSet<String>());
+            }
+        });
+        return ordered;
+    }
+
+    private int countSupertypes(TypeMirror type, Set<String> seen) {
+        for (TypeMirror supertype : context.getTypes().directSupertypes(type)) {
+            if (seen.add(context.getTypes().erasure(supertype).toString())) {
+                countSupertypes(supertype, seen);
+            }
+        }
+        return seen.size();
+    }
+
+    /**
+     * The decoder instantiates the type with {@code new}, which needs a no argument constructor the generated codec
+     * can call. Types with a {@code @JsonCreator} are decoded through it by deferred binding only.
+     */
+    private void checkConstructor(TypeElement type) throws AptGenerationException {
+        ExecutableElement noArgs = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (AptUtils.getAnnotation(constructor, AptUtils.JSON_CREATOR) != null) {
+                throw new AptGenerationException(type,
+                    "@JsonCreator is not supported by the annotation processor, use deferred binding");
+            }
+            if (constructor.getParameters().isEmpty()) {
+                noArgs = constructor;
+            }
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (AptUtils.getAnnotation(method, AptUtils.JSON_CREATOR) != null) {
+                throw new AptGenerationException(type,
+                    "@JsonCreator is not supported by the annotation processor, use deferred binding");
+            }
+        }
+        boolean inner = type.getEnclosingElement() instanceof TypeElement &&
+            !type.getModifiers().contains(Modifier.STATIC);
+        if (noArgs == null || inner || !isAccessible(noArgs)) {
+            throw new AptGenerationException(type, type.getQualifiedName() +
+                " has no no argument constructor the codec can call, use deferred binding");
+        }
+    }
+
+    /**
+     * @return the json properties of the given type and its super classes, fields of sub classes hide the ones of
+     *         their super classes, followed by the getter and setter pairs without a field
+     */
+    private List<Property> getProperties(TypeElement type, String classStyle) throws AptGenerationException {
+        Set<String> ignored = new TreeSet<String>();
+        AnnotationMirror ignoreProperties = AptUtils.getClassAnnotation(type, AptUtils.JSON_IGNORE_PROPERTIES);
+        for (AnnotationValue value : AptUtils.getList(ignoreProperties, "value")) {
+            ignored.add((String) value.getValue());
+        }
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        Map<String, ExecutableElement> getters = new LinkedHashMap<String, ExecutableElement>();
+        Map<String, ExecutableElement> setters = new LinkedHashMap<String, ExecutableElement>();
+        findAccessors(type, getters, setters);
+
+        Map<String, Property> properties = new LinkedHashMap<String, Property>();
+        Set<String> fieldNames = new TreeSet<String>();
+        for (TypeElement t = type; t != null; t = superclass(t)) {
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                String name = field.getSimpleName().toString();
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!fieldNames.add(name) || ignored.contains(name) || modifiers.contains(Modifier.STATIC) ||
+                    modifiers.contains(Modifier.TRANSIENT) || isIgnored(field)) {
+                    continue;
+                }
+                Property property = new Property();
+                property.type = context.getTypes().asMemberOf(declaredType, field);
+
+                String cap = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                ExecutableElement getter = getters.get(cap);
+                ExecutableElement setter = setters.get(cap);
+                boolean accessible = isAccessible(field);
+                property.getter = getter != null ? getter.getSimpleName().toString() : null;
+                property.setter = setter != null ? setter.getSimpleName().toString() : null;
+                property.field = accessible ? name : null;
+                if (modifiers.contains(Modifier.FINAL) && getter == null) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.FINAL)) {
+                    property.field = null;
+                }
+
+                AnnotationMirror json = AptUtils.getAnnotation(field, AptUtils.JSON);
+                property.jsonName = AptUtils.getString(json, "name", "");
+                property.style = AptUtils.getEnumName(json, "style", classStyle);
+                AnnotationValue lazy = AptUtils.getValue(json, "lazy");
+                property.lazy = lazy != null && (Boolean) lazy.getValue();
+                String jsonProperty = getJsonProperty(getter, setter);
+                if (jsonProperty.isEmpty()) {
+                    jsonProperty =
+                        AptUtils.getString(AptUtils.getAnnotation(field, AptUtils.JSON_PROPERTY), "value", "");
+                }
+                if (!jsonProperty.isEmpty()) {
+                    property.jsonName = jsonProperty;
+                } else if (property.jsonName.isEmpty()) {
+                    property.jsonName = name;
+                }
+                properties.put(name, property);
+            }
+        }
+
+        for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+            String name = Character.toLowerCase(entry.getKey().charAt(0)) + entry.getKey().substring(1);
+            ExecutableElement getter = entry.getValue();
+            ExecutableElement setter = setters.get(entry.getKey());
+            if (setter == null || fieldNames.contains(name) || ignored.contains(name)) {
+                continue;
+            }
+            TypeMirror getterType =
+                ((ExecutableType) context.getTypes().asMemberOf(declaredType, getter)).getReturnType();
+            TypeMirror setterType =
+                ((ExecutableType) context.getTypes().asMemberOf(declaredType, setter)).getParameterTypes().get(0);
+            if (!context.getTypes().isSameType(getterType, setterType)) {
+                continue;
+            }
+            Property property = new Property();
+            property.type = getterType;
+            property.getter = getter.getSimpleName().toString();
+            property.setter = setter.getSimpleName().toString();
+            property.style = classStyle;
+            String jsonProperty = getJsonProperty(getter, setter);
+            property.jsonName = jsonProperty.isEmpty() ? name : jsonProperty;
+            properties.put(name, property);
+        }
+        return new ArrayList<Property>(properties.values());
+    }
+
+    /**
+     * Collects the public getters, {@code get}, {@code is} and {@code has} prefixed, and setters which are not
+     * ignored, by the capitalized property name. The same accessors as the deferred binding generator accepts.
+     */
+    private void findAccessors(TypeElement type, Map<String, ExecutableElement> getters,
+                               Map<String, ExecutableElement> setters) {
+        for (ExecutableElement method : ElementFilter.methodsIn(context.getElements().getAllMembers(type))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || isIgnored(method)) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            TypeMirror returnType = method.getReturnType();
+            int parameters = method.getParameters().size();
+            if (name.startsWith("set") && name.length() > 3 && parameters == 1 &&
+                returnType.getKind() == TypeKind.VOID) {
+                setters.put(name.substring(3), method);
+            } else if (name.startsWith("get") && name.length() > 3 && parameters == 0 &&
+                returnType.getKind() != TypeKind.VOID) {
+                getters.put(name.substring(3), method);
+            } else if ((name.startsWith("is") || name.startsWith("has")) && parameters == 0 && isBoolean(returnType)) {
+                String property = name.substring(name.startsWith("is") ? 2 : 3);
+                if (!property.isEmpty() && !getters.containsKey(property)) {
+                    getters.put(property, method);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the {@code @JsonProperty} name given on the setter or else on the getter, empty if there is none
+     */
+    private static String getJsonProperty(ExecutableElement getter, ExecutableElement setter) {
+        String name = setter == null ? "" :
+            AptUtils.getString(AptUtils.getAnnotation(setter, AptUtils.JSON_PROPERTY), "value", "");
+        if (name.isEmpty() && getter != null) {
+            name = AptUtils.getString(AptUtils.getAnnotation(getter, AptUtils.JSON_PROPERTY), "value", "");
+        }
+        return name;
+    }
+
+    private static boolean isBoolean(TypeMirror type) {
+        return type.getKind() == TypeKind.BOOLEAN ||
+            (type.getKind() == TypeKind.DECLARED && type.toString().equals(Boolean.class.getName()));
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = AptUtils.asTypeElement(superclass);
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private boolean isIgnored(Element element) {
+        if (AptUtils.getAnnotation(element, XML_TRANSIENT) != null) {
+            return true;
+        }
+        AnnotationMirror jsonIgnore = AptUtils.getAnnotation(element, AptUtils.JSON_IGNORE);
+        if (jsonIgnore == null) {
+            return false;
+        }
+        AnnotationValue value = AptUtils.getValue(jsonIgnore, "value");
+        return value == null || (Boolean) value.getValue();
+    }
+
+    /**
+     * @return true if the generated codec, which lives in the package of the source type, can access the field or
+     *         constructor
+     */
+    private boolean isAccessible(Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) &&
+            context.getElements().getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+
+    private static boolean isAbstract(TypeElement type) {
+        return type.getKind() == ElementKind.INTERFACE || type.getModifiers().contains(Modifier.ABSTRACT);
+    }
+
+    private static String getDefaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case BYTE:
+                return "(byte) 0";
+            case CHAR:
+                return "(char) 0";
+            case SHORT:
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0f";
+            case DOUBLE:
+                return "0d";
+            default:
+                return "null";
+        }
+    }
+}
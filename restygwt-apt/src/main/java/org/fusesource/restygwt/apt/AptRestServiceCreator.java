@@ -0,0 +1,573 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+import org.fusesource.restygwt.rebind.RestServiceStatements;
+
+/**
+ * Writes the proxy of a {@code RestService} interface at javac time. The generated class is the same as the one of
+ * the deferred binding RestServiceClassCreator for the supported subset:
+ * <ul>
+ * <li>{@code @GET}, {@code @POST}, {@code @PUT}, {@code @DELETE}, {@code @HEAD}, {@code @OPTIONS} or methods named
+ * after them</li>
+ * <li>{@code @Path} on the interface and the methods, {@code @PathParam}, {@code @QueryParam} and
+ * {@code @HeaderParam} arguments and one content argument</li>
+ * <li>{@code @Produces}, {@code @Consumes}, {@code @Json}, {@code @Options}, {@code @Idempotent},
+ * {@code @Domain} and {@code @ModelChange}</li>
+ * </ul>
+ * JSONP, form parameters, sub resource locators, {@code @Attribute}, overlay types and generic services are reported
+ * as compile errors and need deferred binding.
+ */
+class AptRestServiceCreator extends AptSourceCreator {
+
+    static final String REST_SERVICE_PROXY_SUFFIX = "_Apt_RestServiceProxy_";
+
+    private static final String CLIENT_PACKAGE = "org.fusesource.restygwt.client.";
+    private static final String METHOD_CLASS = CLIENT_PACKAGE + "Method";
+    private static final String RESOURCE_CLASS = CLIENT_PACKAGE + "Resource";
+    private static final String DISPATCHER_CLASS = CLIENT_PACKAGE + "Dispatcher";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String RETRY_POLICY_CLASS = CLIENT_PACKAGE + "callback.RetryPolicy";
+    private static final String REST_SERVICE_PROXY_CLASS = CLIENT_PACKAGE + "RestServiceProxy";
+    private static final String METHOD_CALLBACK_CLASS = CLIENT_PACKAGE + "MethodCallback";
+    private static final String ABSTRACT_REQUEST_CALLBACK_CLASS = CLIENT_PACKAGE + "AbstractRequestCallback";
+    private static final String RESPONSE_FORMAT_EXCEPTION_CLASS = CLIENT_PACKAGE + "ResponseFormatException";
+    private static final String REQUEST_EXCEPTION_CLASS = "com.google.gwt.http.client.RequestException";
+    private static final String REQUEST_CLASS = "com.google.gwt.http.client.Request";
+    private static final String JSON_VALUE_CLASS = "com.google.gwt.json.client.JSONValue";
+    private static final String DOCUMENT_CLASS = "com.google.gwt.xml.client.Document";
+
+    private static final String JAX_RS = "javax.ws.rs.";
+    private static final String HTTP_METHOD = JAX_RS + "HttpMethod";
+    private static final String PATH = JAX_RS + "Path";
+
+    private static final String CACHE_DOMAIN_KEY = AptUtils.DOMAIN + ".CACHE_DOMAIN_KEY";
+    private static final String MODEL_CHANGED_DOMAIN_KEY = AptUtils.MODEL_CHANGE + ".MODEL_CHANGED_DOMAIN_KEY";
+
+    private static final Set<String> REST_METHODS =
+        new HashSet<String>(Arrays.asList("delete", "get", "head", "options", "post", "put"));
+
+    private static final Map<String, String> BUILT_IN_CALLBACKS = new LinkedHashMap<String, String>();
+
+    static {
+        BUILT_IN_CALLBACKS.put(CLIENT_PACKAGE + "TextCallback", "CONTENT_TYPE_TEXT");
+        BUILT_IN_CALLBACKS.put(CLIENT_PACKAGE + "JsonCallback", "CONTENT_TYPE_JSON");
+        BUILT_IN_CALLBACKS.put(CLIENT_PACKAGE + "XmlCallback", "CONTENT_TYPE_XML");
+    }
+
+    private AptEncoderDecoderLocator locator;
+
+    private final RestServiceStatements statements = new RestServiceStatements() {
+        @Override
+        protected void println(String line) {
+            p(line);
+        }
+
+        @Override
+        protected void indent(int delta) {
+            i(delta);
+        }
+    };
+
+    AptRestServiceCreator(AptContext context, TypeElement source) {
+        super(context, source, REST_SERVICE_PROXY_SUFFIX);
+    }
+
+    @Override
+    protected String classDeclaration() throws AptGenerationException {
+        if (source.getKind() != ElementKind.INTERFACE) {
+            throw new AptGenerationException(source, "Type is not an interface.");
+        }
+        if (!source.getTypeParameters().isEmpty()) {
+            throw new AptGenerationException(source,
+                "Generic services are not supported by the annotation processor, use deferred binding");
+        }
+        return "public class " + shortName + " implements " + source.getQualifiedName() + ", " +
+            REST_SERVICE_PROXY_CLASS;
+    }
+
+    @Override
+    protected void generate() throws AptGenerationException {
+        locator = new AptEncoderDecoderLocator(context, source);
+
+        AnnotationMirror options = AptUtils.getAnnotation(source, AptUtils.OPTIONS);
+        String path = AptUtils.getString(AptUtils.getAnnotation(source, PATH), "value", null);
+
+        p("private " + RESOURCE_CLASS + " resource = null;");
+        p();
+        p("public void setResource(" + RESOURCE_CLASS + " resource) {").i(1);
+        {
+            p("this.resource = resource;");
+        }
+        i(-1).p("}");
+
+        statements.writeGetResource(AptUtils.getString(options, "serviceRootKey", ""), path);
+
+        String dispatcher = getOptionsClass(options, "dispatcher", DISPATCHER_CLASS);
+        p("private " + DISPATCHER_CLASS + " dispatcher = " + (dispatcher != null ? dispatcher + ".INSTANCE" : "null") +
+            ";");
+        p();
+        p("public void setDispatcher(" + DISPATCHER_CLASS + " dispatcher) {").i(1);
+        {
+            p("this.dispatcher = dispatcher;");
+        }
+        i(-1).p("}");
+        p();
+        p("public " + DISPATCHER_CLASS + " getDispatcher() {").i(1);
+        {
+            p("return this.dispatcher;");
+        }
+        i(-1).p("}");
+
+        for (ExecutableElement method : ElementFilter.methodsIn(context.getElements().getAllMembers(source))) {
+            if (method.getModifiers().contains(Modifier.ABSTRACT) &&
+                method.getEnclosingElement().getKind() == ElementKind.INTERFACE) {
+                p();
+                writeMethodImpl(method, options);
+            }
+        }
+    }
+
+    private void writeMethodImpl(ExecutableElement method, AnnotationMirror classOptions)
+        throws AptGenerationException {
+        TypeMirror returnType = method.getReturnType();
+        boolean returnRequest = returnType.getKind() != TypeKind.VOID;
+        if (returnRequest && !context.getTypes().erasure(returnType).toString().equals(REQUEST_CLASS)) {
+            throw new AptGenerationException(method,
+                "Invalid rest method. Method must have void or Request return types, sub resource locators need " +
+                    "deferred binding");
+        }
+        String restMethod = getRestMethod(method);
+
+        List<? extends VariableElement> args = method.getParameters();
+        if (args.isEmpty()) {
+            throw new AptGenerationException(method,
+                "Invalid rest method. Method must declare at least a callback argument");
+        }
+        VariableElement callbackArg = args.get(args.size() - 1);
+        TypeMirror resultType = getCallbackResultType(method, callbackArg.asType());
+        String acceptTypeBuiltIn =
+            BUILT_IN_CALLBACKS.get(context.getTypes().erasure(callbackArg.asType()).toString());
+
+        String classStyle = AptUtils.getEnumName(AptUtils.getAnnotation(source, AptUtils.JSON), "style", "DEFAULT");
+        AnnotationMirror options = AptUtils.getAnnotation(method, AptUtils.OPTIONS);
+
+        List<String> parameters = new ArrayList<String>();
+        for (VariableElement arg : args) {
+            parameters.add(arg.asType() + " " + arg.getSimpleName());
+        }
+        p("public " + returnType + " " + method.getSimpleName() + "(" + join(parameters, ", ") + ") {").i(1);
+        {
+            String pathExpression = null;
+            String methodPath = AptUtils.getString(AptUtils.getAnnotation(method, PATH), "value", null);
+            if (methodPath != null) {
+                pathExpression = AptUtils.wrap(methodPath);
+            }
+
+            VariableElement contentArg = null;
+            Map<String, VariableElement> queryParams = new LinkedHashMap<String, VariableElement>();
+            Map<String, VariableElement> headerParams = new LinkedHashMap<String, VariableElement>();
+            for (VariableElement arg : args.subList(0, args.size() - 1)) {
+                if (AptUtils.getAnnotation(arg, JAX_RS + "FormParam") != null ||
+                    AptUtils.getAnnotation(arg, CLIENT_PACKAGE + "Attribute") != null) {
+                    throw new AptGenerationException(arg,
+                        "@FormParam and @Attribute are not supported by the annotation processor, use deferred " +
+                            "binding");
+                }
+                AnnotationMirror pathParam = AptUtils.getAnnotation(arg, JAX_RS + "PathParam");
+                if (pathParam != null) {
+                    if (pathExpression == null) {
+                        throw new AptGenerationException(arg,
+                            "Invalid rest method.  Invalid @PathParam annotation. Method is missing the @Path " +
+                                "annotation");
+                    }
+                    pathExpression = pathExpression(pathExpression, arg, AptUtils.getString(pathParam, "value", ""));
+                    continue;
+                }
+                AnnotationMirror queryParam = AptUtils.getAnnotation(arg, JAX_RS + "QueryParam");
+                if (queryParam != null) {
+                    queryParams.put(AptUtils.getString(queryParam, "value", ""), arg);
+                    continue;
+                }
+                AnnotationMirror headerParam = AptUtils.getAnnotation(arg, JAX_RS + "HeaderParam");
+                if (headerParam != null) {
+                    headerParams.put(AptUtils.getString(headerParam, "value", ""), arg);
+                    continue;
+                }
+                if (contentArg != null) {
+                    throw new AptGenerationException(arg,
+                        "Invalid rest method. Only one content parameter is supported");
+                }
+                contentArg = arg;
+            }
+
+            p("final " + METHOD_CLASS + " __method =");
+            p("getResource()");
+            if (pathExpression != null) {
+                p(".resolve(" + pathExpression + ")");
+            }
+            for (Map.Entry<String, VariableElement> entry : queryParams.entrySet()) {
+                VariableElement arg = entry.getValue();
+                if (isQueryParamListType(arg.asType())) {
+                    p(".addQueryParams(" + AptUtils.wrap(entry.getKey()) +
+                        ", new org.fusesource.restygwt.client.StringIterable (" + arg.getSimpleName() + "))");
+                } else {
+                    p(".addQueryParam(" + AptUtils.wrap(entry.getKey()) + ", " +
+                        toStringExpression(arg.asType(), arg.getSimpleName().toString()) + ")");
+                }
+            }
+            p("." + restMethod + "();");
+
+            writeOptions(options, classOptions);
+            statements.writeEndpoint(source.getQualifiedName().toString(), method.getSimpleName().toString());
+
+            AnnotationMirror produces = findAnnotationOnMethodOrEnclosingType(method, JAX_RS + "Produces");
+            String acceptHeader;
+            if (produces != null) {
+                acceptHeader = AptUtils.wrap((String) AptUtils.getList(produces, "value").get(0).getValue());
+            } else if (acceptTypeBuiltIn != null) {
+                acceptHeader = RESOURCE_CLASS + "." + acceptTypeBuiltIn;
+            } else {
+                acceptHeader = RESOURCE_CLASS + ".CONTENT_TYPE_JSON";
+            }
+            p("__method.header(" + RESOURCE_CLASS + ".HEADER_ACCEPT, " + acceptHeader + ");");
+
+            AnnotationMirror consumes = findAnnotationOnMethodOrEnclosingType(method, JAX_RS + "Consumes");
+            if (consumes != null) {
+                String contentTypeHeaderValue = (String) AptUtils.getList(consumes, "value").get(0).getValue();
+                int split = contentTypeHeaderValue.indexOf(',');
+                if (split > 0) {
+                    contentTypeHeaderValue = contentTypeHeaderValue.substring(0, split).trim();
+                }
+                p("__method.header(" + RESOURCE_CLASS + ".HEADER_CONTENT_TYPE, " +
+                    AptUtils.wrap(contentTypeHeaderValue) + ");");
+            }
+
+            AnnotationMirror idempotent = findAnnotationOnMethodOrEnclosingType(method, AptUtils.IDEMPOTENT);
+            if (idempotent != null) {
+                statements.writeIdempotent(AptUtils.getString(idempotent, "header", IDEMPOTENCY_KEY_HEADER));
+            }
+
+            for (Map.Entry<String, VariableElement> entry : headerParams.entrySet()) {
+                VariableElement arg = entry.getValue();
+                p("__method.header(" + AptUtils.wrap(entry.getKey()) + ", " +
+                    toStringExpression(arg.asType(), arg.getSimpleName().toString()) + ");");
+            }
+
+            if (contentArg != null) {
+                String name = contentArg.getSimpleName().toString();
+                String contentType = context.getTypes().erasure(contentArg.asType()).toString();
+                if (contentType.equals(String.class.getName())) {
+                    p("__method.text(" + name + ");");
+                } else if (contentType.equals(JSON_VALUE_CLASS)) {
+                    p("__method.json(" + name + ");");
+                } else if (contentType.equals(DOCUMENT_CLASS)) {
+                    p("__method.xml(" + name + ");");
+                } else {
+                    AnnotationMirror json = AptUtils.getAnnotation(contentArg, AptUtils.JSON);
+                    String style = AptUtils.getEnumName(json, "style", classStyle);
+                    p("__method.json(" + locator.encodeExpression(contentArg.asType(), name, style) + ");");
+                }
+            }
+
+            writeData(method, restMethod);
+
+            String callback = callbackArg.getSimpleName().toString();
+            String returnPrefix = returnRequest ? "return (" + REQUEST_CLASS + ") " : "";
+            if (acceptTypeBuiltIn != null) {
+                p(returnPrefix + "__method.send(" + callback + ");");
+            } else {
+                String resultTypeName = resultType.toString();
+                p("try {").i(1);
+                {
+                    p(returnPrefix + "__method.send(new " + ABSTRACT_REQUEST_CALLBACK_CLASS + "<" + resultTypeName +
+                        ">(__method, " + callback + ") {").i(1);
+                    {
+                        p("protected " + resultTypeName + " parseResult() throws Exception {").i(1);
+                        {
+                            if (resultTypeName.equals(Void.class.getName())) {
+                                p("return (java.lang.Void) null;");
+                            } else {
+                                p("try {").i(1);
+                                {
+                                    AnnotationMirror json = AptUtils.getAnnotation(method, AptUtils.JSON);
+                                    String style = AptUtils.getEnumName(json, "style", classStyle);
+                                    AnnotationValue lazy = AptUtils.getValue(json, "lazy");
+                                    p("return " + locator.decodeFromStringExpression(resultType,
+                                        "__method.getResponse().getText()", style,
+                                        lazy != null && (Boolean) lazy.getValue()) + ";");
+                                }
+                                i(-1).p("} catch (Throwable __e) {").i(1);
+                                {
+                                    p("throw new " + RESPONSE_FORMAT_EXCEPTION_CLASS +
+                                        "(\"Response was NOT a valid JSON document\", __e);");
+                                }
+                                i(-1).p("}");
+                            }
+                        }
+                        i(-1).p("}");
+                    }
+                    i(-1).p("});");
+                }
+                i(-1).p("} catch (" + REQUEST_EXCEPTION_CLASS + " __e) {").i(1);
+                {
+                    p(callback + ".onFailure(__method,__e);");
+                    if (returnRequest) {
+                        p("return null;");
+                    }
+                }
+                i(-1).p("}");
+            }
+        }
+        i(-1).p("}");
+    }
+
+    private void writeOptions(AnnotationMirror options, AnnotationMirror classOptions) {
+        String dispatcher = getOptionsClass(options, "dispatcher", DISPATCHER_CLASS);
+        if (dispatcher != null) {
+            p("__method.setDispatcher(" + dispatcher + ".INSTANCE);");
+        } else {
+            p("__method.setDispatcher(this.dispatcher);");
+        }
+
+        List<AnnotationValue> expect = AptUtils.getList(options, "expect");
+        if (expect.isEmpty()) {
+            expect = AptUtils.getList(classOptions, "expect");
+        }
+        if (!expect.isEmpty()) {
+            List<Object> statuses = new ArrayList<Object>();
+            for (AnnotationValue status : expect) {
+                statuses.add(status.getValue());
+            }
+            p("__method.expect(" + join(statuses, ", ") + ");");
+        }
+
+        long timeout = AptUtils.getLong(options, "timeout", -1);
+        if (timeout < 0) {
+            timeout = AptUtils.getLong(classOptions, "timeout", -1);
+        }
+        if (timeout >= 0) {
+            p("__method.timeout(" + timeout + ");");
+        }
+
+        long deadline = AptUtils.getLong(options, "deadline", -1);
+        if (deadline < 0) {
+            deadline = AptUtils.getLong(classOptions, "deadline", -1);
+        }
+        String retryPolicy = getOptionsClass(options, "retryPolicy", RETRY_POLICY_CLASS);
+        if (retryPolicy == null) {
+            retryPolicy = getOptionsClass(classOptions, "retryPolicy", RETRY_POLICY_CLASS);
+        }
+        statements.writeRetryOptions(deadline, retryPolicy);
+    }
+
+    /**
+     * Adds the same method data as the ModelChangeAnnotationResolver of the deferred binding generators, so caching
+     * and model change events work with the generated proxies as well.
+     */
+    private void writeData(ExecutableElement method, String restMethod) throws AptGenerationException {
+        AnnotationMirror domain = AptUtils.getAnnotation(source, AptUtils.DOMAIN);
+        List<AnnotationValue> serviceDomains = domain == null ? null : AptUtils.getList(domain, "value");
+        if (serviceDomains != null) {
+            p("__method.addData(" + CACHE_DOMAIN_KEY + ", " + domainList(serviceDomains) + ");");
+        }
+
+        List<AnnotationValue> changedDomains = null;
+        AnnotationMirror methodChange = AptUtils.getAnnotation(method, AptUtils.MODEL_CHANGE);
+        AnnotationMirror classChange = AptUtils.getAnnotation(source, AptUtils.MODEL_CHANGE);
+        if (methodChange != null) {
+            changedDomains = AptUtils.getList(methodChange, "domain");
+        } else if (classChange != null) {
+            for (AnnotationValue on : AptUtils.getList(classChange, "on")) {
+                if (((String) on.getValue()).equalsIgnoreCase(restMethod)) {
+                    changedDomains = AptUtils.getList(classChange, "domain");
+                }
+            }
+        }
+        if (changedDomains != null) {
+            if (changedDomains.isEmpty()) {
+                if (serviceDomains == null) {
+                    throw new AptGenerationException(method,
+                        "found ModelChange annotation with empty domain definition");
+                }
+                changedDomains = serviceDomains;
+            }
+            p("__method.addData(" + MODEL_CHANGED_DOMAIN_KEY + ", " + domainList(changedDomains) + ");");
+        }
+    }
+
+    private String domainList(List<AnnotationValue> domains) {
+        StringBuilder sb = new StringBuilder("[");
+        for (AnnotationValue domain : domains) {
+            if (sb.length() > 1) {
+                sb.append(",");
+            }
+            TypeElement type = AptUtils.asTypeElement((TypeMirror) domain.getValue());
+            sb.append("\"").append(context.getElements().getBinaryName(type)).append("\"");
+        }
+        return AptUtils.wrap(sb.append("]").toString());
+    }
+
+    /**
+     * @return the qualified name of the dispatcher class given in the options or null for the default one
+     */
+    /**
+     * @return the class given to the options member or null if it is missing or the default class
+     */
+    private String getOptionsClass(AnnotationMirror options, String name, String defaultClass) {
+        TypeMirror type = AptUtils.getType(options, name);
+        if (type == null || type.toString().equals(defaultClass)) {
+            return null;
+        }
+        return type.toString();
+    }
+
+    private String getRestMethod(ExecutableElement method) throws AptGenerationException {
+        String restMethod = null;
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            AnnotationMirror httpMethod =
+                AptUtils.getAnnotation(annotation.getAnnotationType().asElement(), HTTP_METHOD);
+            if (httpMethod != null) {
+                if (restMethod != null) {
+                    throw new AptGenerationException(method,
+                        "Invalid method. It is an error for a method to be annotated with more than one annotation " +
+                            "that is annotated with HttpMethod");
+                }
+                restMethod = AptUtils.getString(httpMethod, "value", "").toLowerCase(Locale.ENGLISH);
+            }
+        }
+        if (restMethod == null) {
+            if (AptUtils.getAnnotation(method, CLIENT_PACKAGE + "JSONP") != null) {
+                throw new AptGenerationException(method,
+                    "JSONP is not supported by the annotation processor, use deferred binding");
+            }
+            restMethod = method.getSimpleName().toString();
+        }
+        if (!REST_METHODS.contains(restMethod)) {
+            throw new AptGenerationException(method,
+                "Invalid rest method. It must either have a lower case rest method name or have a javax rs method " +
+                    "annotation");
+        }
+        return restMethod;
+    }
+
+    private TypeMirror getCallbackResultType(ExecutableElement method, TypeMirror callbackType)
+        throws AptGenerationException {
+        TypeMirror resultType = findMethodCallbackArgument(callbackType);
+        if (resultType == null) {
+            throw new AptGenerationException(method,
+                "Invalid rest method. Last argument must be a " + METHOD_CALLBACK_CLASS + " type");
+        }
+        if (resultType.getKind() == TypeKind.WILDCARD || resultType.getKind() == TypeKind.TYPEVAR) {
+            throw new AptGenerationException(method,
+                "The result type of the callback must be a concrete type: " + callbackType);
+        }
+        return resultType;
+    }
+
+    private TypeMirror findMethodCallbackArgument(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        if (context.getTypes().erasure(type).toString().equals(METHOD_CALLBACK_CLASS)) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            return args.isEmpty() ? context.getElements().getTypeElement(Object.class.getName()).asType() :
+                args.get(0);
+        }
+        for (TypeMirror supertype : context.getTypes().directSupertypes(type)) {
+            TypeMirror result = findMethodCallbackArgument(supertype);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private String pathExpression(String pathExpression, VariableElement arg, String name) {
+        String expr = toStringExpression(arg.asType(), arg.getSimpleName().toString());
+        return pathExpression.replaceAll(Pattern.quote("{" + name) + "(\\s*:\\s*([^{}][^{}]*))*\\}",
+            Matcher.quoteReplacement("\"+(" + expr +
+                "== null? null : com.google.gwt.http.client.URL.encodePathSegment(" + expr + "))+\""));
+    }
+
+    private String toStringExpression(TypeMirror type, String expr) {
+        if (type.getKind().isPrimitive()) {
+            return "\"\"+" + expr;
+        }
+        String typeName = context.getTypes().erasure(type).toString();
+        if (typeName.equals(String.class.getName())) {
+            return expr;
+        }
+        if (typeName.equals("java.util.Date")) {
+            String encoded = AptEncoderDecoderLocator.JSON_ENCODER_DECODER_CLASS + ".DATE.encode(" + expr + ")";
+            return String.format("%s instanceof com.google.gwt.json.client.JSONString ?" +
+                " ((com.google.gwt.json.client.JSONString) %s).stringValue() :" +
+                " java.util.Objects.toString(%s, null)", encoded, encoded, encoded);
+        }
+        return String.format("(%s != null ? %s.toString() : null)", expr, expr);
+    }
+
+    private boolean isQueryParamListType(TypeMirror type) {
+        String typeName = context.getTypes().erasure(type).toString();
+        return typeName.equals("java.util.Collection") || typeName.equals("java.util.List") ||
+            typeName.equals("java.util.Set");
+    }
+
+    private AnnotationMirror findAnnotationOnMethodOrEnclosingType(ExecutableElement method, String annotationType) {
+        AnnotationMirror annotation = AptUtils.getAnnotation(method, annotationType);
+        if (annotation == null) {
+            annotation = AptUtils.getAnnotation(method.getEnclosingElement(), annotationType);
+        }
+        return annotation;
+    }
+
+    private static String join(List<?> values, String sep) {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values) {
+            if (sb.length() > 0) {
+                sb.append(sep);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+}
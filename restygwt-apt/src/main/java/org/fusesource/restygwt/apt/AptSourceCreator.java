@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The javac time counterpart of the BaseSourceCreator of the deferred binding generators: writes one top level class
+ * next to the source type, with the same p()/i() helpers.
+ */
+abstract class AptSourceCreator {
+
+    private static final String INDENT = "    ";
+
+    protected final AptContext context;
+    protected final TypeElement source;
+    protected final String packageName;
+    protected final String shortName;
+    protected final String name;
+
+    private PrintWriter writer;
+    private String indentation = "";
+
+    AptSourceCreator(AptContext context, TypeElement source, String suffix) {
+        this.context = context;
+        this.source = source;
+        packageName = context.getElements().getPackageOf(source).getQualifiedName().toString();
+        shortName = AptUtils.flatName(source) + suffix;
+        name = packageName.isEmpty() ? shortName : packageName + "." + shortName;
+    }
+
+    protected AptSourceCreator p(String line) {
+        writer.println(indentation + line);
+        return this;
+    }
+
+    protected AptSourceCreator p() {
+        writer.println();
+        return this;
+    }
+
+    protected AptSourceCreator i(int delta) {
+        if (delta > 0) {
+            for (int i = 0; i < delta; i++) {
+                indentation += INDENT;
+            }
+        } else {
+            indentation = indentation.substring(0, indentation.length() + delta * INDENT.length());
+        }
+        return this;
+    }
+
+    /**
+     * Generates the class unless it got generated before in this javac run. The source is handed to the
+     * {@link AptContext}, which writes it on commit.
+     *
+     * @return the qualified name of the class
+     */
+    public final String create() throws AptGenerationException {
+        if (!context.claim(name)) {
+            return name;
+        }
+        StringWriter content = new StringWriter();
+        writer = new PrintWriter(content);
+        try {
+            if (!packageName.isEmpty()) {
+                p("package " + packageName + ";");
+                p();
+            }
+            p(classDeclaration() + " {").i(1);
+            generate();
+            i(-1).p("}");
+        } finally {
+            writer.close();
+        }
+        context.addSource(name, source, content.toString());
+        return name;
+    }
+
+    /**
+     * @return everything in front of the opening brace of the class
+     */
+    protected abstract String classDeclaration() throws AptGenerationException;
+
+    protected abstract void generate() throws AptGenerationException;
+}
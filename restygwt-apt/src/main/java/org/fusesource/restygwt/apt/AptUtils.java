@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+import org.fusesource.restygwt.rebind.RestServiceStatements;
+
+/**
+ * Annotation lookups on the javax.lang.model mirrors. The processor must not load the annotation classes themselves,
+ * so everything is looked up by qualified name.
+ */
+final class AptUtils {
+
+    static final String JSON = "org.fusesource.restygwt.client.Json";
+    static final String OPTIONS = "org.fusesource.restygwt.client.Options";
+    static final String DOMAIN = "org.fusesource.restygwt.client.cache.Domain";
+    static final String MODEL_CHANGE = "org.fusesource.restygwt.client.ModelChange";
+    static final String IDEMPOTENT = "org.fusesource.restygwt.client.Idempotent";
+    static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    static final String JSON_CREATOR = "com.fasterxml.jackson.annotation.JsonCreator";
+    static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    static final String JSON_IGNORE_PROPERTIES = "com.fasterxml.jackson.annotation.JsonIgnoreProperties";
+    static final String JSON_TYPE_INFO = "com.fasterxml.jackson.annotation.JsonTypeInfo";
+    static final String JSON_SUB_TYPES = "com.fasterxml.jackson.annotation.JsonSubTypes";
+    static final String JSON_TYPE_NAME = "com.fasterxml.jackson.annotation.JsonTypeName";
+
+    private AptUtils() {
+    }
+
+    static AnnotationMirror getAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Like {@link #getAnnotation(Element, String)} but also looks at the super classes and interfaces of a type,
+     * the same way the deferred binding generators find class level annotations.
+     */
+    static AnnotationMirror getClassAnnotation(TypeElement type, String annotationType) {
+        AnnotationMirror mirror = getAnnotation(type, annotationType);
+        if (mirror != null) {
+            return mirror;
+        }
+        if (type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            mirror = getClassAnnotation(asTypeElement(type.getSuperclass()), annotationType);
+            if (mirror != null) {
+                return mirror;
+            }
+        }
+        for (TypeMirror iface : type.getInterfaces()) {
+            mirror = getClassAnnotation(asTypeElement(iface), annotationType);
+            if (mirror != null) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the explicitly given value of the annotation member or null if the default applies
+     */
+    static AnnotationValue getValue(AnnotationMirror mirror, String name) {
+        if (mirror == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues()
+            .entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    static String getString(AnnotationMirror mirror, String name, String defaultValue) {
+        AnnotationValue value = getValue(mirror, name);
+        return value == null ? defaultValue : (String) value.getValue();
+    }
+
+    static long getLong(AnnotationMirror mirror, String name, long defaultValue) {
+        AnnotationValue value = getValue(mirror, name);
+        return value == null ? defaultValue : ((Number) value.getValue()).longValue();
+    }
+
+    /**
+     * @return the simple name of an enum constant member, e.g. {@code PROPERTY} for {@code include = As.PROPERTY}
+     */
+    static String getEnumName(AnnotationMirror mirror, String name, String defaultValue) {
+        AnnotationValue value = getValue(mirror, name);
+        return value == null ? defaultValue : ((Element) value.getValue()).getSimpleName().toString();
+    }
+
+    static TypeMirror getType(AnnotationMirror mirror, String name) {
+        AnnotationValue value = getValue(mirror, name);
+        return value == null ? null : (TypeMirror) value.getValue();
+    }
+
+    /**
+     * @return the elements of an array member, a single value is treated like an array of one
+     */
+    @SuppressWarnings("unchecked")
+    static List<AnnotationValue> getList(AnnotationMirror mirror, String name) {
+        AnnotationValue value = getValue(mirror, name);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value.getValue() instanceof List) {
+            return (List<AnnotationValue>) value.getValue();
+        }
+        List<AnnotationValue> result = new ArrayList<AnnotationValue>();
+        result.add(value);
+        return result;
+    }
+
+    static TypeElement asTypeElement(TypeMirror type) {
+        return (TypeElement) ((DeclaredType) type).asElement();
+    }
+
+    /**
+     * @return the name used in generated class names, nested types are joined with an underscore
+     */
+    static String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name = e.getSimpleName() + "_" + name;
+        }
+        return name;
+    }
+
+    static String wrap(String value) {
+        return RestServiceStatements.quote(value);
+    }
+}
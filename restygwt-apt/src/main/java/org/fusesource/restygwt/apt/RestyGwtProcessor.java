@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the RestyGWT service proxies and json codecs while javac compiles the client code, instead of in the
+ * GWT compiler's deferred binding step.
+ * <p>
+ * Every interface extending {@code RestService} gets a {@code <Name>_Apt_RestServiceProxy_} and every interface
+ * extending {@code JsonEncoderDecoder<T>} gets a {@code <Name>_Apt_ExtendedJsonEncoderDecoder_}. The codecs of the
+ * beans they use are generated next to the beans. For every package with generated classes a
+ * {@code RestyGwtApt.gwt.xml} module is written which binds the interfaces to the generated classes and inherits the
+ * modules of the other packages. Inherit one of them to make {@code GWT.create} use the generated classes:
+ *
+ * <pre>
+ * &lt;inherits name="com.example.client.RestyGwtApt"/&gt;
+ * </pre>
+ *
+ * Interfaces outside of the subset the processor supports get a warning and no binding, so they keep using the
+ * deferred binding generators. With {@code -Arestygwt.apt.strict=true} they fail the compilation instead.
+ * <p>
+ * The module files are written once at the end of the javac run, so they only list the interfaces compiled in that
+ * run; incremental builds which compile a part of a package need a full rebuild of it.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(RestyGwtProcessor.STRICT_OPTION)
+public class RestyGwtProcessor extends AbstractProcessor {
+
+    public static final String STRICT_OPTION = "restygwt.apt.strict";
+
+    static final String MODULE_NAME = "RestyGwtApt";
+
+    private static final String REST_SERVICE = "org.fusesource.restygwt.client.RestService";
+    private static final String JSON_ENCODER_DECODER = "org.fusesource.restygwt.client.JsonEncoderDecoder";
+
+    private AptContext context;
+    private boolean strict;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        context = new AptContext(processingEnv);
+        strict = Boolean.parseBoolean(processingEnv.getOptions().get(STRICT_OPTION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeModules();
+            return false;
+        }
+        if (context.getElements().getTypeElement(REST_SERVICE) == null) {
+            // restygwt is not on the classpath of this compilation
+            return false;
+        }
+        for (TypeElement type : getTypes(ElementFilter.typesIn(roundEnv.getRootElements()))) {
+            if (type.getKind() == ElementKind.INTERFACE) {
+                process(type);
+            }
+        }
+        return false;
+    }
+
+    private void process(TypeElement type) {
+        try {
+            if (isAssignable(type, REST_SERVICE)) {
+                String proxy = new AptRestServiceCreator(context, type).create();
+                context.commit();
+                context.bind(type, proxy);
+            } else if (isAssignable(type, JSON_ENCODER_DECODER)) {
+                TypeMirror valueType = findJsonEncoderDecoderArgument(type.asType());
+                if (valueType == null) {
+                    return;
+                }
+                String codec = new AptExtendedJsonEncoderDecoderCreator(context, type, valueType).create();
+                context.commit();
+                context.bind(type, codec);
+            }
+        } catch (AptGenerationException e) {
+            context.rollback();
+            if (strict) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.getElement());
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    e.getMessage() + " (" + type.getQualifiedName() + " is left to deferred binding)", e.getElement());
+            }
+        } catch (IOException e) {
+            context.rollback();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Could not write the sources generated for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * @return the given types and all types nested in them
+     */
+    private List<TypeElement> getTypes(Iterable<TypeElement> types) {
+        List<TypeElement> result = new ArrayList<TypeElement>();
+        for (TypeElement type : types) {
+            result.add(type);
+            result.addAll(getTypes(ElementFilter.typesIn(type.getEnclosedElements())));
+        }
+        return result;
+    }
+
+    private boolean isAssignable(TypeElement type, String className) {
+        TypeMirror target = context.getTypes().erasure(context.getElements().getTypeElement(className).asType());
+        return context.getTypes().isAssignable(context.getTypes().erasure(type.asType()), target);
+    }
+
+    private TypeMirror findJsonEncoderDecoderArgument(TypeMirror type) {
+        for (TypeMirror supertype : context.getTypes().directSupertypes(type)) {
+            if (context.getTypes().erasure(supertype).toString().equals(JSON_ENCODER_DECODER)) {
+                List<? extends TypeMirror> args = ((DeclaredType) supertype).getTypeArguments();
+                return args.size() == 1 && args.get(0).getKind() == TypeKind.DECLARED ? args.get(0) : null;
+            }
+            TypeMirror result = findJsonEncoderDecoderArgument(supertype);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private void writeModules() {
+        for (String packageName : context.getPackages()) {
+            try {
+                Writer writer = processingEnv.getFiler()
+                    .createResource(StandardLocation.SOURCE_OUTPUT, packageName, MODULE_NAME + ".gwt.xml")
+                    .openWriter();
+                try {
+                    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                    writer.write("<!-- Generated by the RestyGWT annotation processor, do not edit. -->\n");
+                    writer.write("<module>\n");
+                    writer.write("    <inherits name=\"org.fusesource.restygwt.RestyGWT\"/>\n");
+                    for (String other : context.getPackages()) {
+                        if (!other.equals(packageName)) {
+                            writer.write("    <inherits name=\"" + moduleName(other) + "\"/>\n");
+                        }
+                    }
+                    writer.write("    <source path=\"\">\n");
+                    writer.write("        <include name=\"*_Apt_*.java\"/>\n");
+                    writer.write("    </source>\n");
+                    for (Map.Entry<String, String> rule : context.getBindings(packageName).entrySet()) {
+                        writeRule(writer, rule.getKey(), rule.getValue());
+                        if (rule.getKey().indexOf('$') >= 0) {
+                            // nested types, match both the binary and the source name of the requested type
+                            writeRule(writer, rule.getKey().replace('$', '.'), rule.getValue());
+                        }
+                    }
+                    writer.write("</module>\n");
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write the module " + moduleName(packageName) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeRule(Writer writer, String type, String implementation) throws IOException {
+        writer.write("    <replace-with class=\"" + implementation + "\">\n");
+        writer.write("        <when-type-is class=\"" + type + "\"/>\n");
+        writer.write("    </replace-with>\n");
+    }
+
+    private static String moduleName(String packageName) {
+        return packageName.isEmpty() ? MODULE_NAME : packageName + "." + MODULE_NAME;
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.gwt.json.client.JSONValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.ws.rs.Path;
+
+import org.fusesource.restygwt.client.RestService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs javac with the processor on the sources in src/test/resources/org/fusesource/restygwt/apt/sample and checks
+ * the generated classes compile and get bound in the generated module.
+ */
+public class RestyGwtProcessorTestCase {
+
+    private static final String[] SAMPLES =
+        { "Cat", "Color", "Dog", "FormService", "Invoice", "InvoiceCodec", "Owner", "OwnerCodec", "OwnerService", "Pet",
+            "Truck", "Vehicle", "VehicleCodec" };
+
+    private static final String SAMPLE_PACKAGE = "org/fusesource/restygwt/apt/sample/";
+
+    private File generated;
+    private File classes;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Before
+    public void setUp() throws IOException {
+        generated = Files.createTempDirectory("restygwt-apt-generated").toFile();
+        classes = Files.createTempDirectory("restygwt-apt-classes").toFile();
+        diagnostics = new DiagnosticCollector<JavaFileObject>();
+    }
+
+    @Test
+    public void testGeneratesProxiesAndCodecs() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        for (String name : new String[] { "OwnerService_Apt_RestServiceProxy_",
+            "OwnerService_Colors_Apt_RestServiceProxy_", "OwnerCodec_Apt_ExtendedJsonEncoderDecoder_",
+            "Owner_Apt_JsonEncoderDecoder_", "Pet_Apt_JsonEncoderDecoder_", "Color_Apt_JsonEncoderDecoder_" }) {
+            assertTrue(name, new File(generated, SAMPLE_PACKAGE + name + ".java").isFile());
+            assertTrue(name, new File(classes, SAMPLE_PACKAGE + name + ".class").isFile());
+        }
+        assertFalse(new File(generated, SAMPLE_PACKAGE + "FormService_Apt_RestServiceProxy_.java").exists());
+    }
+
+    @Test
+    public void testWritesModuleWithBindings() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String module = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + RestyGwtProcessor.MODULE_NAME + ".gwt.xml").toPath()),
+            StandardCharsets.UTF_8);
+        assertTrue(module, module.contains("<replace-with class=\"org.fusesource.restygwt.apt.sample" +
+            ".OwnerService_Apt_RestServiceProxy_\">\n        <when-type-is class=\"org.fusesource.restygwt.apt" +
+            ".sample.OwnerService\"/>"));
+        assertTrue(module, module.contains("<when-type-is class=\"org.fusesource.restygwt.apt.sample.OwnerCodec\"/>"));
+        assertTrue(module,
+            module.contains("<when-type-is class=\"org.fusesource.restygwt.apt.sample.OwnerService$Colors\"/>"));
+        assertFalse(module, module.contains("FormService"));
+    }
+
+    @Test
+    public void testSendsIdempotencyKey() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String proxy = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "OwnerService_Apt_RestServiceProxy_.java").toPath()),
+            StandardCharsets.UTF_8);
+        int idempotent = proxy.indexOf("__method.idempotent(\"Idempotency-Key\");");
+        assertTrue(proxy, idempotent > proxy.indexOf("public com.google.gwt.http.client.Request create("));
+        assertEquals(proxy, idempotent, proxy.lastIndexOf("__method.idempotent("));
+    }
+
+    @Test
+    public void testAppliesClassOptions() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String proxy = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "OwnerService_Apt_RestServiceProxy_.java").toPath()),
+            StandardCharsets.UTF_8);
+        assertTrue(proxy, proxy.contains("__method.timeout(1000);\n        __method.deadline(5000);"));
+    }
+
+    @Test
+    public void testNamesEndpoints() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String proxy = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "OwnerService_Apt_RestServiceProxy_.java").toPath()),
+            StandardCharsets.UTF_8);
+        int endpoint = proxy.indexOf("__method.endpoint(\"org.fusesource.restygwt.apt.sample.OwnerService.create\");");
+        assertTrue(proxy, endpoint > proxy.indexOf("public com.google.gwt.http.client.Request create("));
+    }
+
+    @Test
+    public void testResolvesBalancedServiceRootPerCall() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String proxy = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "OwnerService_Apt_RestServiceProxy_.java").toPath()),
+            StandardCharsets.UTF_8);
+        assertTrue(proxy, proxy.contains("if (org.fusesource.restygwt.client.ServiceRoots.isBalanced(\"pets\")) {"));
+    }
+
+    @Test
+    public void testLeavesUnsupportedServicesToDeferredBinding() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        List<String> warnings = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.WARNING && diagnostic.getMessage(null).contains("@FormParam")) {
+                warnings.add(diagnostic.getMessage(null));
+            }
+        }
+        assertEquals(warnings.toString(), 1, warnings.size());
+        assertTrue(warnings.get(0).contains("FormService is left to deferred binding"));
+    }
+
+    @Test
+    public void testLeavesTypesWithoutDefaultConstructorToDeferredBinding() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        assertFalse(new File(generated, SAMPLE_PACKAGE + "Invoice_Apt_JsonEncoderDecoder_.java").exists());
+        boolean warned = false;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            warned |= diagnostic.getKind() == Diagnostic.Kind.WARNING &&
+                diagnostic.getMessage(null).contains("@JsonCreator") &&
+                diagnostic.getMessage(null).contains("InvoiceCodec is left to deferred binding");
+        }
+        assertTrue(diagnostics.getDiagnostics().toString(), warned);
+    }
+
+    @Test
+    public void testUsesAccessorProperties() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String codec = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "Vehicle_Apt_JsonEncoderDecoder_.java").toPath()),
+            StandardCharsets.UTF_8);
+        assertTrue(codec, codec.contains("= \"licence\";"));
+        assertTrue(codec, codec.contains("= \"wheels\";"));
+        assertTrue(codec, codec.contains("rc.setWheels("));
+        assertFalse(codec, codec.contains("wheelCount"));
+    }
+
+    @Test
+    public void testDecodesBaseTypeWithoutTypeProperty() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile());
+
+        String codec = new String(Files.readAllBytes(
+            new File(generated, SAMPLE_PACKAGE + "Vehicle_Apt_JsonEncoderDecoder_.java").toPath()),
+            StandardCharsets.UTF_8);
+        int base = codec.indexOf("org.fusesource.restygwt.apt.sample.Vehicle rc = new");
+        assertTrue(codec, base > 0);
+        assertTrue(codec, codec.lastIndexOf("if(sourceName == null || ", base) > codec.lastIndexOf("return rc;", base));
+    }
+
+    @Test
+    public void testStrictModeFailsOnUnsupportedServices() throws Exception {
+        assertFalse(compile("-A" + RestyGwtProcessor.STRICT_OPTION + "=true"));
+    }
+
+    private boolean compile(String... extraOptions) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager =
+            compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try {
+            List<File> sources = new ArrayList<File>();
+            for (String sample : SAMPLES) {
+                sources.add(new File(getClass().getResource("/" + SAMPLE_PACKAGE + sample + ".java").toURI()));
+            }
+            List<String> options = new ArrayList<String>(Arrays.asList(
+                "-classpath", classpath(RestyGwtProcessor.class, RestService.class, JSONValue.class, Path.class,
+                    JsonTypeInfo.class),
+                "-processor", RestyGwtProcessor.class.getName(),
+                "-s", generated.getPath(),
+                "-d", classes.getPath()));
+            options.addAll(Arrays.asList(extraOptions));
+            return compiler.getTask(null, fileManager, diagnostics, options, null,
+                fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    /**
+     * The test classpath is not necessarily visible in java.class.path, so use the locations of the needed classes.
+     */
+    private static String classpath(Class<?>... types) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (Class<?> type : types) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparator);
+            }
+            sb.append(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt.sample;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fusesource.restygwt.client.Json;
+
+public class Owner {
+
+    private String name;
+    private boolean active;
+    public int age;
+    public short rank;
+    public char initial;
+    public long[] ids;
+    public int[] numbers;
+    public Date since;
+    public BigDecimal balance;
+    public Color color;
+    public List<Pet> pets;
+    public Set<String> tags;
+    public Map<String, Integer> scores;
+    @Json(lazy = true)
+    public List<Owner> friends;
+    @Json(name = "nick")
+    public String nickname;
+    @JsonProperty("mail")
+    public String email;
+    @JsonIgnore
+    public String secret;
+    public transient String cache;
+    public static String constant;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.apt.sample;
+
+import com.google.gwt.http.client.Request;
+
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.fusesource.restygwt.client.Idempotent;
+import org.fusesource.restygwt.client.MethodCallback;
+import org.fusesource.restygwt.client.ModelChange;
+import org.fusesource.restygwt.client.Options;
+import org.fusesource.restygwt.client.RestService;
+import org.fusesource.restygwt.client.TextCallback;
+import org.fusesource.restygwt.client.cache.Domain;
+
+@Path("owners")
+@Options(timeout = 1000, deadline = 5000, serviceRootKey = "pets")
+@Domain(Owner.class)
+public interface OwnerService extends RestService {
+
+    @GET
+    @Path("{id}")
+    void get(@PathParam("id") int id, MethodCallback<Owner> callback);
+
+    @POST
+    @Idempotent
+    @ModelChange
+    @Options(expect = { 200, 201 })
+    Request create(Owner owner, @HeaderParam("X-Trace") String trace, MethodCallback<Void> callback);
+
+    @GET
+    @Path("pets")
+    void find(@QueryParam("tag") List<String> tags, @QueryParam("q") String query,
+              MethodCallback<List<Pet>> callback);
+
+    @GET
+    @Path("{id}/name")
+    @Produces("text/plain")
+    void name(@PathParam("id") String id, TextCallback callback);
+
+    /**
+     * Nested services are found as well.
+     */
+    interface Colors extends RestService {
+
+        @GET
+        void get(MethodCallback<Color[]> callback);
+    }
+}
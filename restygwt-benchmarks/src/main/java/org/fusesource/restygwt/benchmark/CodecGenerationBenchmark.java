@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.benchmark;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.restygwt.rebind.BaseSourceCreator;
+import org.fusesource.restygwt.rebind.JsonEncoderDecoderClassCreator;
+import org.fusesource.restygwt.rebind.TypeMetadataCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates the codecs of every DTO of a {@link SyntheticProject}, the way one compilation does, starting with an
+ * empty {@link TypeMetadataCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CodecGenerationBenchmark {
+
+    @Param({ "1000", "5000" })
+    public int dtos;
+
+    private SyntheticProject project;
+    private List<JClassType> types;
+
+    @Setup
+    public void setUp() throws IOException, UnableToCompleteException {
+        project = SyntheticProject.create(0, dtos);
+        types = new ArrayList<JClassType>();
+        for (String dto : project.getDtos()) {
+            types.add(project.getTypeOracle().findType(dto));
+        }
+    }
+
+    @Benchmark
+    public List<String> generateCodecs() throws UnableToCompleteException {
+        TypeMetadataCache.clear();
+        GeneratorContext context = project.newContext();
+        List<String> generated = new ArrayList<String>(types.size());
+        try {
+            for (JClassType type : types) {
+                generated.add(new JsonEncoderDecoderClassCreator(TreeLogger.NULL, context, type).create());
+            }
+        } finally {
+            BaseSourceCreator.clearGeneratedClasses();
+        }
+        return generated;
+    }
+}
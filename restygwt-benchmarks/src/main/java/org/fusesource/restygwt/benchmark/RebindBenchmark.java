@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.benchmark;
+
+import com.google.gwt.core.ext.RebindResult;
+import com.google.gwt.core.ext.UnableToCompleteException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.restygwt.rebind.RestServiceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rebinds every service of a {@link SyntheticProject}, once from scratch like a full compile and once with the
+ * results of a previous run cached like a Super Dev Mode refresh where nothing changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RebindBenchmark {
+
+    @Param({ "100", "500" })
+    public int services;
+
+    private SyntheticProject project;
+    private Map<String, RebindResult> previous;
+    private long previousTime;
+
+    @Setup
+    public void setUp() throws IOException, UnableToCompleteException {
+        project = SyntheticProject.create(services, Math.max(1, services / 2));
+        previous = project.rebind(new RestServiceGenerator(), project.getServices(), true, null, 0);
+        previousTime = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public Map<String, RebindResult> fullRebind() throws UnableToCompleteException {
+        return project.rebind(new RestServiceGenerator(), project.getServices(), false, null, 0);
+    }
+
+    @Benchmark
+    public Map<String, RebindResult> cachedRebind() throws UnableToCompleteException {
+        return project.rebind(new RestServiceGenerator(), project.getServices(), true, previous, previousTime);
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.benchmark;
+
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.CachedGeneratorResult;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.IncrementalGenerator;
+import com.google.gwt.core.ext.PropertyOracle;
+import com.google.gwt.core.ext.RebindResult;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.dev.CompilerContext;
+import com.google.gwt.dev.cfg.ModuleDef;
+import com.google.gwt.dev.cfg.ModuleDefLoader;
+import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A generated GWT module with a configurable number of {@code RestService}s and DTOs, compiled into a real
+ * {@link TypeOracle} so the RestyGWT generators can be run against it outside of a GWT compile.
+ * <p>
+ * Every DTO references the next one through a list and a map, so the first service which gets generated pulls
+ * in the codecs of the whole DTO graph, just like in a real application.
+ */
+public class SyntheticProject {
+
+    static final String MODULE = "bench.Bench";
+    static final String PACKAGE = "bench.client";
+
+    private final TypeOracle typeOracle;
+    private final List<String> services;
+    private final List<String> dtos;
+
+    private SyntheticProject(TypeOracle typeOracle, List<String> services, List<String> dtos) {
+        this.typeOracle = typeOracle;
+        this.services = services;
+        this.dtos = dtos;
+    }
+
+    public static SyntheticProject create(int serviceCount, int dtoCount) throws IOException,
+        UnableToCompleteException {
+        File root = Files.createTempDirectory("restygwt-benchmark").toFile();
+        File clientDir = new File(root, PACKAGE.replace('.', File.separatorChar));
+        if (!clientDir.mkdirs()) {
+            throw new IOException("can not create " + clientDir);
+        }
+
+        write(new File(clientDir.getParentFile(), "Bench.gwt.xml"),
+            "<module>\n" + "    <inherits name=\"org.fusesource.restygwt.RestyGWT\"/>\n" +
+                "    <source path=\"client\"/>\n" + "</module>\n");
+        write(new File(clientDir, "Kind.java"),
+            "package " + PACKAGE + ";\n\npublic enum Kind { SMALL, MEDIUM, LARGE }\n");
+
+        List<String> dtos = new ArrayList<String>();
+        for (int i = 0; i < dtoCount; i++) {
+            write(new File(clientDir, "Dto" + i + ".java"), dtoSource(i, dtoCount));
+            dtos.add(PACKAGE + ".Dto" + i);
+        }
+        List<String> services = new ArrayList<String>();
+        for (int i = 0; i < serviceCount; i++) {
+            write(new File(clientDir, "Service" + i + ".java"), serviceSource(i, dtoCount));
+            services.add(PACKAGE + ".Service" + i);
+        }
+
+        PrintWriterTreeLogger logger = new PrintWriterTreeLogger();
+        logger.setMaxDetail(TreeLogger.WARN);
+
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(new URLClassLoader(new URL[] { root.toURI().toURL() }, original));
+        try {
+            CompilerContext compilerContext = new CompilerContext.Builder().build();
+            ModuleDef module = ModuleDefLoader.loadFromClassPath(logger, compilerContext, MODULE);
+            compilerContext = new CompilerContext.Builder().module(module).build();
+            TypeOracle typeOracle = module.getCompilationState(logger, compilerContext).getTypeOracle();
+            return new SyntheticProject(typeOracle, services, dtos);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    public List<String> getServices() {
+        return services;
+    }
+
+    public List<String> getDtos() {
+        return dtos;
+    }
+
+    public TypeOracle getTypeOracle() {
+        return typeOracle;
+    }
+
+    /**
+     * @return a fresh context without generator result caching, as seen by the generators of one compilation
+     */
+    public GeneratorContext newContext() {
+        return new Context(false).asGeneratorContext();
+    }
+
+    /**
+     * Runs the generator for all given types, sharing one {@link GeneratorContext} like a GWT compile does.
+     *
+     * @param caching whether generator result caching is enabled
+     * @param previous the results of an earlier run to offer as cached results, may be null
+     * @param previousTime when the earlier run happened
+     * @return the results by type name
+     */
+    public Map<String, RebindResult> rebind(IncrementalGenerator generator, List<String> types, boolean caching,
+                                            Map<String, RebindResult> previous, long previousTime)
+        throws UnableToCompleteException {
+        Context context = new Context(caching);
+        GeneratorContext generatorContext = context.asGeneratorContext();
+        Map<String, RebindResult> results = new LinkedHashMap<String, RebindResult>();
+        for (String type : types) {
+            RebindResult cached = previous == null ? null : previous.get(type);
+            context.cachedResult = cached == null ? null : cachedResult(cached, previousTime);
+            results.put(type, generator.generateIncrementally(TreeLogger.NULL, generatorContext, type));
+        }
+        return results;
+    }
+
+    private static CachedGeneratorResult cachedResult(final RebindResult result, final long timeGenerated) {
+        return proxy(CachedGeneratorResult.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("getClientData")) {
+                    return result.getClientData((String) args[0]);
+                } else if (name.equals("getResultTypeName")) {
+                    return result.getResultTypeName();
+                } else if (name.equals("getTimeGenerated")) {
+                    return timeGenerated;
+                } else if (name.equals("isTypeCached")) {
+                    return true;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    /**
+     * The parts of a {@link GeneratorContext} the generators use. Generated sources go into memory and are
+     * thrown away.
+     */
+    private class Context implements InvocationHandler {
+
+        private final boolean caching;
+        private final Set<String> generated = new HashSet<String>();
+        CachedGeneratorResult cachedResult;
+
+        Context(boolean caching) {
+            this.caching = caching;
+        }
+
+        GeneratorContext asGeneratorContext() {
+            return proxy(GeneratorContext.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("getTypeOracle")) {
+                return typeOracle;
+            } else if (name.equals("getPropertyOracle")) {
+                return proxy(PropertyOracle.class, new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        // the generators fall back to their defaults
+                        throw new BadPropertyValueException(String.valueOf(args[args.length - 1]));
+                    }
+                });
+            } else if (name.equals("tryCreate")) {
+                if (!generated.add(args[1] + "." + args[2])) {
+                    return null;
+                }
+                return new PrintWriter(new StringWriter());
+            } else if (name.equals("commit")) {
+                return null;
+            } else if (name.equals("isGeneratorResultCachingEnabled")) {
+                return caching;
+            } else if (name.equals("getCachedGeneratorResult")) {
+                return cachedResult;
+            } else if (name.equals("tryReuseTypeFromCache")) {
+                return false;
+            } else if (name.equals("isProdMode") || name.equals("checkRebindRuleAvailable")) {
+                return true;
+            }
+            throw new UnsupportedOperationException(name);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SyntheticProject.class.getClassLoader(), new Class<?>[] { type },
+            new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getDeclaringClass() == Object.class) {
+                        try {
+                            return method.invoke(handler, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                    return handler.invoke(proxy, method, args);
+                }
+            });
+    }
+
+    private static String dtoSource(int i, int dtoCount) {
+        int next = (i + 1) % dtoCount;
+        return "package " + PACKAGE + ";\n\n" +
+            "public class Dto" + i + " {\n" +
+            "    public String name;\n" +
+            "    public int count;\n" +
+            "    public long id;\n" +
+            "    public java.util.Date created;\n" +
+            "    public Kind kind;\n" +
+            "    public java.util.List<Dto" + next + "> children;\n" +
+            "    public java.util.Map<String, Dto" + next + "> byName;\n" +
+            "    private double score;\n" +
+            "    public double getScore() { return score; }\n" +
+            "    public void setScore(double score) { this.score = score; }\n" +
+            "}\n";
+    }
+
+    private static String serviceSource(int i, int dtoCount) {
+        String dto = "Dto" + (i % dtoCount);
+        return "package " + PACKAGE + ";\n\n" +
+            "import java.util.List;\n" +
+            "import javax.ws.rs.*;\n" +
+            "import org.fusesource.restygwt.client.*;\n\n" +
+            "@Path(\"/service" + i + "\")\n" +
+            "public interface Service" + i + " extends RestService {\n" +
+            "    @GET @Path(\"{id}\") void get(@PathParam(\"id\") long id, MethodCallback<" + dto + "> callback);\n" +
+            "    @GET void list(@QueryParam(\"kind\") Kind kind, @QueryParam(\"limit\") int limit,\n" +
+            "        MethodCallback<List<" + dto + ">> callback);\n" +
+            "    @POST void save(" + dto + " dto, MethodCallback<" + dto + "> callback);\n" +
+            "    @DELETE @Path(\"{id}\") void delete(@PathParam(\"id\") long id, MethodCallback<Void> callback);\n" +
+            "}\n";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Writer writer = Files.newBufferedWriter(file.toPath(), Charset.forName("UTF-8"));
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -18,7 +18,6 @@
 
 package org.fusesource.restygwt.client;
 
-import com.google.gwt.i18n.client.DateTimeFormat;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONBoolean;
 import com.google.gwt.json.client.JSONException;
@@ -53,6 +52,11 @@ import org.fusesource.restygwt.client.util.Base64Codec;
  */
 public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecoder<T> {
 
+    /**
+     * 2^53 - 1, the largest integer a JSON number (a javascript double) holds without losing precision.
+     */
+    private static final double MAX_SAFE_INTEGER = 9007199254740991d;
+
     @Override
     public T decode(String value) throws DecodingException {
         try {
@@ -161,16 +165,15 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
             if (value == null || value.isNull() != null) {
                 return null;
             }
-            JSONString valueString = value.isString();
-            if (valueString != null) {
-                return Long.parseLong(valueString.stringValue());
-            }
-            return (long) toDouble(value);
+            return toLong(value);
         }
 
         @Override
         public JSONValue encode(Long value) throws EncodingException {
-            return (value == null) ? getNullType() : new JSONNumber(value);
+            if (value == null) {
+                return getNullType();
+            }
+            return Defaults.isLongsAsStrings() ? new JSONString(Long.toString(value)) : new JSONNumber(value);
         }
     };
 
@@ -259,25 +262,7 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
                 if (value == null || value.isNull() != null) {
                     return null;
                 }
-                JSONNumber number = value.isNumber();
-                if (number == null) {
-                    JSONString str = value.isString();
-                    if (str == null) {
-                        throw new DecodingException("Expected a json number r string, but was given: " + value);
-                    }
-
-                    // Doing a straight conversion from string to BigInteger will
-                    // not work for large values
-                    // So we convert to BigDecimal first and then convert it to
-                    // BigInteger.
-                    return new BigDecimal(str.stringValue()).toBigInteger();
-                }
-
-                // Doing a straight conversion from string to BigInteger will not
-                // work for large values
-                // So we convert to BigDecimal first and then convert it to
-                // BigInteger.
-                return new BigDecimal(value.toString()).toBigInteger();
+                return toBigInteger(value);
             }
 
             @Override
@@ -326,30 +311,7 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
             if (value == null || value.isNull() != null) {
                 return null;
             }
-
-            String format = Defaults.getDateFormat();
-
-            if (format == null) {
-                JSONNumber num = value.isNumber();
-                if (num == null) {
-                    throw new DecodingException("Expected a json number, but was given: " + value);
-                }
-                return new Date((long) num.doubleValue());
-            }
-
-            JSONString str = value.isString();
-            if (str == null) {
-                throw new DecodingException("Expected a json string, but was given: " + value);
-            }
-
-            if (Defaults.getTimeZone() == null || Defaults.dateFormatHasTimeZone()) {
-                return DateTimeFormat.getFormat(format).parse(str.stringValue());
-            }
-            // We need to provide time zone information to the GWT date parser.
-            // Unfortunately, DateTimeFormat has no overload specifying a TimeZone,
-            // so the only way is to extend the format string.
-            return DateTimeFormat.getFormat(format + " v")
-                .parse(str.stringValue() + " " + Defaults.getTimeZone().getID());
+            return Defaults.getDateCodec().decode(value);
         }
 
         @Override
@@ -357,17 +319,7 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
             if (value == null) {
                 return getNullType();
             }
-
-            String format = Defaults.getDateFormat();
-
-            if (format == null) {
-                return new JSONNumber(value.getTime());
-            }
-
-            if (Defaults.getTimeZone() == null || Defaults.dateFormatHasTimeZone()) {
-                return new JSONString(DateTimeFormat.getFormat(format).format(value));
-            }
-            return new JSONString(DateTimeFormat.getFormat(format).format(value, Defaults.getTimeZone()));
+            return Defaults.getDateCodec().encode(value);
         }
     };
 
@@ -378,6 +330,10 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
     public static BigDecimal toBigDecimal(JSONValue value) {
         JSONNumber number = value.isNumber();
         if (number != null) {
+            double d = number.doubleValue();
+            if (isSafeInteger(d)) {
+                return BigDecimal.valueOf((long) d);
+            }
             return new BigDecimal(number.toString());
         }
 
@@ -392,6 +348,80 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
         throw new DecodingException("Expected a json number, but was given: " + value);
     }
 
+    public static BigInteger toBigInteger(JSONValue value) {
+        JSONNumber number = value.isNumber();
+        if (number != null) {
+            double d = number.doubleValue();
+            if (isSafeInteger(d)) {
+                return BigInteger.valueOf((long) d);
+            }
+            // large values are rendered with an exponent, which only BigDecimal understands
+            return new BigDecimal(number.toString()).toBigInteger();
+        }
+
+        JSONString string = value.isString();
+        if (string == null) {
+            throw new DecodingException("Expected a json number or string, but was given: " + value);
+        }
+        String text = string.stringValue();
+        try {
+            if (isIntegral(text)) {
+                return new BigInteger(stripPlus(text));
+            }
+            return new BigDecimal(text).toBigInteger();
+        } catch (NumberFormatException e) {
+            throw new DecodingException("Expected a json number or string, but was given: " + value);
+        }
+    }
+
+    public static long toLong(JSONValue value) {
+        JSONString string = value.isString();
+        if (string != null) {
+            String text = string.stringValue();
+            if (isIntegral(text)) {
+                try {
+                    return Long.parseLong(stripPlus(text));
+                } catch (NumberFormatException e) {
+                    // out of range, just throw exception below
+                }
+            }
+            throw new DecodingException("Expected a json long, but was given: " + value);
+        }
+        return (long) toDouble(value);
+    }
+
+    /**
+     * @return true if the text is an optional sign followed by decimal digits only
+     */
+    static boolean isIntegral(String text) {
+        int length = text.length();
+        int start = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * a leading plus sign is accepted like before, not every emulated parser does so
+     */
+    private static String stripPlus(String text) {
+        return text.charAt(0) == '+' ? text.substring(1) : text;
+    }
+
+    /**
+     * @return true if the double holds an integer which it can represent exactly
+     */
+    static boolean isSafeInteger(double value) {
+        return value == Math.floor(value) && Math.abs(value) <= MAX_SAFE_INTEGER;
+    }
+
     public static double toDouble(JSONValue value) {
         JSONNumber number = value.isNumber();
         if (number == null) {
@@ -458,6 +488,18 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
         return rc;
     }
 
+    /**
+     * Like {@link #toList(JSONValue, AbstractJsonEncoderDecoder)} but the elements get decoded on first access.
+     *
+     * @see LazyJsonList
+     */
+    public static <Type> List<Type> toLazyList(JSONValue value, AbstractJsonEncoderDecoder<Type> encoder) {
+        if (value == null || value.isNull() != null) {
+            return null;
+        }
+        return new LazyJsonList<Type>(asArray(value), encoder);
+    }
+
     public static <Type> Type[] toArray(JSONValue value, AbstractJsonEncoderDecoder<Type> encoder, Type[] template) {
         if (value == null || value.isNull() != null) {
             return null;
@@ -854,8 +896,9 @@ public abstract class AbstractJsonEncoderDecoder<T> implements JsonEncoderDecode
         }
         JSONArray rc = new JSONArray();
         int i = 0;
+        boolean longsAsStrings = Defaults.isLongsAsStrings();
         for (long t : value) {
-            rc.set(i++, new JSONNumber(t));
+            rc.set(i++, longsAsStrings ? new JSONString(Long.toString(t)) : new JSONNumber(t));
         }
         return rc;
     }
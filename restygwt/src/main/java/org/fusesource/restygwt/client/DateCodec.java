@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import com.google.gwt.i18n.client.DateTimeFormat;
+import com.google.gwt.i18n.shared.TimeZone;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
+
+import java.util.Date;
+
+import org.fusesource.restygwt.client.JsonEncoderDecoder.DecodingException;
+
+/**
+ * Encodes and decodes {@link Date}s according to the date format and time zone configured in {@link Defaults}.
+ * <p>
+ * Instances are built by {@link Defaults#getDateCodec()} and only rebuilt when the configuration changes, so the
+ * format lookup happens once and not for every value. The default ISO-8601 format and epoch millis are handled
+ * without going through {@link DateTimeFormat} at all.
+ */
+abstract class DateCodec {
+
+    static final String ISO_8601_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    abstract Date decode(JSONValue value) throws DecodingException;
+
+    abstract JSONValue encode(Date value);
+
+    static DateCodec create(String format, TimeZone timeZone, boolean formatHasTimeZone) {
+        if (format == null) {
+            return new EpochMillisDateCodec();
+        }
+        DateCodec formatted = new FormattedDateCodec(format, formatHasTimeZone ? null : timeZone);
+        if (ISO_8601_FORMAT.equals(format)) {
+            return new Iso8601DateCodec(formatted);
+        }
+        return formatted;
+    }
+
+    private static class EpochMillisDateCodec extends DateCodec {
+
+        @Override
+        Date decode(JSONValue value) throws DecodingException {
+            JSONNumber num = value.isNumber();
+            if (num == null) {
+                throw new DecodingException("Expected a json number, but was given: " + value);
+            }
+            return new Date((long) num.doubleValue());
+        }
+
+        @Override
+        JSONValue encode(Date value) {
+            return new JSONNumber(value.getTime());
+        }
+    }
+
+    private static class FormattedDateCodec extends DateCodec {
+
+        private final DateTimeFormat format;
+        private final TimeZone timeZone;
+        private final DateTimeFormat parseFormat;
+        private final String parseSuffix;
+
+        FormattedDateCodec(String format, TimeZone timeZone) {
+            this.format = DateTimeFormat.getFormat(format);
+            this.timeZone = timeZone;
+            if (timeZone == null) {
+                parseFormat = this.format;
+                parseSuffix = null;
+            } else {
+                // We need to provide time zone information to the GWT date parser.
+                // Unfortunately, DateTimeFormat has no overload specifying a TimeZone,
+                // so the only way is to extend the format string.
+                parseFormat = DateTimeFormat.getFormat(format + " v");
+                parseSuffix = " " + timeZone.getID();
+            }
+        }
+
+        @Override
+        Date decode(JSONValue value) throws DecodingException {
+            JSONString str = value.isString();
+            if (str == null) {
+                throw new DecodingException("Expected a json string, but was given: " + value);
+            }
+            if (parseSuffix == null) {
+                return parseFormat.parse(str.stringValue());
+            }
+            return parseFormat.parse(str.stringValue() + parseSuffix);
+        }
+
+        @Override
+        JSONValue encode(Date value) {
+            if (timeZone == null) {
+                return new JSONString(format.format(value));
+            }
+            return new JSONString(format.format(value, timeZone));
+        }
+    }
+
+    /**
+     * Hand written parser and formatter for {@link #ISO_8601_FORMAT}. Anything outside of the shape produced by
+     * that pattern is handed to the {@link DateTimeFormat} based fallback.
+     */
+    private static class Iso8601DateCodec extends DateCodec {
+
+        private final DateCodec fallback;
+
+        Iso8601DateCodec(DateCodec fallback) {
+            this.fallback = fallback;
+        }
+
+        @Override
+        Date decode(JSONValue value) throws DecodingException {
+            JSONString str = value.isString();
+            if (str != null) {
+                Date date = parseIso8601(str.stringValue());
+                if (date != null) {
+                    return date;
+                }
+            }
+            return fallback.decode(value);
+        }
+
+        @Override
+        JSONValue encode(Date value) {
+            String formatted = formatIso8601(value);
+            if (formatted == null) {
+                return fallback.encode(value);
+            }
+            return new JSONString(formatted);
+        }
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd'T'HH:mm:ss.SSS} followed by {@code Z}, {@code +hh}, {@code +hhmm} or
+     * {@code +hh:mm}.
+     *
+     * @return the parsed date or null if the value does not have that shape
+     */
+    static Date parseIso8601(String value) {
+        int length = value.length();
+        if (length < 24 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T' ||
+            value.charAt(13) != ':' || value.charAt(16) != ':' || value.charAt(19) != '.') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        int millis = digits(value, 20, 3);
+        if (year < 0 || month < 1 || month > 12 || day < 0 || hour < 0 || minute < 0 || second < 0 || millis < 0) {
+            return null;
+        }
+
+        int offset;
+        char sign = value.charAt(23);
+        if (sign == 'Z' && length == 24) {
+            offset = 0;
+        } else if (sign == '+' || sign == '-') {
+            int offsetHours = length >= 26 ? digits(value, 24, 2) : -1;
+            int offsetMinutes;
+            if (length == 26) {
+                offsetMinutes = 0;
+            } else if (length == 28) {
+                offsetMinutes = digits(value, 26, 2);
+            } else if (length == 29 && value.charAt(26) == ':') {
+                offsetMinutes = digits(value, 27, 2);
+            } else {
+                return null;
+            }
+            if (offsetHours < 0 || offsetMinutes < 0) {
+                return null;
+            }
+            offset = offsetHours * 60 + offsetMinutes;
+            if (sign == '-') {
+                offset = -offset;
+            }
+        } else {
+            return null;
+        }
+
+        long time = daysFromCivil(year, month, day) * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L +
+            second * 1000L + millis - offset * 60000L;
+        return new Date(time);
+    }
+
+    /**
+     * Formats the given date in the local time zone, exactly like
+     * {@code DateTimeFormat.getFormat(ISO_8601_FORMAT).format(date)} does.
+     *
+     * @return the formatted date or null if the year does not fit into four digits
+     */
+    @SuppressWarnings("deprecation")
+    static String formatIso8601(Date date) {
+        int year = date.getYear() + 1900;
+        if (year < 0 || year > 9999) {
+            return null;
+        }
+        int millis = (int) (date.getTime() % 1000);
+        if (millis < 0) {
+            millis += 1000;
+        }
+        int offset = -date.getTimezoneOffset();
+
+        StringBuilder sb = new StringBuilder(28);
+        appendDigits(sb, year, 4).append('-');
+        appendDigits(sb, date.getMonth() + 1, 2).append('-');
+        appendDigits(sb, date.getDate(), 2).append('T');
+        appendDigits(sb, date.getHours(), 2).append(':');
+        appendDigits(sb, date.getMinutes(), 2).append(':');
+        appendDigits(sb, date.getSeconds(), 2).append('.');
+        appendDigits(sb, millis, 3);
+        if (offset < 0) {
+            sb.append('-');
+            offset = -offset;
+        } else {
+            sb.append('+');
+        }
+        appendDigits(sb, offset / 60, 2);
+        appendDigits(sb, offset % 60, 2);
+        return sb.toString();
+    }
+
+    /**
+     * @return the non negative number made of the given digits or -1 if there is any other character
+     */
+    private static int digits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder sb, int value, int width) {
+        for (int limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        return sb.append(value);
+    }
+
+    /**
+     * Number of days since 1970-01-01 in the proleptic Gregorian calendar. Out of range days roll over into the
+     * next month, like the lenient {@link DateTimeFormat} parser does.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
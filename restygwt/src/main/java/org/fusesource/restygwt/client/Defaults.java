@@ -37,15 +37,17 @@ public class Defaults {
     private static Dispatcher dispatcher = DefaultDispatcher.INSTANCE;
 
     private static String serviceRoot = GWT.getModuleBaseURL();
-    private static String dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static String dateFormat = DateCodec.ISO_8601_FORMAT;
     private static boolean dateFormatHasTimeZone = true;
     private static TimeZone timeZone = null;
+    private static DateCodec dateCodec = null;
     private static boolean ignoreJsonNulls = false;
     private static boolean addXHttpMethodOverrideHeader = true;
     // patch TNY: timeout ms,
     // if >-1, used in Method class to set timeout
     private static int requestTimeout = -1;
     private static boolean byteArraysToBase64 = false;
+    private static boolean longsAsStrings = false;
 
     private static ExceptionMapper exceptionMapper = new ExceptionMapper();
 
@@ -102,6 +104,7 @@ public class Defaults {
                 }
             }
         }
+        dateCodec = null;
     }
 
     /* package */
@@ -109,6 +112,18 @@ public class Defaults {
         return dateFormatHasTimeZone;
     }
 
+    /**
+     * Returns the codec for the current date format and timezone. It is only rebuilt after
+     * {@link #setDateFormat(String)} or {@link #setTimeZone(TimeZone)} got called.
+     */
+    /* package */
+    static DateCodec getDateCodec() {
+        if (dateCodec == null) {
+            dateCodec = DateCodec.create(dateFormat, timeZone, dateFormatHasTimeZone);
+        }
+        return dateCodec;
+    }
+
     /**
      * Gets the timezone used when encoding and decoding Dates.
      * <p>
@@ -133,6 +148,7 @@ public class Defaults {
      */
     public static void setTimeZone(TimeZone timeZone) {
         Defaults.timeZone = timeZone;
+        dateCodec = null;
     }
 
     /**
@@ -172,6 +188,25 @@ public class Defaults {
         Defaults.byteArraysToBase64 = byteArraysToBase64;
     }
 
+    /**
+     * Indicates whether longs get encoded as JSON strings. Decoding accepts both, numbers and strings.
+     *
+     * @return the longsAsStrings
+     */
+    public static boolean isLongsAsStrings() {
+        return longsAsStrings;
+    }
+
+    /**
+     * JSON numbers are doubles in the browser, so longs beyond 2^53 lose precision. Encoding them as strings
+     * keeps them intact. Defaults to false.
+     *
+     * @param longsAsStrings the longsAsStrings to set
+     */
+    public static void setLongsAsStrings(boolean longsAsStrings) {
+        Defaults.longsAsStrings = longsAsStrings;
+    }
+
     /**
      * Sets the default dispatcher used by Method instances.
      *
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.fusesource.restygwt.client.callback.RetryPolicy;
+
+/**
+ * Marks rest methods, or all methods of a service, whose requests may be sent again because the server recognizes
+ * repeated requests by a key. Every invocation gets a new random key in the given header, retries of the invocation
+ * send the same key. A {@link RetryPolicy} may then retry these requests whatever their http method is, see
+ * {@link Method#isIdempotent()}.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({ METHOD, TYPE })
+public @interface Idempotent {
+
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * the header carrying the key
+     */
+    String header() default IDEMPOTENCY_KEY_HEADER;
+}
@@ -19,6 +19,7 @@
 package org.fusesource.restygwt.client;
 
 import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
@@ -30,7 +31,7 @@ import java.lang.annotation.Target;
 
 @Documented
 @Retention(RUNTIME)
-@Target({ FIELD, PARAMETER, TYPE })
+@Target({ FIELD, METHOD, PARAMETER, TYPE })
 public @interface Json {
 
     enum Style {
@@ -40,4 +41,14 @@ public @interface Json {
     Style style() default DEFAULT;
 
     String name() default "";
+
+    /**
+     * When set on a {@code List} or {@code Collection} field, or on a service method returning one, the elements
+     * are only decoded when they get accessed. Untyped {@code Object}, {@code Map<String, Object>} and
+     * {@code List<Object>} values become read-only views of the parsed JSON instead.
+     *
+     * @see LazyJsonList
+     * @see ObjectViewEncoderDecoder
+     */
+    boolean lazy() default false;
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import com.google.gwt.json.client.JSONArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only list backed by a parsed JSON array. Elements are converted by {@link ObjectViewEncoderDecoder}
+ * when they get accessed, so nested objects and arrays become views as well and nothing is copied up front.
+ * <p>
+ * Use {@link #copy()} to get a mutable {@link ArrayList} holding the same content.
+ *
+ * @see ObjectViewEncoderDecoder
+ */
+public class JsonListView extends LazyJsonList<Object> {
+
+    private final JSONArray array;
+
+    public JsonListView(JSONArray array) {
+        super(array, ObjectViewEncoderDecoder.INSTANCE);
+        this.array = array;
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return a mutable deep copy with nested objects and arrays turned into {@link java.util.HashMap}s and
+     * {@link ArrayList}s, just like {@link ObjectEncoderDecoder} decodes them
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> copy() {
+        return (List<Object>) ObjectEncoderDecoder.INSTANCE.decode(array);
+    }
+
+    /**
+     * @return the JSON array backing this view
+     */
+    public JSONArray getJSONArray() {
+        return array;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import com.google.gwt.json.client.JSONObject;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only map backed by a parsed JSON object. Values are converted by {@link ObjectViewEncoderDecoder} when
+ * they get accessed, so nested objects and arrays become views as well and nothing is copied up front.
+ * <p>
+ * Use {@link #copy()} to get a mutable {@link HashMap} holding the same content.
+ *
+ * @see ObjectViewEncoderDecoder
+ */
+public class JsonMapView extends AbstractMap<String, Object> {
+
+    private final JSONObject object;
+    private Map<String, Object> values;
+    private Set<Entry<String, Object>> entrySet;
+
+    public JsonMapView(JSONObject object) {
+        this.object = object;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String name = (String) key;
+        if (values != null && values.containsKey(name)) {
+            return values.get(name);
+        }
+        if (!object.containsKey(name)) {
+            return null;
+        }
+        Object value = ObjectViewEncoderDecoder.INSTANCE.decode(object.get(name));
+        if (values == null) {
+            values = new HashMap<String, Object>();
+        }
+        values.put(name, value);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && object.containsKey((String) key);
+    }
+
+    @Override
+    public int size() {
+        return object.size();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(object.keySet());
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<String> keys = keySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            String key = keys.next();
+                            return new SimpleImmutableEntry<String, Object>(key, get(key));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return JsonMapView.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * @return a mutable deep copy with nested objects and arrays turned into {@link HashMap}s and
+     * {@link java.util.ArrayList}s, just like {@link ObjectEncoderDecoder} decodes them
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> copy() {
+        return (Map<String, Object>) ObjectEncoderDecoder.INSTANCE.decode(object);
+    }
+
+    /**
+     * @return the JSON object backing this view
+     */
+    public JSONObject getJSONObject() {
+        return object;
+    }
+}
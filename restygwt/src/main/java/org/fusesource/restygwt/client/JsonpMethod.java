@@ -134,6 +134,11 @@ public class JsonpMethod extends Method {
         throw unsupported();
     }
 
+    @Override
+    public Method jsonText(String data) {
+        throw unsupported();
+    }
+
     @Override
     public Method password(String password) {
         throw unsupported();
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import com.google.gwt.json.client.JSONArray;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list backed by a parsed JSON array which decodes the element at index i on the first {@link #get(int)} and
+ * remembers the result. {@link #size()} and iteration do not decode any element up front, so a large response
+ * only costs what is actually looked at.
+ * <p>
+ * Elements can be replaced with {@link #set(int, Object)}, but the size of the list is fixed.
+ * <p>
+ * Use {@code @Json(lazy = true)} on a field or a service method to get one.
+ *
+ * @see AbstractJsonEncoderDecoder#toLazyList(com.google.gwt.json.client.JSONValue, AbstractJsonEncoderDecoder)
+ */
+public class LazyJsonList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final JSONArray array;
+    private final AbstractJsonEncoderDecoder<T> decoder;
+    private final Object[] elements;
+    private final boolean[] decoded;
+
+    public LazyJsonList(JSONArray array, AbstractJsonEncoderDecoder<T> decoder) {
+        this.array = array;
+        this.decoder = decoder;
+        elements = new Object[array.size()];
+        decoded = new boolean[elements.length];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (!decoded[index]) {
+            elements[index] = decoder.decode(array.get(index));
+            decoded[index] = true;
+        }
+        return (T) elements[index];
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T old = get(index);
+        elements[index] = element;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * @return true if the element at the given index got decoded already
+     */
+    public boolean isDecoded(int index) {
+        return decoded[index];
+    }
+}
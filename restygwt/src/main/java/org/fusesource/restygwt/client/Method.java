@@ -29,17 +29,21 @@ import com.google.gwt.json.client.JSONException;
 import com.google.gwt.json.client.JSONParser;
 import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.logging.client.LogConfiguration;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.xml.client.Document;
 import com.google.gwt.xml.client.XMLParser;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.fusesource.restygwt.client.callback.RetryPolicy;
 import org.fusesource.restygwt.rebind.AnnotationResolver;
 
 /**
@@ -62,6 +66,14 @@ public class Method {
      * @author chirino
      */
     private static class MethodRequestBuilder extends RequestBuilder {
+
+        private final Map<String, String> headers = new LinkedHashMap<String, String>();
+
+        /**
+         * the request sent last, cancelled when the deadline of the call passes
+         */
+        private Request attempt;
+
         public MethodRequestBuilder(String method, String url) {
 
             super(method, url);
@@ -74,6 +86,24 @@ public class Method {
                 setHeader("X-HTTP-Method-Override", method);
             }
         }
+
+        @Override
+        public void setHeader(String header, String value) {
+            super.setHeader(header, value);
+            headers.put(header, value);
+        }
+
+        @Override
+        public Request send() throws RequestException {
+            attempt = super.send();
+            return attempt;
+        }
+
+        @Override
+        public Request sendRequest(String requestData, RequestCallback callback) throws RequestException {
+            attempt = super.sendRequest(requestData, callback);
+            return attempt;
+        }
     }
 
     public RequestBuilder builder;
@@ -94,6 +124,13 @@ public class Method {
     Request request;
     Response response;
     Dispatcher dispatcher;
+    private RetryPolicy retryPolicy;
+    private boolean idempotent;
+    private int deadlineMillis;
+    private long deadline;
+    private int attemptTimeout = -1;
+    private boolean explicitTimeout;
+    private String endpoint;
 
     /**
      * additional data which can be set per instance, e.g. from a {@link AnnotationResolver}
@@ -133,6 +170,65 @@ public class Method {
         return this;
     }
 
+    /**
+     * @return the headers set on the request so far, none if the builder got replaced by a custom one
+     */
+    public Map<String, String> getHeaders() {
+        if (builder instanceof MethodRequestBuilder) {
+            return Collections.unmodifiableMap(((MethodRequestBuilder) builder).headers);
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Limits the whole call to the given milliseconds from sending it: the time waiting in queues of dispatcher
+     * filters, every attempt and the delays between retries. The timeout of every attempt shrinks to the time left.
+     * Once the deadline passed the callback fails with a {@link DeadlineExceededException}. Zero sets no deadline.
+     */
+    public Method deadline(int millis) {
+        deadlineMillis = millis;
+        return this;
+    }
+
+    public boolean hasDeadline() {
+        return deadline != 0;
+    }
+
+    /**
+     * @return the milliseconds left until the deadline, never negative, {@link Integer#MAX_VALUE} without a deadline
+     */
+    public int getRemainingMillis() {
+        if (deadline == 0) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    /**
+     * Shrinks the timeout of the next attempt to the time left until the deadline. Dispatchers and retrying
+     * callbacks call it right before sending the request.
+     *
+     * @return false if the deadline passed and the request must not be sent
+     */
+    public boolean applyDeadline() {
+        if (deadline == 0) {
+            return true;
+        }
+        int remaining = getRemainingMillis();
+        if (remaining == 0) {
+            return false;
+        }
+        if (attemptTimeout < 0) {
+            attemptTimeout = builder.getTimeoutMillis();
+        }
+        builder.setTimeoutMillis(attemptTimeout > 0 ? Math.min(attemptTimeout, remaining) : remaining);
+        return true;
+    }
+
+    public DeadlineExceededException deadlineExceeded() {
+        return new DeadlineExceededException(builder.getHTTPMethod() + " " + builder.getUrl(), deadlineMillis);
+    }
+
     private void doSetTimeout() {
         // Use default timeout only if it was not already set through the @Options(timeout =) annotation.
         // See https://github.com/resty-gwt/resty-gwt/issues/206
@@ -155,6 +251,15 @@ public class Method {
         return this;
     }
 
+    /**
+     * Sends JSON text which got serialized already, e.g. by gwt-jackson.
+     */
+    public Method jsonText(String data) {
+        defaultContentType(Resource.CONTENT_TYPE_JSON);
+        builder.setRequestData(data);
+        return this;
+    }
+
     public Method xml(Document data) {
         defaultContentType(Resource.CONTENT_TYPE_XML);
         builder.setRequestData(data.toString());
@@ -169,9 +274,83 @@ public class Method {
 
     public Method timeout(int timeout) {
         builder.setTimeoutMillis(timeout);
+        explicitTimeout = true;
         return this;
     }
 
+    /**
+     * @return true if the timeout got set with {@link #timeout(int)}, e.g. from {@code @Options(timeout)}, and not
+     *         from the defaults
+     */
+    public boolean hasExplicitTimeout() {
+        return explicitTimeout;
+    }
+
+    /**
+     * Names the rest method this request belongs to. The generated proxies set the qualified name of the service
+     * followed by the name of the method, so dispatcher filters can keep statistics per rest method.
+     */
+    public Method endpoint(String name) {
+        endpoint = name;
+        return this;
+    }
+
+    /**
+     * @return the name of the rest method or null if the method was not created by a generated proxy
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * sets the policy used to retry this method if the dispatcher creates its callbacks with a
+     * {@link org.fusesource.restygwt.client.callback.RetryingCallbackFactory}, overriding the one of the factory.
+     */
+    public Method retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * marks the method as safe to be sent again and sets a new random key in the given header, by which the server
+     * recognizes the repeated requests. Retries send the same builder and so the same key.
+     *
+     * @see Idempotent
+     */
+    public Method idempotent(String header) {
+        header(header, newIdempotencyKey());
+        idempotent = true;
+        return this;
+    }
+
+    /**
+     * @return true for methods which may be sent again, either because the http method allows it or because they
+     *         carry an idempotency key. JSONP methods have no builder and are GETs.
+     */
+    public boolean isIdempotent() {
+        if (idempotent || builder == null) {
+            return true;
+        }
+        String method = builder.getHTTPMethod();
+        return "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+    }
+
+    /**
+     * @return 128 random bits as 32 hex digits
+     */
+    static String newIdempotencyKey() {
+        StringBuilder sb = new StringBuilder(32);
+        for (int i = 0; i < 8; i++) {
+            String bits = Integer.toHexString((int) (Math.random() * 0x10000) | 0x10000);
+            sb.append(bits, 1, 5);
+        }
+        return sb.toString();
+    }
+
     /**
      * sets the expected response status code.  If the response status code does not match
      * any of the values specified then the request is considered to have failed.  Defaults to accepting
@@ -213,6 +392,10 @@ public class Method {
 
     public Object send(RequestCallback callback) throws RequestException {
         doSetTimeout();
+        if (deadlineMillis > 0) {
+            deadline = System.currentTimeMillis() + deadlineMillis;
+            callback = new DeadlineCallback(callback);
+        }
         builder.setCallback(callback);
         // lazily load dispatcher from defaults, if one is not set yet.
         Dispatcher localDispatcher = dispatcher == null ? Defaults.getDispatcher() : dispatcher;
@@ -378,4 +561,57 @@ public class Method {
     public Map<String, String> getData() {
         return data;
     }
+
+    /**
+     * fails the call when the deadline passes and cancels the attempt in flight, so neither its response nor a retry
+     * reach the callback afterwards. The failure takes the way of a response, through the callbacks of all filters.
+     */
+    private class DeadlineCallback implements RequestCallback {
+
+        private final RequestCallback callback;
+        private final Timer timer;
+        private boolean done;
+
+        DeadlineCallback(RequestCallback callback) {
+            this.callback = callback;
+            timer = new Timer() {
+                @Override
+                public void run() {
+                    Request attempt = builder instanceof MethodRequestBuilder ?
+                        ((MethodRequestBuilder) builder).attempt : request;
+                    if (attempt != null) {
+                        attempt.cancel();
+                    }
+                    // the callbacks of the dispatcher filters wrap this one and have to learn about the failure,
+                    // e.g. to free a slot, the cancelled request never reports back to them
+                    DeadlineExceededException exception = deadlineExceeded();
+                    RequestCallback outermost = builder.getCallback();
+                    if (outermost != null && outermost != DeadlineCallback.this) {
+                        outermost.onError(attempt, exception);
+                    }
+                    // in case a filter did not pass it on
+                    onError(attempt, exception);
+                }
+            };
+            timer.schedule(deadlineMillis);
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            if (!done) {
+                done = true;
+                timer.cancel();
+                callback.onResponseReceived(request, response);
+            }
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            if (!done) {
+                done = true;
+                timer.cancel();
+                callback.onError(request, exception);
+            }
+        }
+    }
 }
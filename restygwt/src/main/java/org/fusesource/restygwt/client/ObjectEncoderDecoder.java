@@ -37,7 +37,11 @@ public class ObjectEncoderDecoder extends AbstractJsonEncoderDecoder<Object> {
 
     @Override
     public JSONValue encode(Object value) throws JsonEncoderDecoder.EncodingException {
-        if (value instanceof Number) {
+        if (value instanceof JsonMapView) {
+            return ((JsonMapView) value).getJSONObject();
+        } else if (value instanceof JsonListView) {
+            return ((JsonListView) value).getJSONArray();
+        } else if (value instanceof Number) {
             return new JSONNumber(((Number) value).doubleValue());
         } else if (value instanceof Boolean) {
             return JSONBoolean.getInstance((Boolean) value);
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Like {@link ObjectEncoderDecoder}, but JSON objects and arrays are decoded into read-only {@link JsonMapView}s
+ * and {@link JsonListView}s which wrap the parsed JSON instead of copying it into new collections. Use it for
+ * untyped "property bag" values where only a few entries are read.
+ * <p>
+ * Encoding a view hands back the JSON value it wraps.
+ */
+public class ObjectViewEncoderDecoder extends ObjectEncoderDecoder {
+
+    public static final ObjectViewEncoderDecoder INSTANCE = new ObjectViewEncoderDecoder();
+
+    @Override
+    public Object decode(JSONValue value) throws JsonEncoderDecoder.DecodingException {
+        if (value instanceof JSONArray) {
+            return new JsonListView((JSONArray) value);
+        } else if (value instanceof JSONObject) {
+            return new JsonMapView((JSONObject) value);
+        }
+        return super.decode(value);
+    }
+
+    public static Map<String, Object> toMapView(JSONValue value) throws JsonEncoderDecoder.DecodingException {
+        if (value == null || value.isNull() != null) {
+            return null;
+        }
+        JSONObject object = value.isObject();
+        if (object == null) {
+            throw new JsonEncoderDecoder.DecodingException("Expected a json object, but was given: " + value);
+        }
+        return new JsonMapView(object);
+    }
+
+    public static List<Object> toListView(JSONValue value) throws JsonEncoderDecoder.DecodingException {
+        if (value == null || value.isNull() != null) {
+            return null;
+        }
+        return new JsonListView(asArray(value));
+    }
+}
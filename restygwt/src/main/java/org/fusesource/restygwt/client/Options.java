@@ -26,6 +26,9 @@ import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
+import org.fusesource.restygwt.client.callback.RetryPolicy;
+import org.fusesource.restygwt.client.callback.RetryingCallbackFactory;
+
 @Documented
 @Retention(RUNTIME)
 @Target({ METHOD, TYPE })
@@ -47,6 +50,19 @@ public @interface Options {
      */
     long timeout() default -1;
 
+    /**
+     * Sets the number of milliseconds the whole call may take, including the time waiting in dispatcher queues, all
+     * retries and the delays between them. The callback fails with a {@link DeadlineExceededException} when it
+     * passes. -1, the default, sets no deadline.
+     */
+    long deadline() default -1;
+
+    /**
+     * Sets the policy used to retry failed requests, it needs a public static final INSTANCE field like the
+     * dispatcher. Only applies if the dispatcher creates its callbacks with a {@link RetryingCallbackFactory}.
+     */
+    Class<? extends RetryPolicy> retryPolicy() default RetryPolicy.class;
+
     /**
      * Sets the key of the service root entry set with the {@link ServiceRoots#add(String, String)} method.
      * If not used the default service root value set with {@link Defaults#setServiceRoot(String)} will be used.
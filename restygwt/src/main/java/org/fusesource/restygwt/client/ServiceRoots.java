@@ -1,6 +1,10 @@
 package org.fusesource.restygwt.client;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -8,19 +12,109 @@ import java.util.Map;
  * root urls have to be used in one project. The set values can override defaults with the use
  * of the {@link Options#serviceRootKey()} annotation property when annotating the service
  * interface.
+ * <p>
+ * A key may also map to several equivalent endpoints, e.g. regional hosts of the same api. The generated proxies
+ * of such a key resolve their resource for every call and the {@link Balancer} set with
+ * {@link #setBalancer(Balancer)} picks the endpoint, otherwise the first one is used.
  */
 public class ServiceRoots {
-    private static Map<String, String> serviceRoots = new HashMap<String, String>();
+
+    /**
+     * Picks one of the endpoints of a service root key, e.g. the
+     * {@link org.fusesource.restygwt.client.dispatcher.LoadBalancingDispatcherFilter}.
+     */
+    public interface Balancer {
+
+        /**
+         * @param endpoints the urls of the key, at least two
+         * @return the url to send the next call to
+         */
+        String choose(String key, List<String> endpoints);
+    }
+
+    private static Map<String, List<String>> serviceRoots = new HashMap<String, List<String>>();
+
+    private static Balancer balancer;
 
     public static void add(String key, String url) {
-        if (url != null && !url.endsWith("/")) {
-            url += "/";
-        }
+        addEndpoints(key, url);
+    }
 
-        serviceRoots.put(key, url);
+    /**
+     * maps the key to several endpoints which serve the same api
+     */
+    public static void addEndpoints(String key, String... urls) {
+        List<String> endpoints = new ArrayList<String>();
+        for (String url : urls) {
+            if (url != null && !url.endsWith("/")) {
+                url += "/";
+            }
+            endpoints.add(url);
+        }
+        serviceRoots.put(key, Collections.unmodifiableList(endpoints));
     }
 
+    /**
+     * @return the url of the key, picked by the {@link Balancer} if the key has several endpoints
+     */
     public static String get(String key) {
-        return serviceRoots.get(key);
+        List<String> endpoints = serviceRoots.get(key);
+        if (endpoints == null) {
+            return null;
+        }
+        if (endpoints.size() > 1 && balancer != null) {
+            return balancer.choose(key, endpoints);
+        }
+        return endpoints.get(0);
+    }
+
+    /**
+     * @return the urls of the key, an empty list for an unknown key
+     */
+    public static List<String> getEndpoints(String key) {
+        List<String> endpoints = serviceRoots.get(key);
+        return endpoints == null ? Collections.<String>emptyList() : endpoints;
+    }
+
+    /**
+     * @return whether the key has several endpoints, so every call has to get its url with {@link #get(String)}
+     */
+    public static boolean isBalanced(String key) {
+        return getEndpoints(key).size() > 1;
+    }
+
+    public static void setBalancer(Balancer balancer) {
+        ServiceRoots.balancer = balancer;
+    }
+
+    /**
+     * @return all service root urls which were added
+     */
+    public static Collection<String> getAll() {
+        List<String> all = new ArrayList<String>();
+        for (List<String> endpoints : serviceRoots.values()) {
+            all.addAll(endpoints);
+        }
+        return Collections.unmodifiableCollection(all);
+    }
+
+    /**
+     * @return the longest of the added service roots and {@link Defaults#getServiceRoot()} the url starts with or
+     *         null if it starts with none of them
+     */
+    public static String find(String url) {
+        String root = Defaults.getServiceRoot();
+        if (root != null && !url.startsWith(root)) {
+            root = null;
+        }
+        for (List<String> endpoints : serviceRoots.values()) {
+            for (String candidate : endpoints) {
+                if (candidate != null && url.startsWith(candidate) &&
+                    (root == null || candidate.length() > root.length())) {
+                    root = candidate;
+                }
+            }
+        }
+        return root;
     }
 }
\ No newline at end of file
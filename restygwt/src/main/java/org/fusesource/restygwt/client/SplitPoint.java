@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Puts the generated implementation of the annotated {@link RestService} behind a {@code GWT.runAsync} split point.
+ * The proxy returned by {@code GWT.create} only holds the resource and the dispatcher, the code of the service
+ * methods together with the json encoder/decoders of their parameters and results is loaded with the first call.
+ * Each annotated service gets its own fragment.
+ * <p>
+ * All methods of the service must return void. If the fragment can not be loaded the
+ * {@link MethodCallback#onFailure(Method, Throwable)} of the call gets invoked with a null method.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface SplitPoint {
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.callback;
+
+import com.google.gwt.http.client.Response;
+
+import java.util.Date;
+
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Retries idempotent requests with exponentially growing delays, capped at a maximum delay. These are GET and HEAD
+ * requests and the ones of {@link org.fusesource.restygwt.client.Idempotent} methods.
+ * <p>
+ * Without jitter all clients hit by the same outage come back at the same time, so by default the delay is picked
+ * at random between zero and the exponential delay ({@link Jitter#FULL}). {@link Jitter#DECORRELATED} picks it
+ * between the base delay and three times the previous delay instead.
+ * <p>
+ * A {@code Retry-After} header of the failed response, in seconds or as a http date, replaces the computed delay.
+ * If it asks for more than the maximum delay the request is not retried.
+ */
+public class BackoffRetryPolicy implements RetryPolicy {
+
+    public enum Jitter {
+        NONE, FULL, DECORRELATED
+    }
+
+    public static final String RETRY_AFTER = "Retry-After";
+
+    /**
+     * 5 retries starting at one second with full jitter and at most 30 seconds between them, for the status codes
+     * of {@link StatusCodeRetryClassifier#INSTANCE} and the exceptions of {@link ExceptionRetryClassifier#INSTANCE}
+     */
+    public static final BackoffRetryPolicy INSTANCE = new BackoffRetryPolicy(5, 1000, 30000, Jitter.FULL,
+        StatusCodeRetryClassifier.INSTANCE, ExceptionRetryClassifier.INSTANCE);
+
+    private final int maxRetries;
+    private final int baseDelay;
+    private final int maxDelay;
+    private final Jitter jitter;
+    private final RetryClassifier[] classifiers;
+
+    public BackoffRetryPolicy(int maxRetries, int baseDelayMillis, int maxDelayMillis, Jitter jitter,
+                              RetryClassifier... classifiers) {
+        this.maxRetries = maxRetries;
+        baseDelay = baseDelayMillis;
+        maxDelay = maxDelayMillis;
+        this.jitter = jitter;
+        this.classifiers = classifiers;
+    }
+
+    @Override
+    public int getRetryDelay(Method method, int retries, int previousDelay, Response response, Throwable exception) {
+        if (retries >= maxRetries || !isRetryableMethod(method) || !isRetryable(method, response, exception)) {
+            return NO_RETRY;
+        }
+        long retryAfter = response == null ? -1 : getRetryAfter(response.getHeader(RETRY_AFTER), now());
+        if (retryAfter >= 0) {
+            return retryAfter > maxDelay ? NO_RETRY : (int) retryAfter;
+        }
+        return getBackoffDelay(retries, previousDelay);
+    }
+
+    /**
+     * only methods which can be sent twice without harm get retried
+     */
+    protected boolean isRetryableMethod(Method method) {
+        return method.isIdempotent();
+    }
+
+    protected boolean isRetryable(Method method, Response response, Throwable exception) {
+        for (RetryClassifier classifier : classifiers) {
+            if (classifier.isRetryable(method, response, exception)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getBackoffDelay(int retries, int previousDelay) {
+        switch (jitter) {
+            case FULL:
+                return (int) (random() * getExponentialDelay(retries));
+            case DECORRELATED:
+                double previous = Math.max(previousDelay, baseDelay);
+                return (int) Math.min(maxDelay, baseDelay + random() * (previous * 3 - baseDelay));
+            default:
+                return getExponentialDelay(retries);
+        }
+    }
+
+    private int getExponentialDelay(int retries) {
+        return (int) Math.min(maxDelay, baseDelay * Math.pow(2, retries));
+    }
+
+    /**
+     * @return a random number between 0 inclusive and 1 exclusive
+     */
+    protected double random() {
+        return Math.random();
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @return the delay in milliseconds the {@code Retry-After} header asks for or -1 if there is no valid one
+     */
+    @SuppressWarnings("deprecation")
+    public static long getRetryAfter(String value, long now) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        value = value.trim();
+        if (value.charAt(0) >= '0' && value.charAt(0) <= '9') {
+            try {
+                return Long.parseLong(value) * 1000;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        try {
+            return Math.max(0, Date.parse(value) - now);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.callback;
+
+import com.google.gwt.http.client.RequestTimeoutException;
+import com.google.gwt.http.client.Response;
+
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Retries requests which failed with an exception of one of the given types or their subtypes.
+ */
+public class ExceptionRetryClassifier implements RetryClassifier {
+
+    public static final ExceptionRetryClassifier INSTANCE = new ExceptionRetryClassifier(RequestTimeoutException.class);
+
+    private final Class<?>[] types;
+
+    public ExceptionRetryClassifier(Class<?>... types) {
+        this.types = types;
+    }
+
+    @Override
+    public boolean isRetryable(Method method, Response response, Throwable exception) {
+        if (exception == null) {
+            return false;
+        }
+        // no Class.isAssignableFrom in GWT
+        for (Class<?> type = exception.getClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> retryable : types) {
+                if (type == retryable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
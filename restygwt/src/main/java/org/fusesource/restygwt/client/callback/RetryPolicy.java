@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.callback;
+
+import com.google.gwt.http.client.Response;
+
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.Options;
+
+/**
+ * Decides whether and when a {@link RetryingFilterawareRequestCallback} sends a failed request again.
+ * <p>
+ * The policy of a {@link RetryingCallbackFactory} applies to every request, a service or method can pick another
+ * one with {@link Options#retryPolicy()} and a single request with {@link Method#retryPolicy(RetryPolicy)}.
+ * Implementations are shared between requests, so they must not keep per request state.
+ *
+ * @see BackoffRetryPolicy
+ */
+public interface RetryPolicy {
+
+    /**
+     * returned by {@link #getRetryDelay(Method, int, int, Response, Throwable)} to give up
+     */
+    int NO_RETRY = -1;
+
+    /**
+     * @param method the failed method
+     * @param retries the number of retries done so far
+     * @param previousDelay the delay before the last retry or 0 for the first retry
+     * @param response the response with the failed status or null if the request failed with an exception
+     * @param exception the exception or null if the server answered with a failed status
+     * @return the milliseconds to wait before sending the request again or {@link #NO_RETRY}
+     */
+    int getRetryDelay(Method method, int retries, int previousDelay, Response response, Throwable exception);
+}
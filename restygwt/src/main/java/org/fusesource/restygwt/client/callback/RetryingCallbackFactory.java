@@ -24,19 +24,23 @@ public class RetryingCallbackFactory implements CallbackFactory {
 
     private final CallbackFilter[] callbackFilters;
 
-    private final int gracePeriodMillis;
-    private final int numberOfRetries;
+    private final RetryPolicy retryPolicy;
 
     public RetryingCallbackFactory(int gracePeriodMillis, int numberOfRetries, CallbackFilter... callbackFilters) {
-        this.callbackFilters = callbackFilters;
-        this.gracePeriodMillis = gracePeriodMillis;
-        this.numberOfRetries = numberOfRetries;
+        this(RetryingFilterawareRequestCallback.gracePeriodPolicy(gracePeriodMillis, numberOfRetries),
+            callbackFilters);
     }
 
     public RetryingCallbackFactory(CallbackFilter... callbackFilters) {
+        this(1000, 5, callbackFilters);
+    }
+
+    /**
+     * @param retryPolicy used for all methods which do not have their own {@link Method#getRetryPolicy()}
+     */
+    public RetryingCallbackFactory(RetryPolicy retryPolicy, CallbackFilter... callbackFilters) {
         this.callbackFilters = callbackFilters;
-        gracePeriodMillis = 1000;
-        numberOfRetries = 5;
+        this.retryPolicy = retryPolicy;
     }
 
     /**
@@ -47,8 +51,7 @@ public class RetryingCallbackFactory implements CallbackFactory {
      */
     @Override
     public FilterawareRequestCallback createCallback(Method method) {
-        FilterawareRequestCallback retryingCallback =
-            new RetryingFilterawareRequestCallback(method, gracePeriodMillis, numberOfRetries);
+        FilterawareRequestCallback retryingCallback = new RetryingFilterawareRequestCallback(method, retryPolicy);
 
         for (CallbackFilter filter : callbackFilters) {
             retryingCallback.addFilter(filter);
@@ -20,58 +20,86 @@ package org.fusesource.restygwt.client.callback;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.http.client.Request;
-import com.google.gwt.http.client.RequestCallback;
 import com.google.gwt.http.client.RequestException;
 import com.google.gwt.http.client.Response;
 import com.google.gwt.logging.client.LogConfiguration;
 import com.google.gwt.user.client.Timer;
-import com.google.gwt.user.client.Window;
 
 import java.util.logging.Logger;
 
 import org.fusesource.restygwt.client.FailedStatusCodeException;
 import org.fusesource.restygwt.client.Method;
 
+/**
+ * Sends failed requests again as long as the {@link RetryPolicy} of the method, or the one given to the
+ * constructor, asks for it.
+ */
 public class RetryingFilterawareRequestCallback extends DefaultFilterawareRequestCallback {
 
+    /**
+     * the maximum delay between two retries of the policy built from a grace period and a number of retries
+     */
+    static final int MAX_GRACE_PERIOD = 30000;
+
     /**
      * Used by RetryingCallback
      * default value is 5
+     *
+     * @deprecated only informational, the {@link RetryPolicy} decides how often to retry
      */
+    @Deprecated
     protected int numberOfRetries = 5;
 
     /**
      * time to wait for reconnect upon failure
+     *
+     * @deprecated only informational, the {@link RetryPolicy} decides how long to wait
      */
+    @Deprecated
     protected int gracePeriod = 1000;
 
     protected int currentRetryCounter = 0;
 
+    private final RetryPolicy retryPolicy;
+
+    private int previousDelay;
+
     public RetryingFilterawareRequestCallback(Method method) {
-        super(method);
+        this(method, 1000, 5);
     }
 
     public RetryingFilterawareRequestCallback(Method method, int gracePeriodMillis, int numberOfRetries) {
-        super(method);
+        this(method, gracePeriodPolicy(gracePeriodMillis, numberOfRetries));
         gracePeriod = gracePeriodMillis;
         this.numberOfRetries = numberOfRetries;
     }
 
+    /**
+     * @param retryPolicy used unless the method has its own {@link Method#getRetryPolicy()}
+     */
+    public RetryingFilterawareRequestCallback(Method method, RetryPolicy retryPolicy) {
+        super(method);
+        this.retryPolicy = method.getRetryPolicy() != null ? method.getRetryPolicy() : retryPolicy;
+    }
+
+    /**
+     * @return the policy replacing the former doubling of the grace period, with full jitter and capped. It retries
+     *         the same responses as before, all but redirects and not found, and no exceptions.
+     */
+    static RetryPolicy gracePeriodPolicy(int gracePeriodMillis, int numberOfRetries) {
+        return new BackoffRetryPolicy(numberOfRetries, gracePeriodMillis, MAX_GRACE_PERIOD,
+            BackoffRetryPolicy.Jitter.FULL, StatusCodeRetryClassifier.ALL_BUT_REDIRECTS_AND_NOT_FOUND);
+    }
+
     @Override
     public final void doError(Request request, Response response) {
-        int code = response.getStatusCode();
-        /**
-         * retry only on GET requests that are no redirects (301, 302, 303)
-         */
-        if (code != 301 && code != 302 && code != 303 && code != 404 &&
-            (method.builder == null // jsonp method do not have a builder !!
-                || method.builder.getHTTPMethod().equalsIgnoreCase("get"))) {
-            handleErrorGracefully(request, response, requestCallback);
-        } else {
-            if (LogConfiguration.loggingIsEnabled()) {
+        int delay = retryPolicy.getRetryDelay(method, currentRetryCounter, previousDelay, response, null);
+        if (delay != RetryPolicy.NO_RETRY) {
+            retry(delay);
+        } else if (currentRetryCounter == 0) {
+            if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
                 Logger.getLogger(RetryingFilterawareRequestCallback.class.getName()).severe(
-                    "ERROR with non-GET method: " + method.builder.getHTTPMethod() + " " + method.builder.getUrl() +
-                        ", " + response.getStatusText());
+                    "ERROR not retried: " + getMethodAndUrl() + ", " + response.getStatusText());
             }
 
             /**
@@ -80,57 +108,63 @@ public class RetryingFilterawareRequestCallback extends DefaultFilterawareReques
              */
             requestCallback
                 .onError(request, new FailedStatusCodeException(response.getStatusText(), response.getStatusCode()));
-        }
-    }
-
-    private void handleErrorGracefully(Request request, Response response, RequestCallback requestCallback) {
-        // error handling...:
-        if (currentRetryCounter < numberOfRetries) {
+        } else {
             if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
                 Logger.getLogger(RetryingFilterawareRequestCallback.class.getName()).severe(
-                    "error handling in progress for: " + method.builder.getHTTPMethod() + " " +
-                        method.builder.getUrl());
+                    "Request failed: " + getMethodAndUrl() + " after " + currentRetryCounter + " retries.");
             }
+            requestCallback.onError(request, new FailedStatusCodeException(
+                "Response " + response.getStatusCode() + " for " + getMethodAndUrl() + " after " +
+                    currentRetryCounter + " retries.", response.getStatusCode()));
+        }
+    }
 
-            currentRetryCounter++;
-
-            Timer t = new Timer() {
-                @Override
-                public void run() {
-                    try {
-                        method.builder.send();
-                    } catch (RequestException ex) {
-                        if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
-                            Logger.getLogger(RetryingFilterawareRequestCallback.class.getName())
-                                .severe(ex.getMessage());
-                        }
-                    }
-                }
-            };
-
-            t.schedule(gracePeriod);
-            gracePeriod = gracePeriod * 2;
+    @Override
+    public void onError(Request request, Throwable exception) {
+        int delay = retryPolicy.getRetryDelay(method, currentRetryCounter, previousDelay, null, exception);
+        if (delay != RetryPolicy.NO_RETRY) {
+            retry(delay);
         } else {
-            if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
-                Logger.getLogger(RetryingFilterawareRequestCallback.class.getName()).severe(
-                    "Request failed: " + method.builder.getHTTPMethod() + " " + method.builder.getUrl() + " after " +
-                        currentRetryCounter + " tries.");
-            }
+            super.onError(request, exception);
+        }
+    }
+
+    private void retry(int delay) {
+        if (delay >= method.getRemainingMillis()) {
+            // no time left to wait for another attempt
+            requestCallback.onError(method.getRequest(), method.deadlineExceeded());
+            return;
+        }
+        if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(RetryingFilterawareRequestCallback.class.getName()).fine(
+                "retrying " + getMethodAndUrl() + " in " + delay + "ms");
+        }
+
+        currentRetryCounter++;
+        previousDelay = delay;
 
-            if (null != request && null != response && null != requestCallback) {
-                // got the original callback, call error here
-                requestCallback.onError(request, new RuntimeException(
-                    "Response " + response.getStatusCode() + " for " + method.builder.getHTTPMethod() + " " +
-                        method.builder.getUrl() + " after " + numberOfRetries + " retries."));
-            } else {
-                // got no callback - well, goodbye
-                if (Window.confirm("something severly went wrong - error - reload page ?")) {
-                    // Super severe error.
-                    // reload app or redirect.
-                    // ===> this breaks the app but that's by intention.
-                    Window.Location.reload();
+        Timer t = new Timer() {
+            @Override
+            public void run() {
+                if (!method.applyDeadline()) {
+                    requestCallback.onError(method.getRequest(), method.deadlineExceeded());
+                    return;
+                }
+                try {
+                    method.builder.send();
+                } catch (RequestException ex) {
+                    if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
+                        Logger.getLogger(RetryingFilterawareRequestCallback.class.getName()).severe(ex.getMessage());
+                    }
+                    requestCallback.onError(method.getRequest(), ex);
                 }
             }
-        }
+        };
+        t.schedule(delay);
+    }
+
+    private String getMethodAndUrl() {
+        // jsonp methods do not have a builder
+        return method.builder == null ? "JSONP" : method.builder.getHTTPMethod() + " " + method.builder.getUrl();
     }
 }
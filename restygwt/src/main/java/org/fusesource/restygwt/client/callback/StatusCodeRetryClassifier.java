@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.callback;
+
+import com.google.gwt.http.client.Response;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Retries responses with one of the given status codes, or with any other status code, see {@link #allExcept(int...)}.
+ */
+public class StatusCodeRetryClassifier implements RetryClassifier {
+
+    /**
+     * no response at all, request timeout, too many requests, internal server error, bad gateway,
+     * service unavailable and gateway timeout
+     */
+    public static final StatusCodeRetryClassifier INSTANCE =
+        new StatusCodeRetryClassifier(0, 408, 429, 500, 502, 503, 504);
+
+    /**
+     * every failed response but the redirects and not found, what the retrying callbacks retried before there was a
+     * {@link RetryPolicy}
+     */
+    public static final StatusCodeRetryClassifier ALL_BUT_REDIRECTS_AND_NOT_FOUND = allExcept(301, 302, 303, 404);
+
+    private final Set<Integer> statusCodes = new HashSet<Integer>();
+    private final boolean excluded;
+
+    public StatusCodeRetryClassifier(int... statusCodes) {
+        this(false, statusCodes);
+    }
+
+    private StatusCodeRetryClassifier(boolean excluded, int... statusCodes) {
+        this.excluded = excluded;
+        for (int statusCode : statusCodes) {
+            this.statusCodes.add(statusCode);
+        }
+    }
+
+    /**
+     * @return a classifier retrying responses with any status code but the given ones
+     */
+    public static StatusCodeRetryClassifier allExcept(int... statusCodes) {
+        return new StatusCodeRetryClassifier(true, statusCodes);
+    }
+
+    @Override
+    public boolean isRetryable(Method method, Response response, Throwable exception) {
+        return response != null && statusCodes.contains(response.getStatusCode()) != excluded;
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestTimeoutException;
+import com.google.gwt.http.client.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fusesource.restygwt.client.Defaults;
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Sets the timeout of every request to a multiple of the observed high percentile of the latency of its rest method,
+ * instead of one {@link Defaults#getRequestTimeout()} for quick lookups and heavy reports alike. Hung requests get
+ * detected as fast as the rest method allows, without tuning each call by hand.
+ * <p>
+ * The percentile is estimated per {@link Method#getEndpoint()} with a {@link P2QuantileEstimator}, which starts over
+ * every 1000 samples so it follows a backend getting slower or faster. A request which timed out counts with its
+ * timeout as latency, so the timeout grows again up to its upper bound when a backend got slower than it. Until a
+ * rest method has 20 samples and for methods not created by a generated proxy the timeout stays as it is, so does
+ * an explicit {@code @Options(timeout)}.
+ * <p>
+ * Add the filter after the filters which set the callback, see {@link DefaultFilterawareDispatcher} for the order
+ * of the filters, so it measures the time of the first attempt only:
+ *
+ * <pre>
+ * new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(cf), new AdaptiveTimeoutDispatcherFilter());
+ * </pre>
+ */
+public class AdaptiveTimeoutDispatcherFilter implements DispatcherFilter {
+
+    /**
+     * latency samples a rest method needs before its timeout adapts
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * the samples after which the estimation starts over
+     */
+    static final int WINDOW = 1000;
+
+    private final Map<String, Endpoint> endpoints = new HashMap<String, Endpoint>();
+
+    private final double quantile;
+    private final double multiplier;
+    private final int minTimeout;
+    private final int maxTimeout;
+
+    /**
+     * three times the 99th percentile, at least one second and at most one minute
+     */
+    public AdaptiveTimeoutDispatcherFilter() {
+        this(0.99, 3, 1000, 60000);
+    }
+
+    /**
+     * @param quantile the percentile to observe, between 0 and 1
+     * @param multiplier the timeout in multiples of the percentile
+     * @param minTimeoutMillis the lower bound of the timeout
+     * @param maxTimeoutMillis the upper bound of the timeout
+     */
+    public AdaptiveTimeoutDispatcherFilter(double quantile, double multiplier, int minTimeoutMillis,
+                                           int maxTimeoutMillis) {
+        this.quantile = quantile;
+        this.multiplier = multiplier;
+        minTimeout = minTimeoutMillis;
+        maxTimeout = maxTimeoutMillis;
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        String key = method.getEndpoint();
+        if (key == null) {
+            return true;
+        }
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            endpoints.put(key, endpoint);
+        }
+        if (!method.hasExplicitTimeout()) {
+            int timeout = endpoint.getTimeout();
+            if (timeout > 0) {
+                builder.setTimeoutMillis(timeout);
+            }
+        }
+        builder.setCallback(new LatencyCallback(endpoint, builder.getTimeoutMillis(), builder.getCallback()));
+        return true;
+    }
+
+    /**
+     * @return the adapted timeout of the rest method or 0 as long as it keeps its configured timeout
+     */
+    public int getTimeout(String endpoint) {
+        Endpoint e = endpoints.get(endpoint);
+        return e == null ? 0 : e.getTimeout();
+    }
+
+    /**
+     * @return the observed percentile of the latency of the rest method or {@link Double#NaN} without enough samples
+     */
+    public double getLatency(String endpoint) {
+        Endpoint e = endpoints.get(endpoint);
+        return e == null ? Double.NaN : e.getQuantile();
+    }
+
+    void record(String endpoint, long latency) {
+        Endpoint e = endpoints.get(endpoint);
+        if (e == null) {
+            e = new Endpoint();
+            endpoints.put(endpoint, e);
+        }
+        e.record(latency);
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private class Endpoint {
+
+        private P2QuantileEstimator current = new P2QuantileEstimator(quantile);
+        private P2QuantileEstimator previous;
+
+        void record(long latency) {
+            current.add(latency);
+            if (current.getCount() >= WINDOW) {
+                previous = current;
+                current = new P2QuantileEstimator(quantile);
+            }
+        }
+
+        double getQuantile() {
+            if (current.getCount() >= MIN_SAMPLES) {
+                return current.getQuantile();
+            }
+            return previous == null ? Double.NaN : previous.getQuantile();
+        }
+
+        int getTimeout() {
+            double latency = getQuantile();
+            if (Double.isNaN(latency)) {
+                return 0;
+            }
+            return (int) Math.min(maxTimeout, Math.max(minTimeout, Math.ceil(latency * multiplier)));
+        }
+    }
+
+    private class LatencyCallback implements RequestCallback {
+
+        private final Endpoint endpoint;
+        private final int timeout;
+        private final RequestCallback callback;
+        private final long start = now();
+        private boolean recorded;
+
+        LatencyCallback(Endpoint endpoint, int timeout, RequestCallback callback) {
+            this.endpoint = endpoint;
+            this.timeout = timeout;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            if (!recorded) {
+                recorded = true;
+                endpoint.record(now() - start);
+            }
+            callback.onResponseReceived(request, response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            if (!recorded) {
+                recorded = true;
+                if (exception instanceof RequestTimeoutException && timeout > 0) {
+                    endpoint.record(timeout);
+                }
+            }
+            callback.onError(request, exception);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.cache.Domain;
+
+/**
+ * Gives every {@link Domain} its own number of requests in flight and its own wait queue, so a slow backend of one
+ * domain can not take all connections of the browser and starve the others.
+ * <p>
+ * A request which finds all slots of its domain taken waits in the queue of the domain and gets sent with
+ * {@link DefaultFilterawareDispatcher#sendFiltered(Method, RequestBuilder)} as soon as a request of the domain
+ * completes. With the queue full the
+ * {@link Overflow} decides whether the new request or the longest waiting one fails with a
+ * {@link BulkheadFullException}. Requests of services without a domain are not limited.
+ * <p>
+ * Every domain gets the limits given to the constructor unless it has a share of its own set with
+ * {@link #setLimit(String, int, int)}. Add the filter after the filters which set or wrap the callback, see
+ * {@link DefaultFilterawareDispatcher} for the order of the filters, so queued requests carry their final callback.
+ * Retries do not wait for a slot, the slot of a request is free again once its first attempt completed:
+ *
+ * <pre>
+ * BulkheadDispatcherFilter bulkhead = new BulkheadDispatcherFilter(2, 10, Overflow.REJECT);
+ * bulkhead.setLimit(Order.class.getName(), 4, 50);
+ * new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(cf), bulkhead);
+ * </pre>
+ *
+ * A request which gets cancelled does not report back, its slot is taken back once its timeout passed.
+ */
+public class BulkheadDispatcherFilter implements DispatcherFilter {
+
+    /**
+     * what happens to a request of a domain with all slots taken and a full queue
+     */
+    public enum Overflow {
+        /**
+         * the new request fails
+         */
+        REJECT,
+        /**
+         * the longest waiting request fails and the new one takes its place, for requests which supersede each
+         * other like the ones of a search as you type
+         */
+        DROP_OLDEST
+    }
+
+    private final Map<String, Bulkhead> bulkheads = new HashMap<String, Bulkhead>();
+
+    private final int maxConcurrent;
+    private final int maxQueueLength;
+    private final Overflow overflow;
+
+    /**
+     * two requests in flight and ten waiting per domain, rejecting the requests beyond
+     */
+    public BulkheadDispatcherFilter() {
+        this(2, 10, Overflow.REJECT);
+    }
+
+    /**
+     * @param maxConcurrent the requests in flight per domain without a limit of its own
+     * @param maxQueueLength the requests waiting per domain without a limit of its own, 0 to fail fast
+     * @param overflow what happens to a request beyond the queue
+     */
+    public BulkheadDispatcherFilter(int maxConcurrent, int maxQueueLength, Overflow overflow) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueueLength = maxQueueLength;
+        this.overflow = overflow;
+    }
+
+    /**
+     * @param domain the class name of the domain, e.g. {@code Order.class.getName()}
+     */
+    public void setLimit(String domain, int maxConcurrent, int maxQueueLength) {
+        Bulkhead bulkhead = getBulkhead(domain);
+        bulkhead.maxConcurrent = Math.max(1, maxConcurrent);
+        bulkhead.maxQueueLength = Math.max(0, maxQueueLength);
+        bulkhead.configured = true;
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        String domain = getBulkheadKey(method, builder);
+        if (domain == null) {
+            return true;
+        }
+        Bulkhead bulkhead = getBulkhead(domain);
+        // the queue moves on in case slots got reclaimed
+        drain(bulkhead);
+        long now = now();
+        if (bulkhead.queue.isEmpty() && bulkhead.inFlight.size() < bulkhead.maxConcurrent) {
+            builder.setCallback(new BulkheadCallback(bulkhead, bulkhead.acquire(now, builder), builder.getCallback()));
+            return true;
+        }
+        if (bulkhead.queue.size() >= bulkhead.maxQueueLength) {
+            if (overflow == Overflow.DROP_OLDEST && !bulkhead.queue.isEmpty()) {
+                reject(bulkhead, bulkhead.queue.removeFirst().builder);
+            } else {
+                reject(bulkhead, builder);
+                return false;
+            }
+        }
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).fine(
+                "bulkhead of " + domain + " full, queueing: " + builder.getHTTPMethod() + " " + builder.getUrl());
+        }
+        bulkhead.queue.add(new Queued(method, builder));
+        return false;
+    }
+
+    /**
+     * @return the number of requests of the domain in flight
+     */
+    public int getInFlight(String domain) {
+        Bulkhead bulkhead = bulkheads.get(domain);
+        return bulkhead == null ? 0 : bulkhead.inFlight.size();
+    }
+
+    /**
+     * @return the number of requests of the domain waiting for a slot
+     */
+    public int getQueueLength(String domain) {
+        Bulkhead bulkhead = bulkheads.get(domain);
+        return bulkhead == null ? 0 : bulkhead.queue.size();
+    }
+
+    /**
+     * The requests with the same key share a bulkhead. This is the first domain of the method with a limit of its
+     * own, otherwise its first domain or null if it has none.
+     */
+    protected String getBulkheadKey(Method method, RequestBuilder builder) {
+        String[] domains = RateLimitingDispatcherFilter.getDomains(method);
+        for (String domain : domains) {
+            Bulkhead bulkhead = bulkheads.get(domain);
+            if (bulkhead != null && bulkhead.configured) {
+                return domain;
+            }
+        }
+        return domains.length == 0 ? null : domains[0];
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private Bulkhead getBulkhead(String domain) {
+        Bulkhead bulkhead = bulkheads.get(domain);
+        if (bulkhead == null) {
+            bulkhead = new Bulkhead(domain, maxConcurrent, maxQueueLength);
+            bulkheads.put(domain, bulkhead);
+        }
+        return bulkhead;
+    }
+
+    private void reject(Bulkhead bulkhead, RequestBuilder builder) {
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).info(
+                "bulkhead of " + bulkhead.domain + " full, rejecting: " + builder.getHTTPMethod() + " " +
+                    builder.getUrl());
+        }
+        reject(builder.getCallback(), new BulkheadFullException(bulkhead.domain, bulkhead.maxConcurrent));
+    }
+
+    /**
+     * fails a request the bulkhead has no room for, deferred to keep the async behaviour of the method call
+     */
+    protected void reject(final RequestCallback callback, final BulkheadFullException exception) {
+        Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+            @Override
+            public void execute() {
+                callback.onError(null, exception);
+            }
+        });
+    }
+
+    /**
+     * sends the longest waiting requests of the domain as long as it has free slots
+     */
+    private void drain(Bulkhead bulkhead) {
+        long now = now();
+        bulkhead.reclaim(now);
+        while (!bulkhead.queue.isEmpty() && bulkhead.inFlight.size() < bulkhead.maxConcurrent) {
+            Queued queued = bulkhead.queue.removeFirst();
+            if (!queued.method.applyDeadline()) {
+                // the deadline callback already failed the call, it takes no slot
+                continue;
+            }
+            RequestBuilder builder = queued.builder;
+            builder.setCallback(new BulkheadCallback(bulkhead, bulkhead.acquire(now, builder), builder.getCallback()));
+            DefaultFilterawareDispatcher.sendHeldBack(queued.method, builder);
+        }
+    }
+
+    private static class Bulkhead {
+
+        private final String domain;
+        private final LinkedList<Slot> inFlight = new LinkedList<Slot>();
+        private final LinkedList<Queued> queue = new LinkedList<Queued>();
+        private int maxConcurrent;
+        private int maxQueueLength;
+        private boolean configured;
+
+        Bulkhead(String domain, int maxConcurrent, int maxQueueLength) {
+            this.domain = domain;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.maxQueueLength = Math.max(0, maxQueueLength);
+        }
+
+        Slot acquire(long now, RequestBuilder builder) {
+            Slot slot = new Slot(builder.getTimeoutMillis() > 0 ? now + builder.getTimeoutMillis() : Long.MAX_VALUE);
+            inFlight.add(slot);
+            return slot;
+        }
+
+        /**
+         * takes back the slots of requests which outlived their timeout, they got cancelled
+         */
+        void reclaim(long now) {
+            for (Iterator<Slot> it = inFlight.iterator(); it.hasNext(); ) {
+                if (it.next().expiresAt < now) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class Slot {
+
+        private final long expiresAt;
+
+        Slot(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Queued {
+
+        private final Method method;
+        private final RequestBuilder builder;
+
+        Queued(Method method, RequestBuilder builder) {
+            this.method = method;
+            this.builder = builder;
+        }
+    }
+
+    private class BulkheadCallback implements RequestCallback {
+
+        private final Bulkhead bulkhead;
+        private final Slot slot;
+        private final RequestCallback callback;
+        private boolean released;
+
+        BulkheadCallback(Bulkhead bulkhead, Slot slot, RequestCallback callback) {
+            this.bulkhead = bulkhead;
+            this.slot = slot;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            release();
+            callback.onResponseReceived(request, response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            release();
+            callback.onError(request, exception);
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                bulkhead.inFlight.remove(slot);
+                drain(bulkhead);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+/**
+ * Passed to the callback of a request which the {@link BulkheadDispatcherFilter} rejected without sending it,
+ * because its domain had no request slot and no room in its queue left.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 4473719623350178122L;
+
+    private final String domain;
+    private final int maxConcurrent;
+
+    public BulkheadFullException(String domain, int maxConcurrent) {
+        super("bulkhead of " + domain + " is full with " + maxConcurrent + " requests");
+        this.domain = domain;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
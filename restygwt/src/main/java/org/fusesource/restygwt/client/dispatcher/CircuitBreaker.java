@@ -0,0 +1,245 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.dispatcher;
+
+/**
+ * The state of one circuit of a {@link CircuitBreakerDispatcherFilter}.
+ * <p>
+ * While {@link State#CLOSED} the outcome and latency of every call is recorded in a rolling window. Calls slower
+ * than the slow call threshold count as failures. Once the window holds at least the minimum number of calls and
+ * the failure rate reaches the threshold, the circuit opens and rejects all calls. After the open period it lets
+ * a limited number of probe calls through ({@link State#HALF_OPEN}): if all of them succeed it closes again,
+ * the first failing one opens it for another period. A probe which does not report back within its timeout, e.g.
+ * because it got cancelled, is forgotten so another one can take its place.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int BUCKETS = 10;
+
+    private final String key;
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final int minimumCalls;
+    private final long bucketMillis;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    private final long[] bucketStarts = new long[BUCKETS];
+    private final int[] calls = new int[BUCKETS];
+    private final int[] failures = new int[BUCKETS];
+    private final long[] latencies = new long[BUCKETS];
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesSent;
+    private int probesSucceeded;
+    /**
+     * the time all probes in flight outlived their timeout
+     */
+    private long probesExpireAt;
+
+    /**
+     * @param key the service root or whatever else the calls of this circuit have in common
+     * @param failureRateThreshold the failure rate between 0 and 1 which opens the circuit
+     * @param slowCallMillis calls taking longer count as failures, 0 to ignore the latency
+     * @param minimumCalls the number of calls in the window needed before the circuit can open
+     * @param windowMillis the length of the rolling window
+     * @param openMillis how long the circuit stays open before letting probes through
+     * @param halfOpenProbes the number of successful probes which close the circuit again
+     */
+    public CircuitBreaker(String key, double failureRateThreshold, long slowCallMillis, int minimumCalls,
+                          long windowMillis, long openMillis, int halfOpenProbes) {
+        this.key = key;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.minimumCalls = minimumCalls;
+        bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketStarts[i] = Long.MIN_VALUE;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return whether a call may be sent now, counting it as a probe without a timeout when half open
+     */
+    public boolean allowRequest(long now) {
+        return allowRequest(now, 0);
+    }
+
+    /**
+     * @param timeoutMillis the timeout of the call, 0 for none
+     * @return whether a call may be sent now, counting it as a probe when half open
+     */
+    public boolean allowRequest(long now, int timeoutMillis) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openMillis) {
+                return false;
+            }
+            probesSent = 0;
+            probesSucceeded = 0;
+            probesExpireAt = 0;
+            setState(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesSent >= halfOpenProbes && now >= probesExpireAt) {
+                // the probes which did not report back got cancelled
+                probesSent = probesSucceeded;
+            }
+            if (probesSent >= halfOpenProbes) {
+                return false;
+            }
+            probesSent++;
+            probesExpireAt = Math.max(probesExpireAt, timeoutMillis > 0 ? now + timeoutMillis : Long.MAX_VALUE);
+        }
+        return true;
+    }
+
+    /**
+     * @return the milliseconds until the circuit lets probes through or 0 if it is not open
+     */
+    public long getRemainingOpenMillis(long now) {
+        return state == State.OPEN ? Math.max(0, openedAt + openMillis - now) : 0;
+    }
+
+    /**
+     * Records the outcome of a call which was allowed by {@link #allowRequest(long)}.
+     *
+     * @param now the time the call finished
+     * @param latency the milliseconds the call took
+     * @param failed whether the call failed, slow calls count as failed in any case
+     */
+    public void record(long now, long latency, boolean failed) {
+        failed |= slowCallMillis > 0 && latency > slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open(now);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                reset();
+                setState(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // a call sent before the circuit opened
+            return;
+        }
+
+        int bucket = bucket(now);
+        calls[bucket]++;
+        latencies[bucket] += latency;
+        if (failed) {
+            failures[bucket]++;
+        }
+        int total = sum(calls, now);
+        if (total >= minimumCalls && sum(failures, now) >= failureRateThreshold * total) {
+            open(now);
+        }
+    }
+
+    /**
+     * @return the failure rate of the calls in the window or 0 if there are none
+     */
+    public double getFailureRate(long now) {
+        int total = sum(calls, now);
+        return total == 0 ? 0 : (double) sum(failures, now) / total;
+    }
+
+    /**
+     * @return the average latency of the calls in the window or 0 if there are none
+     */
+    public long getAverageLatency(long now) {
+        int total = sum(calls, now);
+        if (total == 0) {
+            return 0;
+        }
+        long latency = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (isCurrent(i, now)) {
+                latency += latencies[i];
+            }
+        }
+        return latency / total;
+    }
+
+    /**
+     * Called whenever the state changes.
+     */
+    protected void onStateChange(State from, State to) {
+    }
+
+    private void open(long now) {
+        openedAt = now;
+        reset();
+        setState(State.OPEN);
+    }
+
+    private void setState(State state) {
+        State from = this.state;
+        this.state = state;
+        if (from != state) {
+            onStateChange(from, state);
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketStarts[i] = Long.MIN_VALUE;
+        }
+    }
+
+    private int bucket(long now) {
+        long start = now - now % bucketMillis;
+        int index = (int) (now / bucketMillis % BUCKETS);
+        if (bucketStarts[index] != start) {
+            bucketStarts[index] = start;
+            calls[index] = 0;
+            failures[index] = 0;
+            latencies[index] = 0;
+        }
+        return index;
+    }
+
+    private boolean isCurrent(int bucket, long now) {
+        return bucketStarts[bucket] != Long.MIN_VALUE && now - bucketStarts[bucket] < bucketMillis * BUCKETS;
+    }
+
+    private int sum(int[] values, long now) {
+        int sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (isCurrent(i, now)) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+import com.google.web.bindery.event.shared.EventBus;
+import com.google.web.bindery.event.shared.HandlerRegistration;
+import com.google.web.bindery.event.shared.SimpleEventBus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Defaults;
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.ServiceRoots;
+import org.fusesource.restygwt.client.dispatcher.CircuitBreaker.State;
+
+/**
+ * Fails requests fast with a {@link CircuitBreakerOpenException} while their service root keeps failing, instead
+ * of letting each of them wait for its timeout. See {@link CircuitBreaker} for when a circuit opens and closes.
+ * <p>
+ * Responses with a status of 0 or 5xx and requests failing with an exception count as failures. Add the filter
+ * first to the {@link DefaultFilterawareDispatcher}, before the filters which set the callback, e.g. the
+ * {@link CachingDispatcherFilter}, so it sees the final outcome of a request after all retries, see
+ * {@link DefaultFilterawareDispatcher} for the order of the filters:
+ *
+ * <pre>
+ * new DefaultFilterawareDispatcher(new CircuitBreakerDispatcherFilter(), new CachingDispatcherFilter(cache, cf));
+ * </pre>
+ */
+public class CircuitBreakerDispatcherFilter implements DispatcherFilter {
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<String, CircuitBreaker>();
+
+    private final EventBus eventBus = new SimpleEventBus();
+
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final int minimumCalls;
+    private final long windowMillis;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    /**
+     * opens at a failure rate of 50% of at least 20 calls within 10 seconds for 5 seconds, one probe closes it again
+     */
+    public CircuitBreakerDispatcherFilter() {
+        this(0.5, 0, 20, 10000, 5000, 1);
+    }
+
+    /**
+     * @see CircuitBreaker#CircuitBreaker(String, double, long, int, long, long, int)
+     */
+    public CircuitBreakerDispatcherFilter(double failureRateThreshold, long slowCallMillis, int minimumCalls,
+                                          long windowMillis, long openMillis, int halfOpenProbes) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.minimumCalls = minimumCalls;
+        this.windowMillis = windowMillis;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(getCircuitKey(method, builder));
+        long now = now();
+        if (!circuitBreaker.allowRequest(now, builder.getTimeoutMillis())) {
+            if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).info(
+                    "circuit " + circuitBreaker.getState() + ", rejecting: " + builder.getHTTPMethod() + " " +
+                        builder.getUrl());
+            }
+            final RequestCallback callback = builder.getCallback();
+            final CircuitBreakerOpenException exception =
+                new CircuitBreakerOpenException(circuitBreaker.getKey(), circuitBreaker.getRemainingOpenMillis(now));
+            // keep the async behaviour of the method call
+            Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+                @Override
+                public void execute() {
+                    callback.onError(null, exception);
+                }
+            });
+            return false;
+        }
+        builder.setCallback(new CircuitBreakerCallback(circuitBreaker, now, builder.getCallback()));
+        return true;
+    }
+
+    /**
+     * @return the circuit breaker for the given key, created on first use
+     */
+    public CircuitBreaker getCircuitBreaker(String key) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(key);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(key, failureRateThreshold, slowCallMillis, minimumCalls, windowMillis,
+                openMillis, halfOpenProbes) {
+                @Override
+                protected void onStateChange(State from, State to) {
+                    CircuitBreakerStateEvent event = new CircuitBreakerStateEvent(this, from, to);
+                    if (LogConfiguration.loggingIsEnabled()) {
+                        Logger.getLogger(Dispatcher.class.getName()).info(event.toString());
+                    }
+                    eventBus.fireEvent(event);
+                }
+            };
+            circuitBreakers.put(key, circuitBreaker);
+        }
+        return circuitBreaker;
+    }
+
+    public HandlerRegistration addStateChangeHandler(CircuitBreakerStateEvent.Handler handler) {
+        return eventBus.addHandler(CircuitBreakerStateEvent.TYPE, handler);
+    }
+
+    /**
+     * The requests with the same key share a circuit. This is the longest service root of {@link ServiceRoots} or
+     * {@link Defaults#getServiceRoot()} the url starts with or else the scheme, host and port of the url. Override
+     * it to use a circuit per service, e.g. based on {@link Method#getData()}.
+     */
+    protected String getCircuitKey(Method method, RequestBuilder builder) {
+        String key = ServiceRoots.find(builder.getUrl());
+        return key != null ? key : getOrigin(builder.getUrl());
+    }
+
+    static String getOrigin(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return "";
+        }
+        int path = url.indexOf('/', scheme + 3);
+        return path < 0 ? url + "/" : url.substring(0, path + 1);
+    }
+
+    protected boolean isFailure(Response response) {
+        return response == null || response.getStatusCode() == 0 || response.getStatusCode() >= 500;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private class CircuitBreakerCallback implements RequestCallback {
+
+        private final CircuitBreaker circuitBreaker;
+        private final long start;
+        private final RequestCallback callback;
+
+        CircuitBreakerCallback(CircuitBreaker circuitBreaker, long start, RequestCallback callback) {
+            this.circuitBreaker = circuitBreaker;
+            this.start = start;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            long now = now();
+            circuitBreaker.record(now, now - start, isFailure(response));
+            callback.onResponseReceived(request, response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            long now = now();
+            circuitBreaker.record(now, now - start, true);
+            callback.onError(request, exception);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.dispatcher;
+
+/**
+ * Passed to the callback of a request which the {@link CircuitBreakerDispatcherFilter} rejected without sending
+ * it, because the circuit of its service root is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 2967043813356371466L;
+
+    private final String circuitKey;
+    private final long remainingOpenMillis;
+
+    public CircuitBreakerOpenException(String circuitKey, long remainingOpenMillis) {
+        super("circuit of " + circuitKey + " is open");
+        this.circuitKey = circuitKey;
+        this.remainingOpenMillis = remainingOpenMillis;
+    }
+
+    public String getCircuitKey() {
+        return circuitKey;
+    }
+
+    /**
+     * @return the milliseconds until the circuit lets requests through again, 0 if only the probes were taken
+     */
+    public long getRemainingOpenMillis() {
+        return remainingOpenMillis;
+    }
+}
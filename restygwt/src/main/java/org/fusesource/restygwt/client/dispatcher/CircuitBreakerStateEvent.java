@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.web.bindery.event.shared.Event;
+
+import org.fusesource.restygwt.client.dispatcher.CircuitBreaker.State;
+
+/**
+ * Fired by the {@link CircuitBreakerDispatcherFilter} when a circuit opens, goes half open or closes again.
+ */
+public class CircuitBreakerStateEvent extends Event<CircuitBreakerStateEvent.Handler> {
+
+    public interface Handler {
+        void onStateChange(CircuitBreakerStateEvent event);
+    }
+
+    public static final Type<Handler> TYPE = new Type<Handler>();
+
+    private final CircuitBreaker circuitBreaker;
+    private final State from;
+    private final State to;
+
+    public CircuitBreakerStateEvent(CircuitBreaker circuitBreaker, State from, State to) {
+        this.circuitBreaker = circuitBreaker;
+        this.from = from;
+        this.to = to;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public State getFrom() {
+        return from;
+    }
+
+    public State getTo() {
+        return to;
+    }
+
+    @Override
+    public Type<Handler> getAssociatedType() {
+        return TYPE;
+    }
+
+    @Override
+    protected void dispatch(Handler handler) {
+        handler.onStateChange(this);
+    }
+
+    @Override
+    public String toString() {
+        return "circuit of " + circuitBreaker.getKey() + ": " + from + " -> " + to;
+    }
+}
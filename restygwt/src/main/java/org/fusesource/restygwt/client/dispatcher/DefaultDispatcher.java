@@ -48,6 +48,10 @@ public class DefaultDispatcher implements Dispatcher {
 
     @Override
     public Request send(Method method, RequestBuilder builder) throws RequestException {
+        if (!method.applyDeadline()) {
+            // the deadline callback of the method fails the call
+            return null;
+        }
         if (GWT.isClient() && LogConfiguration.loggingIsEnabled()) {
             Logger logger = Logger.getLogger(DefaultDispatcher.class.getName());
             logger.fine("Sending http request: " + builder.getHTTPMethod() + " " + builder.getUrl() + " ,timeout:" +
@@ -28,6 +28,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
+import org.fusesource.restygwt.client.Defaults;
+import org.fusesource.restygwt.client.Dispatcher;
 import org.fusesource.restygwt.client.Method;
 
 /**
@@ -38,6 +40,26 @@ import org.fusesource.restygwt.client.Method;
  *
  * Especially: - Waiting if a particular request is already on the way
  * (otherwise you end up having many requests on the same source.
+ * <p>
+ * The filters run in the order they were added. Add them in this order, so every filter sees what it needs:
+ * <ol>
+ * <li>the {@link CircuitBreakerDispatcherFilter}, so it sees the final outcome of a request after all retries,</li>
+ * <li>the filters which set the callback, e.g. the {@link CachingDispatcherFilter} or the
+ * {@link DefaultDispatcherFilter},</li>
+ * <li>the filters which wrap the callback to watch every attempt, i.e. the {@link LoadBalancingDispatcherFilter} and
+ * the {@link AdaptiveTimeoutDispatcherFilter},</li>
+ * <li>the filters which hold requests back, i.e. the {@link BulkheadDispatcherFilter}, the
+ * {@link RateLimitingDispatcherFilter} and the {@link OfflineQueueDispatcherFilter}, so the requests they hold carry
+ * the headers and the callbacks of all other filters.</li>
+ * </ol>
+ * The first {@link SendingDispatcherFilter}, e.g. the {@link HedgingDispatcherFilter}, sends the requests which
+ * passed all filters, its position does not matter. Requests held back by a filter take the same way once they may
+ * go, see {@link #sendFiltered(Method, RequestBuilder)}:
+ *
+ * <pre>
+ * new DefaultFilterawareDispatcher(new CircuitBreakerDispatcherFilter(), new CachingDispatcherFilter(cache, cf),
+ *     new AdaptiveTimeoutDispatcherFilter(), new BulkheadDispatcherFilter(), new HedgingDispatcherFilter());
+ * </pre>
  *
  * @author <a href="mailto:mail@raphaelbauer.com">rEyez</a>
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
@@ -87,10 +109,45 @@ public class DefaultFilterawareDispatcher implements FilterawareDispatcher {
                 return null;
             }
         }
+        return sendFiltered(method, builder);
+    }
 
+    /**
+     * sends a request which passed all filters: not at all once the deadline of the method passed, otherwise with the
+     * first {@link SendingDispatcherFilter} or else with {@link RequestBuilder#send()}
+     *
+     * @return the request or null if the deadline passed, the deadline callback fails the call then
+     */
+    public Request sendFiltered(Method method, RequestBuilder builder) throws RequestException {
+        if (!method.applyDeadline()) {
+            // the deadline passed while the filters held the request back, the deadline callback fails the call
+            return null;
+        }
+        for (DispatcherFilter f : dispatcherFilters) {
+            if (f instanceof SendingDispatcherFilter) {
+                return ((SendingDispatcherFilter) f).send(method, builder);
+            }
+        }
         return builder.send();
     }
 
+    /**
+     * sends a request a filter held back once it may go, the same way as the dispatcher of the method sends the
+     * requests which passed all filters. Failing to send it fails the callback of the builder.
+     */
+    static void sendHeldBack(Method method, RequestBuilder builder) {
+        Dispatcher dispatcher = method.getDispatcher() == null ? Defaults.getDispatcher() : method.getDispatcher();
+        try {
+            if (dispatcher instanceof DefaultFilterawareDispatcher) {
+                ((DefaultFilterawareDispatcher) dispatcher).sendFiltered(method, builder);
+            } else if (method.applyDeadline()) {
+                builder.send();
+            }
+        } catch (RequestException e) {
+            builder.getCallback().onError(null, e);
+        }
+    }
+
     /**
      * well, add one more dispatcherfilter
      */
@@ -0,0 +1,335 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+import com.google.gwt.user.client.Timer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Cuts the tail latency of GET requests: when a request got no response after a delay, the same request is sent a
+ * second time, the first response goes to the callback and the other request gets cancelled.
+ * <p>
+ * The delay is the observed 95th percentile of the latency of the endpoint, once there are enough samples, and the
+ * configured delay before. Every GET adds the budget percentage to a small pool of hedges, so the extra load stays
+ * below that share of the traffic, also when a backend gets slow for everybody.
+ * <p>
+ * Only GET and HEAD requests get hedged. The filter sends them itself, so it works with the
+ * {@link DefaultFilterawareDispatcher} only; its position in the chain does not matter. Requests held back by the
+ * {@link BulkheadDispatcherFilter} or the {@link RateLimitingDispatcherFilter} get hedged as well once they are sent:
+ *
+ * <pre>
+ * new DefaultFilterawareDispatcher(new CachingDispatcherFilter(cache, cf), new HedgingDispatcherFilter());
+ * </pre>
+ */
+public class HedgingDispatcherFilter implements SendingDispatcherFilter {
+
+    /**
+     * latency samples an endpoint needs before its percentile replaces the configured delay
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * the most hedges which can be saved up during quiet periods
+     */
+    static final int MAX_HEDGES = 10;
+
+    private static final double QUANTILE = 0.95;
+
+    private final Map<String, P2QuantileEstimator> latencies = new HashMap<String, P2QuantileEstimator>();
+
+    private final int delayMillis;
+    private final int budgetPercent;
+    private final boolean trackLatency;
+
+    /**
+     * the saved up hedges in percent of a request
+     */
+    private int credit;
+    private int requestCount;
+    private int hedgeCount;
+
+    /**
+     * hedges after the 95th percentile of the endpoint or 500ms, for at most 5% of the requests
+     */
+    public HedgingDispatcherFilter() {
+        this(500, 5, true);
+    }
+
+    /**
+     * @param delayMillis the delay before the second request, until an endpoint has enough latency samples
+     * @param budgetPercent the most extra requests in percent of the GET requests
+     * @param trackLatency false to always use the given delay
+     */
+    public HedgingDispatcherFilter(int delayMillis, int budgetPercent, boolean trackLatency) {
+        this.delayMillis = delayMillis;
+        this.budgetPercent = budgetPercent;
+        this.trackLatency = trackLatency;
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        return true;
+    }
+
+    @Override
+    public Request send(Method method, RequestBuilder builder) throws RequestException {
+        if (!isHedgeable(method, builder)) {
+            return builder.send();
+        }
+        countRequest();
+
+        String key = getEndpointKey(method, builder);
+        HedgedRequest request = new HedgedRequest(key, builder);
+        request.start(getHedgeDelay(key));
+        return request;
+    }
+
+    /**
+     * Only safe requests may be sent twice.
+     */
+    protected boolean isHedgeable(Method method, RequestBuilder builder) {
+        String httpMethod = builder.getHTTPMethod();
+        return "GET".equalsIgnoreCase(httpMethod) || "HEAD".equalsIgnoreCase(httpMethod);
+    }
+
+    /**
+     * The requests with the same key share their latency statistics. This is the {@link Method#getEndpoint()} of
+     * the generated proxies and the url without the query string for other methods.
+     */
+    protected String getEndpointKey(Method method, RequestBuilder builder) {
+        if (method.getEndpoint() != null) {
+            return method.getEndpoint();
+        }
+        String url = builder.getUrl();
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+
+    /**
+     * @return the delay in milliseconds before a request with the given key gets sent a second time
+     */
+    public int getHedgeDelay(String key) {
+        P2QuantileEstimator latency = latencies.get(key);
+        if (latency == null || latency.getCount() < MIN_SAMPLES) {
+            return delayMillis;
+        }
+        return Math.max(1, (int) Math.ceil(latency.getQuantile()));
+    }
+
+    void recordLatency(String key, long latency) {
+        if (!trackLatency) {
+            return;
+        }
+        P2QuantileEstimator estimator = latencies.get(key);
+        if (estimator == null) {
+            estimator = new P2QuantileEstimator(QUANTILE);
+            latencies.put(key, estimator);
+        }
+        estimator.add(latency);
+    }
+
+    /**
+     * adds the budget share of a request to the hedges
+     */
+    void countRequest() {
+        requestCount++;
+        credit = Math.min(MAX_HEDGES * 100, credit + budgetPercent);
+    }
+
+    /**
+     * @return true if the budget allows one more hedge, which is then taken from it
+     */
+    boolean acquireHedge() {
+        if (credit < 100) {
+            return false;
+        }
+        credit -= 100;
+        hedgeCount++;
+        return true;
+    }
+
+    /**
+     * @return the number of GET and HEAD requests sent through this filter
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return the number of second requests sent
+     */
+    public int getHedgeCount() {
+        return hedgeCount;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Schedules the timer which sends the second request of a {@link HedgedRequest}.
+     */
+    protected void schedule(Timer timer, int delayMillis) {
+        timer.schedule(delayMillis);
+    }
+
+    /**
+     * The request handed to the caller, cancelling it cancels all its attempts.
+     */
+    private class HedgedRequest extends Request {
+
+        private final String key;
+        private final RequestBuilder builder;
+        private final RequestCallback callback;
+        private final List<Attempt> attempts = new ArrayList<Attempt>(2);
+        private Timer timer;
+        private boolean done;
+
+        HedgedRequest(String key, RequestBuilder builder) {
+            this.key = key;
+            this.builder = builder;
+            callback = builder.getCallback();
+        }
+
+        void start(int delay) throws RequestException {
+            send();
+            timer = new Timer() {
+                @Override
+                public void run() {
+                    hedge();
+                }
+            };
+            schedule(timer, delay);
+        }
+
+        private void send() throws RequestException {
+            Attempt attempt = new Attempt(now());
+            attempts.add(attempt);
+            // the callback of the builder stays the same for retries which send the builder again
+            attempt.request = builder.sendRequest(builder.getRequestData(), attempt);
+        }
+
+        private void hedge() {
+            if (done || !acquireHedge()) {
+                return;
+            }
+            if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).fine(
+                    "no response after " + (now() - attempts.get(0).start) + "ms, hedging: " +
+                        builder.getHTTPMethod() + " " + builder.getUrl());
+            }
+            try {
+                send();
+            } catch (RequestException e) {
+                if (LogConfiguration.loggingIsEnabled()) {
+                    Logger.getLogger(Dispatcher.class.getName()).fine("hedge failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * @return true if no other attempt is on its way, i.e. the given one has the last word
+         */
+        private boolean isLast(Attempt attempt) {
+            for (Attempt other : attempts) {
+                if (other != attempt && !other.finished) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void finish(Attempt winner) {
+            done = true;
+            if (timer != null) {
+                timer.cancel();
+            }
+            for (Attempt other : attempts) {
+                if (other != winner && !other.finished && other.request != null) {
+                    other.request.cancel();
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!done) {
+                finish(null);
+            }
+        }
+
+        @Override
+        public boolean isPending() {
+            return !done;
+        }
+
+        private class Attempt implements RequestCallback {
+
+            private final long start;
+            private Request request;
+            private boolean finished;
+
+            Attempt(long start) {
+                this.start = start;
+            }
+
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+                finished = true;
+                if (done) {
+                    return;
+                }
+                // a network failure of one attempt leaves the answer to the other one
+                if (response.getStatusCode() == 0 && !isLast(this)) {
+                    return;
+                }
+                finish(this);
+                if (response.getStatusCode() != 0) {
+                    recordLatency(key, now() - start);
+                }
+                callback.onResponseReceived(request, response);
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                finished = true;
+                if (done || !isLast(this)) {
+                    return;
+                }
+                finish(this);
+                callback.onError(request, exception);
+            }
+        }
+    }
+}
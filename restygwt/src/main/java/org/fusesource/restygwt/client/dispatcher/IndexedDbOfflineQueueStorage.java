@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.json.client.JSONNull;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.logging.client.LogConfiguration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the queued requests in an IndexedDB object store, so they survive a reload or a crash of the page. Every
+ * request is a JSON document with its url, http method, headers and body, keyed by its id.
+ * <p>
+ * The database gets opened on construction, operations before it is open wait for it. When the database can not
+ * be opened, e.g. in private browsing, nothing is stored and loading finds no requests.
+ */
+public class IndexedDbOfflineQueueStorage implements OfflineQueueStorage {
+
+    public static final String DEFAULT_DATABASE = "restygwt-offline-queue";
+
+    private final JavaScriptObject database;
+
+    public IndexedDbOfflineQueueStorage() {
+        this(DEFAULT_DATABASE);
+    }
+
+    public IndexedDbOfflineQueueStorage(String databaseName) {
+        database = openDatabase(databaseName);
+    }
+
+    public static native boolean isSupported() /*-{
+        return !!$wnd.indexedDB;
+    }-*/;
+
+    @Override
+    public void load(LoadCallback callback) {
+        loadRecords(database, callback);
+    }
+
+    @Override
+    public void add(QueuedRequest request) {
+        putRecord(database, request.getId(), toJson(request));
+    }
+
+    @Override
+    public void remove(QueuedRequest request) {
+        deleteRecord(database, request.getId());
+    }
+
+    static String toJson(QueuedRequest request) {
+        JSONObject headers = new JSONObject();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            headers.put(header.getKey(), new JSONString(header.getValue()));
+        }
+        JSONObject json = new JSONObject();
+        json.put("id", new JSONNumber(request.getId()));
+        json.put("time", new JSONNumber(request.getTime()));
+        json.put("method", new JSONString(request.getHttpMethod()));
+        json.put("url", new JSONString(request.getUrl()));
+        json.put("headers", headers);
+        json.put("body", request.getBody() == null ? JSONNull.getInstance() : new JSONString(request.getBody()));
+        return json.toString();
+    }
+
+    static QueuedRequest fromJson(String value) {
+        JSONObject json = JSONParser.parseStrict(value).isObject();
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        JSONObject jsonHeaders = json.get("headers").isObject();
+        for (String key : jsonHeaders.keySet()) {
+            headers.put(key, jsonHeaders.get(key).isString().stringValue());
+        }
+        JSONValue body = json.get("body");
+        return new QueuedRequest((long) json.get("id").isNumber().doubleValue(),
+            (long) json.get("time").isNumber().doubleValue(), json.get("method").isString().stringValue(),
+            json.get("url").isString().stringValue(), headers,
+            body.isString() == null ? null : body.isString().stringValue(), null);
+    }
+
+    private static void onLoad(JsArrayString records, LoadCallback callback) {
+        List<QueuedRequest> requests = new ArrayList<QueuedRequest>(records.length());
+        for (int i = 0; i < records.length(); i++) {
+            try {
+                requests.add(fromJson(records.get(i)));
+            } catch (RuntimeException e) {
+                if (LogConfiguration.loggingIsEnabled()) {
+                    Logger.getLogger(IndexedDbOfflineQueueStorage.class.getName())
+                        .warning("dropping unreadable queued request: " + records.get(i));
+                }
+            }
+        }
+        callback.onLoad(requests);
+    }
+
+    private static native JavaScriptObject openDatabase(String name) /*-{
+        var db = null;
+        var failed = false;
+        var pending = [];
+        var database = {
+            run: function(mode, fn) {
+                if (db) {
+                    var transaction;
+                    try {
+                        transaction = db.transaction("requests", mode);
+                    } catch (e) {
+                        fn(null);
+                        return;
+                    }
+                    fn(transaction.objectStore("requests"));
+                } else if (failed) {
+                    fn(null);
+                } else {
+                    pending.push(function() {
+                        database.run(mode, fn);
+                    });
+                }
+            }
+        };
+        var flush = function() {
+            var waiting = pending;
+            pending = [];
+            for (var i = 0; i < waiting.length; i++) {
+                waiting[i]();
+            }
+        };
+        try {
+            var request = $wnd.indexedDB.open(name, 1);
+            request.onupgradeneeded = function() {
+                request.result.createObjectStore("requests", { keyPath: "id" });
+            };
+            request.onsuccess = function() {
+                db = request.result;
+                flush();
+            };
+            request.onerror = function() {
+                failed = true;
+                flush();
+            };
+        } catch (e) {
+            failed = true;
+        }
+        return database;
+    }-*/;
+
+    private static native void putRecord(JavaScriptObject database, double id, String json) /*-{
+        database.run("readwrite", function(store) {
+            if (store) {
+                store.put({ id: id, request: json });
+            }
+        });
+    }-*/;
+
+    private static native void deleteRecord(JavaScriptObject database, double id) /*-{
+        database.run("readwrite", function(store) {
+            if (store) {
+                store["delete"](id);
+            }
+        });
+    }-*/;
+
+    private static native void loadRecords(JavaScriptObject database, LoadCallback callback) /*-{
+        var done = $entry(function(records) {
+            @org.fusesource.restygwt.client.dispatcher.IndexedDbOfflineQueueStorage::onLoad(Lcom/google/gwt/core/client/JsArrayString;Lorg/fusesource/restygwt/client/dispatcher/OfflineQueueStorage$LoadCallback;)(records, callback);
+        });
+        database.run("readonly", function(store) {
+            var records = [];
+            if (!store) {
+                done(records);
+                return;
+            }
+            var cursor = store.openCursor();
+            cursor.onsuccess = function() {
+                if (cursor.result) {
+                    records.push(cursor.result.value.request);
+                    cursor.result["continue"]();
+                } else {
+                    done(records);
+                }
+            };
+            cursor.onerror = function() {
+                done(records);
+            };
+        });
+    }-*/;
+}
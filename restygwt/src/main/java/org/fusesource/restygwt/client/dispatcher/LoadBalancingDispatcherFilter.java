@@ -0,0 +1,323 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.ServiceRoots;
+
+/**
+ * Spreads the calls of a service root key with several endpoints, see
+ * {@link ServiceRoots#addEndpoints(String, String...)}, over these endpoints and keeps track of their health from the
+ * responses.
+ * <p>
+ * The {@link Strategy} picks the endpoint of every call among the healthy ones. An endpoint failing a number of
+ * times in a row, with a status of 0 or 5xx or an exception, gets ejected for a while and receives calls again
+ * afterwards. If all endpoints of a key are ejected the calls go to all of them as if they were healthy.
+ * <p>
+ * The endpoint is picked once per call, when the proxy builds its url. Retries resend the same request, so they go
+ * to the endpoint of the first attempt even if it got ejected in the meantime. A call which gets cancelled does not
+ * report back, it stops counting as in flight once its timeout passed.
+ * <p>
+ * Register the filter as {@link ServiceRoots.Balancer} and add it after the filters which set the callback, see
+ * {@link DefaultFilterawareDispatcher} for the order of the filters, so it sees every attempt:
+ *
+ * <pre>
+ * LoadBalancingDispatcherFilter balancer = new LoadBalancingDispatcherFilter();
+ * ServiceRoots.setBalancer(balancer);
+ * ServiceRoots.addEndpoints("api", "https://eu.example.com/api", "https://us.example.com/api");
+ * new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(cf), balancer);
+ * </pre>
+ */
+public class LoadBalancingDispatcherFilter implements DispatcherFilter, ServiceRoots.Balancer {
+
+    public enum Strategy {
+        /**
+         * one endpoint after the other
+         */
+        ROUND_ROBIN,
+        /**
+         * the endpoint with the fewest calls in flight
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * the better of two random endpoints, by their average latency and calls in flight
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
+    /**
+     * the weight of the latest call in the moving average of the latency
+     */
+    static final double LATENCY_WEIGHT = 0.3;
+
+    private final Map<String, Endpoint> endpoints = new HashMap<String, Endpoint>();
+    private final Map<String, Integer> nextIndex = new HashMap<String, Integer>();
+
+    private final Strategy strategy;
+    private final int maxFailures;
+    private final long ejectMillis;
+
+    /**
+     * the power of two choices, ejecting an endpoint for 30 seconds after 3 failures in a row
+     */
+    public LoadBalancingDispatcherFilter() {
+        this(Strategy.POWER_OF_TWO_CHOICES, 3, 30000);
+    }
+
+    /**
+     * @param maxFailures the failures in a row which eject an endpoint
+     * @param ejectMillis how long an ejected endpoint receives no calls
+     */
+    public LoadBalancingDispatcherFilter(Strategy strategy, int maxFailures, long ejectMillis) {
+        this.strategy = strategy;
+        this.maxFailures = maxFailures;
+        this.ejectMillis = ejectMillis;
+    }
+
+    @Override
+    public String choose(String key, List<String> urls) {
+        long now = now();
+        List<Endpoint> candidates = new ArrayList<Endpoint>();
+        for (String url : urls) {
+            Endpoint endpoint = getEndpoint(url);
+            if (!endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (String url : urls) {
+                candidates.add(getEndpoint(url));
+            }
+        }
+        return pick(key, candidates, now).url;
+    }
+
+    private Endpoint pick(String key, List<Endpoint> candidates, long now) {
+        switch (strategy) {
+            case LEAST_OUTSTANDING:
+                Endpoint least = null;
+                // start with the next one in turn, so equally busy endpoints take turns
+                int start = next(key, candidates.size());
+                for (int i = 0; i < candidates.size(); i++) {
+                    Endpoint candidate = candidates.get((start + i) % candidates.size());
+                    if (least == null || candidate.getOutstanding(now) < least.getOutstanding(now)) {
+                        least = candidate;
+                    }
+                }
+                return least;
+            case POWER_OF_TWO_CHOICES:
+                if (candidates.size() == 1) {
+                    return candidates.get(0);
+                }
+                int first = (int) (random() * candidates.size());
+                int second = (first + 1 + (int) (random() * (candidates.size() - 1))) % candidates.size();
+                Endpoint a = candidates.get(first);
+                Endpoint b = candidates.get(second);
+                return b.getLoad(now) < a.getLoad(now) ? b : a;
+            default:
+                return candidates.get(next(key, candidates.size()));
+        }
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        String root = ServiceRoots.find(builder.getUrl());
+        Endpoint endpoint = root == null ? null : endpoints.get(root);
+        if (endpoint != null) {
+            long now = now();
+            Call call = endpoint.start(now, builder);
+            builder.setCallback(new LoadBalancingCallback(endpoint, call, now, builder.getCallback()));
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the endpoint gets no calls for now
+     */
+    public boolean isEjected(String url) {
+        Endpoint endpoint = endpoints.get(url);
+        return endpoint != null && endpoint.isEjected(now());
+    }
+
+    /**
+     * @return the number of calls to the endpoint in flight
+     */
+    public int getOutstanding(String url) {
+        Endpoint endpoint = endpoints.get(url);
+        return endpoint == null ? 0 : endpoint.getOutstanding(now());
+    }
+
+    protected boolean isFailure(Response response) {
+        return response == null || response.getStatusCode() == 0 || response.getStatusCode() >= 500;
+    }
+
+    /**
+     * @return a random number between 0 inclusive and 1 exclusive
+     */
+    protected double random() {
+        return Math.random();
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private Endpoint getEndpoint(String url) {
+        Endpoint endpoint = endpoints.get(url);
+        if (endpoint == null) {
+            endpoint = new Endpoint(url);
+            endpoints.put(url, endpoint);
+        }
+        return endpoint;
+    }
+
+    private int next(String key, int size) {
+        Integer index = nextIndex.get(key);
+        int next = index == null ? 0 : index % size;
+        nextIndex.put(key, next + 1);
+        return next;
+    }
+
+    private class Endpoint {
+
+        private final String url;
+        private final LinkedList<Call> inFlight = new LinkedList<Call>();
+        private double latency;
+        private int failures;
+        private long ejectedUntil;
+
+        Endpoint(String url) {
+            this.url = url;
+        }
+
+        boolean isEjected(long now) {
+            return now < ejectedUntil;
+        }
+
+        Call start(long now, RequestBuilder builder) {
+            Call call = new Call(builder.getTimeoutMillis() > 0 ? now + builder.getTimeoutMillis() : Long.MAX_VALUE);
+            inFlight.add(call);
+            return call;
+        }
+
+        /**
+         * takes back the calls which outlived their timeout, they got cancelled
+         */
+        int getOutstanding(long now) {
+            for (Iterator<Call> it = inFlight.iterator(); it.hasNext(); ) {
+                if (it.next().expiresAt < now) {
+                    it.remove();
+                }
+            }
+            return inFlight.size();
+        }
+
+        /**
+         * @return the expected wait of another call, an endpoint without calls yet counts as fast
+         */
+        double getLoad(long now) {
+            return (latency + 1) * (getOutstanding(now) + 1);
+        }
+
+        /**
+         * @param latency the milliseconds the call took or -1 to not count it
+         */
+        void record(long now, long latency, boolean failed) {
+            if (!failed) {
+                failures = 0;
+                if (latency >= 0) {
+                    this.latency = this.latency == 0 ? latency :
+                        LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * this.latency;
+                }
+            } else if (++failures >= maxFailures) {
+                failures = 0;
+                ejectedUntil = now + ejectMillis;
+                if (LogConfiguration.loggingIsEnabled()) {
+                    Logger.getLogger(Dispatcher.class.getName()).warning(
+                        "ejecting " + url + " for " + ejectMillis + "ms after " + maxFailures + " failures");
+                }
+            }
+        }
+    }
+
+    private static class Call {
+
+        private final long expiresAt;
+
+        Call(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private class LoadBalancingCallback implements RequestCallback {
+
+        private final Endpoint endpoint;
+        private final Call call;
+        private final long start;
+        private final RequestCallback callback;
+        private boolean completed;
+
+        LoadBalancingCallback(Endpoint endpoint, Call call, long start, RequestCallback callback) {
+            this.endpoint = endpoint;
+            this.call = call;
+            this.start = start;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            complete(isFailure(response));
+            callback.onResponseReceived(request, response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            complete(true);
+            callback.onError(request, exception);
+        }
+
+        /**
+         * retries reuse this callback, they count for the health but neither for the latency nor as calls in flight
+         */
+        private void complete(boolean failed) {
+            long now = now();
+            endpoint.record(now, completed ? -1 : now - start, failed);
+            if (!completed) {
+                completed = true;
+                endpoint.inFlight.remove(call);
+            }
+        }
+    }
+}
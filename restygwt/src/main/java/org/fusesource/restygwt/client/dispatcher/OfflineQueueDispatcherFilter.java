@@ -0,0 +1,476 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+import com.google.gwt.user.client.Timer;
+import com.google.web.bindery.event.shared.EventBus;
+import com.google.web.bindery.event.shared.HandlerRegistration;
+import com.google.web.bindery.event.shared.SimpleEventBus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * Holds back requests which change data, i.e. all but GET and HEAD, while the browser is offline and replays them
+ * in order once it is online again, so edits made offline are not lost.
+ * <p>
+ * The filter goes offline when {@code navigator.onLine} is false. A request failing with status 0 only gets queued
+ * when the browser reports to be offline by then, other failures with status 0, e.g. a refused cross origin request,
+ * reach the callback as usual. Every held request gets written to an {@link OfflineQueueStorage}, by default
+ * IndexedDB, and stays there until the server answered it. The queue is replayed on the {@code online} event of the
+ * window. After a network error {@code navigator.onLine} gets probed as well, with a doubling delay and a limited
+ * number of times, in case the browser misses the event.
+ * <p>
+ * Credential headers, i.e. {@code Authorization}, {@code Cookie} and all headers naming a token, are not written to
+ * the storage unless {@link #setPersistCredentials(boolean)} allows it. Requests of an earlier page are not replayed
+ * on their own: they wait in {@link #getStoredRequests()} until the application confirms them with
+ * {@link #replayStoredRequests()} or drops them with {@link #discardStoredRequests()}. They are replayed without a
+ * callback and, without persisted credentials, without the credential headers; override
+ * {@link #send(QueuedRequest, RequestCallback)} to add the current ones. The original callbacks get the responses
+ * as long as the page lives.
+ * <p>
+ * While the queue is not empty, new requests are queued behind it. Queued requests return no {@link Request} to
+ * the caller. Add the filter after the filters which set or wrap the callback, see {@link DefaultFilterawareDispatcher}
+ * for the order of the filters, so the queued requests carry the headers and the callback of all other filters:
+ *
+ * <pre>
+ * new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(cf), new OfflineQueueDispatcherFilter());
+ * </pre>
+ */
+public class OfflineQueueDispatcherFilter implements DispatcherFilter {
+
+    private final List<QueuedRequest> queue = new ArrayList<QueuedRequest>();
+    private final List<QueuedRequest> stored = new ArrayList<QueuedRequest>();
+
+    private final EventBus eventBus = new SimpleEventBus();
+
+    private final OfflineQueueStorage storage;
+    private final int probeMillis;
+    private final int maxProbes;
+
+    private boolean loading = true;
+    private boolean offline;
+    private boolean replaying;
+    private boolean persistCredentials;
+    private long lastId;
+    private int probes;
+    private Timer probe;
+
+    /**
+     * stores the queue in IndexedDB if the browser supports it and probes 6 times after a network error, first after
+     * 10 seconds
+     */
+    public OfflineQueueDispatcherFilter() {
+        this(IndexedDbOfflineQueueStorage.isSupported() ? new IndexedDbOfflineQueueStorage() :
+            new VolatileOfflineQueueStorage(), 10000, 6);
+    }
+
+    /**
+     * @param probeMillis the delay of the first probe after a network error, every further probe waits twice as long
+     * @param maxProbes the number of probes until only the {@code online} event resumes the queue
+     */
+    public OfflineQueueDispatcherFilter(OfflineQueueStorage storage, int probeMillis, int maxProbes) {
+        this.storage = storage;
+        this.probeMillis = probeMillis;
+        this.maxProbes = maxProbes;
+        if (GWT.isClient()) {
+            listenForOnline();
+        }
+        storage.load(new OfflineQueueStorage.LoadCallback() {
+            @Override
+            public void onLoad(List<QueuedRequest> requests) {
+                loaded(requests);
+            }
+        });
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        if (!isQueueable(method, builder)) {
+            return true;
+        }
+        long id = nextId();
+        if (loading || !queue.isEmpty() || !isOnline()) {
+            enqueue(id, method, builder, builder.getCallback());
+            return false;
+        }
+        builder.setCallback(new OfflineCallback(id, method, builder, builder.getCallback()));
+        return true;
+    }
+
+    /**
+     * Only requests which change data get queued, reading from the server fails as usual. So do calls with a
+     * {@link Method#deadline(int)}, they can not wait until the browser is online again.
+     */
+    protected boolean isQueueable(Method method, RequestBuilder builder) {
+        String httpMethod = builder.getHTTPMethod();
+        return !"GET".equalsIgnoreCase(httpMethod) && !"HEAD".equalsIgnoreCase(httpMethod) && !method.hasDeadline();
+    }
+
+    public boolean isOnline() {
+        return !offline && isNavigatorOnline();
+    }
+
+    /**
+     * Credential headers are dropped from the stored requests by default, so they do not outlive the session in the
+     * storage of the browser. Allow it only if the requests of an earlier page can not be replayed otherwise.
+     */
+    public void setPersistCredentials(boolean persistCredentials) {
+        this.persistCredentials = persistCredentials;
+    }
+
+    /**
+     * @return whether the header carries credentials, which are not persisted by default
+     */
+    protected boolean isCredentialHeader(String name) {
+        String lowerCase = name.toLowerCase();
+        return "authorization".equals(lowerCase) || "proxy-authorization".equals(lowerCase)
+            || "cookie".equals(lowerCase) || lowerCase.contains("token");
+    }
+
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * @return the milliseconds the oldest request is waiting, 0 for an empty queue
+     */
+    public long getQueueAge() {
+        return queue.isEmpty() ? 0 : now() - queue.get(0).getTime();
+    }
+
+    public List<QueuedRequest> getQueuedRequests() {
+        return Collections.unmodifiableList(queue);
+    }
+
+    /**
+     * @return the requests an earlier page left in the storage, waiting to be replayed or discarded
+     */
+    public List<QueuedRequest> getStoredRequests() {
+        return Collections.unmodifiableList(stored);
+    }
+
+    /**
+     * queues the requests of an earlier page in their original order
+     */
+    public void replayStoredRequests() {
+        if (stored.isEmpty()) {
+            return;
+        }
+        for (QueuedRequest request : stored) {
+            insert(request);
+        }
+        stored.clear();
+        fireQueueChange();
+        replay();
+    }
+
+    /**
+     * removes the requests of an earlier page from the storage without sending them
+     */
+    public void discardStoredRequests() {
+        if (stored.isEmpty()) {
+            return;
+        }
+        for (QueuedRequest request : stored) {
+            if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).info("discarding " + request + " from an earlier page");
+            }
+            storage.remove(request);
+        }
+        stored.clear();
+        fireQueueChange();
+    }
+
+    public HandlerRegistration addQueueChangeHandler(OfflineQueueEvent.Handler handler) {
+        return eventBus.addHandler(OfflineQueueEvent.TYPE, handler);
+    }
+
+    /**
+     * the ids are ordered across reloads of the page
+     */
+    private long nextId() {
+        lastId = Math.max(lastId + 1, now() * 1000);
+        return lastId;
+    }
+
+    private void enqueue(long id, Method method, RequestBuilder builder, RequestCallback callback) {
+        Map<String, String> headers = method.getHeaders();
+        QueuedRequest request = new QueuedRequest(id, now(), builder.getHTTPMethod(), builder.getUrl(), headers,
+            builder.getRequestData(), callback);
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).info("offline, queueing: " + request);
+        }
+        insert(request);
+        storage.add(persistCredentials ? request : withoutCredentials(request));
+        fireQueueChange();
+        replay();
+    }
+
+    private QueuedRequest withoutCredentials(QueuedRequest request) {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (!isCredentialHeader(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        return new QueuedRequest(request.getId(), request.getTime(), request.getHttpMethod(), request.getUrl(), headers,
+            request.getBody(), null);
+    }
+
+    private void insert(QueuedRequest request) {
+        int index = queue.size();
+        while (index > 0 && queue.get(index - 1).getId() > request.getId()) {
+            index--;
+        }
+        queue.add(index, request);
+    }
+
+    private void loaded(List<QueuedRequest> requests) {
+        loading = false;
+        for (QueuedRequest request : requests) {
+            lastId = Math.max(lastId, request.getId());
+            stored.add(request);
+        }
+        if (!requests.isEmpty()) {
+            fireQueueChange();
+        }
+        replay();
+    }
+
+    /**
+     * tries the queue again when the browser got online
+     */
+    void resume() {
+        probes = 0;
+        if (offline) {
+            offline = false;
+            fireQueueChange();
+        }
+        replay();
+    }
+
+    /**
+     * sends the first request of the queue, the next one follows its response
+     */
+    private void replay() {
+        if (replaying || loading || queue.isEmpty() || !isOnline()) {
+            return;
+        }
+        replaying = true;
+        QueuedRequest request = queue.get(0);
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).info("replaying: " + request);
+        }
+        ReplayCallback callback = new ReplayCallback(request);
+        try {
+            send(request, callback);
+        } catch (RequestException e) {
+            callback.onError(null, e);
+        }
+    }
+
+    protected Request send(QueuedRequest request, RequestCallback callback) throws RequestException {
+        RequestBuilder builder = new ReplayRequestBuilder(request.getHttpMethod(), request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+        return builder.sendRequest(request.getBody(), callback);
+    }
+
+    /**
+     * a status 0 is a network error only if the browser lost its connection, otherwise e.g. a refused cross origin
+     * request
+     */
+    private boolean isNetworkError(Response response) {
+        return response.getStatusCode() == 0 && !isNavigatorOnline();
+    }
+
+    private void goOffline() {
+        if (!offline) {
+            offline = true;
+            fireQueueChange();
+        }
+        if (probes < maxProbes) {
+            scheduleReplay(probeMillis << Math.min(probes, 16));
+            probes++;
+        } else if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).info("stopped probing, waiting for the browser to get online");
+        }
+    }
+
+    /**
+     * resumes the queue if the browser got online without firing the event, probes again later otherwise
+     */
+    void probe() {
+        if (!isNavigatorOnline()) {
+            goOffline();
+            return;
+        }
+        if (offline) {
+            offline = false;
+            fireQueueChange();
+        }
+        replay();
+    }
+
+    protected void scheduleReplay(int delayMillis) {
+        if (probe == null) {
+            probe = new Timer() {
+                @Override
+                public void run() {
+                    probe();
+                }
+            };
+        }
+        probe.schedule(delayMillis);
+    }
+
+    /**
+     * resumes the queue when the browser reports to be online again
+     */
+    private native void listenForOnline() /*-{
+        var self = this;
+        $wnd.addEventListener("online", $entry(function() {
+            self.@org.fusesource.restygwt.client.dispatcher.OfflineQueueDispatcherFilter::resume()();
+        }), false);
+    }-*/;
+
+    protected boolean isNavigatorOnline() {
+        return !GWT.isClient() || navigatorOnLine();
+    }
+
+    private static native boolean navigatorOnLine() /*-{
+        return $wnd.navigator.onLine !== false;
+    }-*/;
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private void fireQueueChange() {
+        OfflineQueueEvent event = new OfflineQueueEvent(queue.size(), getQueueAge(), stored.size(), offline);
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).fine(event.toString());
+        }
+        eventBus.fireEvent(event);
+    }
+
+    /**
+     * GWT hides the constructor taking any http method
+     */
+    private static class ReplayRequestBuilder extends RequestBuilder {
+        ReplayRequestBuilder(String httpMethod, String url) {
+            super(httpMethod, url);
+        }
+    }
+
+    /**
+     * queues a request sent while online when it fails with a network error
+     */
+    private class OfflineCallback implements RequestCallback {
+
+        private final long id;
+        private final Method method;
+        private final RequestBuilder builder;
+        private final RequestCallback callback;
+
+        OfflineCallback(long id, Method method, RequestBuilder builder, RequestCallback callback) {
+            this.id = id;
+            this.method = method;
+            this.builder = builder;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            if (isNetworkError(response)) {
+                goOffline();
+                enqueue(id, method, builder, callback);
+            } else {
+                callback.onResponseReceived(request, response);
+            }
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            callback.onError(request, exception);
+        }
+    }
+
+    private class ReplayCallback implements RequestCallback {
+
+        private final QueuedRequest queued;
+
+        ReplayCallback(QueuedRequest queued) {
+            this.queued = queued;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            replaying = false;
+            if (isNetworkError(response)) {
+                goOffline();
+                return;
+            }
+            probes = 0;
+            dequeue();
+            if (queued.getCallback() != null) {
+                queued.getCallback().onResponseReceived(request, response);
+            } else if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).info(
+                    "replayed " + queued + " from an earlier page: " + response.getStatusCode());
+            }
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            replaying = false;
+            dequeue();
+            if (queued.getCallback() != null) {
+                queued.getCallback().onError(request, exception);
+            } else if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).warning(
+                    "replaying " + queued + " from an earlier page failed: " + exception.getMessage());
+            }
+        }
+
+        private void dequeue() {
+            queue.remove(queued);
+            storage.remove(queued);
+            fireQueueChange();
+            replay();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.web.bindery.event.shared.Event;
+
+/**
+ * Fired by the {@link OfflineQueueDispatcherFilter} when a request got queued or left the queue, when requests of an
+ * earlier page got loaded and when the filter goes offline.
+ */
+public class OfflineQueueEvent extends Event<OfflineQueueEvent.Handler> {
+
+    public interface Handler {
+        void onQueueChange(OfflineQueueEvent event);
+    }
+
+    public static final Type<Handler> TYPE = new Type<Handler>();
+
+    private final int queueLength;
+    private final long queueAge;
+    private final int storedLength;
+    private final boolean offline;
+
+    public OfflineQueueEvent(int queueLength, long queueAge, int storedLength, boolean offline) {
+        this.queueLength = queueLength;
+        this.queueAge = queueAge;
+        this.storedLength = storedLength;
+        this.offline = offline;
+    }
+
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * @return the milliseconds the oldest request is waiting, 0 for an empty queue
+     */
+    public long getQueueAge() {
+        return queueAge;
+    }
+
+    /**
+     * @return the number of requests of an earlier page waiting to be replayed or discarded
+     */
+    public int getStoredLength() {
+        return storedLength;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    @Override
+    public Type<Handler> getAssociatedType() {
+        return TYPE;
+    }
+
+    @Override
+    protected void dispatch(Handler handler) {
+        handler.onQueueChange(this);
+    }
+
+    @Override
+    public String toString() {
+        return "offline queue: " + queueLength + " requests, oldest " + queueAge + "ms"
+            + (storedLength > 0 ? ", " + storedLength + " stored" : "") + (offline ? ", offline" : "");
+    }
+}
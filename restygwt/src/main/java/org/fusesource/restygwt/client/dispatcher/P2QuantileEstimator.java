@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a stream of values, e.g. the 95th percentile of the latencies of an endpoint, in constant
+ * memory with the P&sup2; algorithm of Jain and Chlamtac. Five markers follow the minimum, the maximum, the quantile
+ * and the quantiles halfway to the bounds; their heights get adjusted with a parabolic interpolation on every value.
+ * <p>
+ * The first five values are kept as they are, so small samples give the exact quantile.
+ */
+public class P2QuantileEstimator {
+
+    private final double quantile;
+
+    private final double[] heights = new double[5];
+    private final int[] positions = new int[5];
+    private final double[] desiredPositions = new double[5];
+    private final double[] increments;
+
+    private int count;
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.95
+     */
+    public P2QuantileEstimator(double quantile) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+        }
+        this.quantile = quantile;
+        increments = new double[] { 0, quantile / 2, quantile, (1 + quantile) / 2, 1 };
+    }
+
+    public void add(double value) {
+        if (count < 5) {
+            heights[count++] = value;
+            if (count == 5) {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++) {
+                    positions[i] = i;
+                    desiredPositions[i] = 4 * increments[i];
+                }
+            }
+            return;
+        }
+        count++;
+
+        int cell;
+        if (value < heights[0]) {
+            heights[0] = value;
+            cell = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (value >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+        for (int i = cell + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desiredPositions[i] += increments[i];
+        }
+
+        for (int i = 1; i < 4; i++) {
+            double d = desiredPositions[i] - positions[i];
+            if (d >= 1 && positions[i + 1] - positions[i] > 1 || d <= -1 && positions[i - 1] - positions[i] < -1) {
+                int step = d > 0 ? 1 : -1;
+                double height = parabolic(i, step);
+                if (heights[i - 1] < height && height < heights[i + 1]) {
+                    heights[i] = height;
+                } else {
+                    heights[i] = linear(i, step);
+                }
+                positions[i] += step;
+            }
+        }
+    }
+
+    private double parabolic(int i, int step) {
+        double below = positions[i] - positions[i - 1];
+        double above = positions[i + 1] - positions[i];
+        return heights[i] + step / (double) (positions[i + 1] - positions[i - 1]) *
+            ((below + step) * (heights[i + 1] - heights[i]) / above +
+                (above - step) * (heights[i] - heights[i - 1]) / below);
+    }
+
+    private double linear(int i, int step) {
+        return heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+    }
+
+    /**
+     * @return the estimated quantile or {@link Double#NaN} without any value
+     */
+    public double getQuantile() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count < 5) {
+            double[] values = new double[count];
+            System.arraycopy(heights, 0, values, 0, count);
+            Arrays.sort(values);
+            return values[Math.max(0, (int) Math.ceil(quantile * count) - 1)];
+        }
+        return heights[2];
+    }
+
+    public double getQuantileLevel() {
+        return quantile;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
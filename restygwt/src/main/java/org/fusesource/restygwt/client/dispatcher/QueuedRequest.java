@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.RequestCallback;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request held back by the {@link OfflineQueueDispatcherFilter}. Everything but the callback gets persisted, so
+ * requests loaded after a reload of the page have no callback.
+ */
+public class QueuedRequest {
+
+    private final long id;
+    private final long time;
+    private final String httpMethod;
+    private final String url;
+    private final Map<String, String> headers;
+    private final String body;
+    private final RequestCallback callback;
+
+    public QueuedRequest(long id, long time, String httpMethod, String url, Map<String, String> headers, String body,
+                         RequestCallback callback) {
+        this.id = id;
+        this.time = time;
+        this.httpMethod = httpMethod;
+        this.url = url;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<String, String>(headers));
+        this.body = body;
+        this.callback = callback;
+    }
+
+    /**
+     * @return the position in the queue, increasing across reloads of the page
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the time in milliseconds the request got queued
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @return the callback of the original request or null if the request got loaded from the storage
+     */
+    public RequestCallback getCallback() {
+        return callback;
+    }
+
+    @Override
+    public String toString() {
+        return httpMethod + " " + url;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+/**
+ * Passed to the callback of a request which the {@link RateLimitingDispatcherFilter} rejected without sending it,
+ * because the queue of its bucket was full.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = -6198047236114587903L;
+
+    private final String bucketKey;
+    private final long waitMillis;
+
+    public RateLimitExceededException(String bucketKey, long waitMillis) {
+        super("rate limit of " + bucketKey + " exceeded");
+        this.bucketKey = bucketKey;
+        this.waitMillis = waitMillis;
+    }
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    /**
+     * @return the milliseconds until the bucket lets the next request through
+     */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+}
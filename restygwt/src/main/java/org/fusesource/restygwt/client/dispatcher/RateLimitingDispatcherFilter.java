@@ -0,0 +1,347 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.logging.client.LogConfiguration;
+import com.google.gwt.user.client.Timer;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.fusesource.restygwt.client.Dispatcher;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.ServiceRoots;
+import org.fusesource.restygwt.client.cache.Domain;
+import org.fusesource.restygwt.client.callback.BackoffRetryPolicy;
+
+/**
+ * Keeps the requests to a backend within its quota with a {@link TokenBucket} per service root or per
+ * {@link Domain}, so a burst of requests does not come back as a burst of 429 responses.
+ * <p>
+ * A request which finds its bucket empty waits in a queue and gets sent once a token is available, with
+ * {@link DefaultFilterawareDispatcher#sendFiltered(Method, RequestBuilder)}. Once the queue of a bucket is full,
+ * further requests fail with a {@link RateLimitExceededException}. The buckets also follow what the server reports:
+ * a {@code Retry-After} header of a 429 or 503 response pauses the bucket and {@code X-RateLimit-Remaining} together
+ * with {@code X-RateLimit-Reset} caps its tokens.
+ * <p>
+ * Limits are set per key with {@link #setLimit(String, double, int)}, a key is either a service root url or the
+ * class name of a domain, which takes precedence. Add the filter after the filters which set or wrap the callback,
+ * see {@link DefaultFilterawareDispatcher} for the order of the filters, so queued requests carry their final
+ * callback and the responses to retries, which do not wait for a token, adapt the bucket as well:
+ *
+ * <pre>
+ * RateLimitingDispatcherFilter rateLimit = new RateLimitingDispatcherFilter();
+ * rateLimit.setLimit(ServiceRoots.get("partner"), 10, 20);
+ * new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(cf), rateLimit);
+ * </pre>
+ */
+public class RateLimitingDispatcherFilter implements DispatcherFilter {
+
+    static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    /**
+     * a larger {@code X-RateLimit-Reset} is taken as epoch seconds instead of seconds from now
+     */
+    private static final long EPOCH_SECONDS = 1000000000L;
+
+    private final Map<String, Bucket> buckets = new HashMap<String, Bucket>();
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxQueueLength;
+
+    private Timer timer;
+    /**
+     * the time the timer drains the queues, 0 if it is not scheduled
+     */
+    private long drainAt;
+
+    /**
+     * limits only the keys given to {@link #setLimit(String, double, int)} and queues up to 100 requests per key
+     */
+    public RateLimitingDispatcherFilter() {
+        this(0, 0, 100);
+    }
+
+    /**
+     * @param permitsPerSecond the rate for every service root without a limit of its own, 0 to not limit them
+     * @param burst the number of requests which may be sent at once to such a service root
+     * @param maxQueueLength the number of requests waiting per key before further ones fail
+     */
+    public RateLimitingDispatcherFilter(double permitsPerSecond, int burst, int maxQueueLength) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxQueueLength = maxQueueLength;
+    }
+
+    /**
+     * @param key a service root url, e.g. from {@link ServiceRoots#get(String)}, or the class name of a domain
+     * @param permitsPerSecond the rate of the key, more than 0
+     */
+    public void setLimit(String key, double permitsPerSecond, int burst) {
+        Bucket bucket = buckets.get(key);
+        buckets.put(key, new Bucket(new TokenBucket(key, permitsPerSecond, burst, now()),
+            bucket == null ? new LinkedList<Queued>() : bucket.queue));
+    }
+
+    @Override
+    public boolean filter(Method method, RequestBuilder builder) {
+        Bucket bucket = getBucket(getBucketKey(method, builder));
+        if (bucket == null) {
+            return true;
+        }
+        long now = now();
+        if (bucket.queue.isEmpty() && bucket.tokens.tryAcquire(now)) {
+            builder.setCallback(new RateLimitCallback(bucket.tokens, builder.getCallback()));
+            return true;
+        }
+        if (bucket.queue.size() >= maxQueueLength) {
+            if (LogConfiguration.loggingIsEnabled()) {
+                Logger.getLogger(Dispatcher.class.getName()).info(
+                    "rate limit queue of " + bucket.tokens.getKey() + " full, rejecting: " + builder.getHTTPMethod() +
+                        " " + builder.getUrl());
+            }
+            reject(builder.getCallback(),
+                new RateLimitExceededException(bucket.tokens.getKey(), bucket.tokens.getWaitMillis(now)));
+            return false;
+        }
+        if (LogConfiguration.loggingIsEnabled()) {
+            Logger.getLogger(Dispatcher.class.getName()).fine(
+                "rate limit of " + bucket.tokens.getKey() + " reached, queueing: " + builder.getHTTPMethod() + " " +
+                    builder.getUrl());
+        }
+        builder.setCallback(new RateLimitCallback(bucket.tokens, builder.getCallback()));
+        bucket.queue.add(new Queued(method, builder));
+        if (bucket.queue.size() == 1) {
+            scheduleDrain(now, bucket.tokens.getWaitMillis(now));
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of requests waiting for a token of the key
+     */
+    public int getQueueLength(String key) {
+        Bucket bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.queue.size();
+    }
+
+    /**
+     * @return the bucket of the key or null if the key is not limited
+     */
+    public TokenBucket getTokenBucket(String key) {
+        Bucket bucket = buckets.get(key);
+        return bucket == null ? null : bucket.tokens;
+    }
+
+    /**
+     * The requests with the same key share a bucket. This is the first domain of the method with a limit of its own,
+     * otherwise the longest service root the url starts with or else the scheme, host and port of the url.
+     */
+    protected String getBucketKey(Method method, RequestBuilder builder) {
+        for (String domain : getDomains(method)) {
+            if (buckets.containsKey(domain)) {
+                return domain;
+            }
+        }
+        String root = ServiceRoots.find(builder.getUrl());
+        return root != null ? root : CircuitBreakerDispatcherFilter.getOrigin(builder.getUrl());
+    }
+
+    /**
+     * sends the queued requests the buckets have tokens for and schedules the next run for the others
+     */
+    void drain() {
+        drainAt = 0;
+        long now = now();
+        long wait = Long.MAX_VALUE;
+        for (Bucket bucket : buckets.values()) {
+            while (!bucket.queue.isEmpty()) {
+                Queued queued = bucket.queue.getFirst();
+                if (!queued.method.applyDeadline()) {
+                    // the deadline callback already failed the call
+                    bucket.queue.removeFirst();
+                } else if (bucket.tokens.tryAcquire(now)) {
+                    bucket.queue.removeFirst();
+                    DefaultFilterawareDispatcher.sendHeldBack(queued.method, queued.builder);
+                } else {
+                    wait = Math.min(wait, bucket.tokens.getWaitMillis(now));
+                    break;
+                }
+            }
+        }
+        if (wait != Long.MAX_VALUE) {
+            scheduleDrain(now, wait);
+        }
+    }
+
+    /**
+     * the buckets share the timer, so it only gets moved to drain earlier
+     */
+    private void scheduleDrain(long now, long wait) {
+        int delay = (int) Math.min(Integer.MAX_VALUE, Math.max(1, wait));
+        if (drainAt != 0 && drainAt <= now + delay) {
+            return;
+        }
+        drainAt = now + delay;
+        schedule(delay);
+    }
+
+    /**
+     * fails the request with a full queue, deferred to keep the async behaviour of the method call
+     */
+    protected void reject(final RequestCallback callback, final RateLimitExceededException exception) {
+        Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+            @Override
+            public void execute() {
+                callback.onError(null, exception);
+            }
+        });
+    }
+
+    protected void schedule(int delayMillis) {
+        if (timer == null) {
+            timer = new Timer() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            };
+        }
+        timer.schedule(delayMillis);
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private Bucket getBucket(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null && permitsPerSecond > 0) {
+            bucket = new Bucket(new TokenBucket(key, permitsPerSecond, burst, now()), new LinkedList<Queued>());
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * @return the class names of the {@link Domain} of the method, which the generated proxies add as json array
+     */
+    static String[] getDomains(Method method) {
+        String value = method.getData().get(Domain.CACHE_DOMAIN_KEY);
+        if (value == null) {
+            return new String[0];
+        }
+        // class names need no escaping, so the quotes and brackets are all there is to remove
+        String names = value.replace("[", "").replace("]", "").replace("\"", "").trim();
+        if (names.isEmpty()) {
+            return new String[0];
+        }
+        String[] domains = names.split(",");
+        for (int i = 0; i < domains.length; i++) {
+            domains[i] = domains[i].trim();
+        }
+        return domains;
+    }
+
+    static long getReset(String value, long now) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long reset = Long.parseLong(value.trim());
+            return reset > EPOCH_SECONDS ? Math.max(0, reset * 1000 - now) : reset * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static class Bucket {
+
+        private final TokenBucket tokens;
+        private final LinkedList<Queued> queue;
+
+        Bucket(TokenBucket tokens, LinkedList<Queued> queue) {
+            this.tokens = tokens;
+            this.queue = queue;
+        }
+    }
+
+    private static class Queued {
+
+        private final Method method;
+        private final RequestBuilder builder;
+
+        Queued(Method method, RequestBuilder builder) {
+            this.method = method;
+            this.builder = builder;
+        }
+    }
+
+    private class RateLimitCallback implements RequestCallback {
+
+        private final TokenBucket tokens;
+        private final RequestCallback callback;
+
+        RateLimitCallback(TokenBucket tokens, RequestCallback callback) {
+            this.tokens = tokens;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            int status = response.getStatusCode();
+            if (status != 0) {
+                long now = now();
+                long retryAfter = BackoffRetryPolicy.getRetryAfter(response.getHeader(BackoffRetryPolicy.RETRY_AFTER),
+                    now);
+                if ((status == 429 || status == 503) && retryAfter >= 0) {
+                    tokens.pause(now, retryAfter);
+                } else if (status == 429) {
+                    tokens.limitRemaining(now, 0, -1);
+                }
+                String remaining = response.getHeader(RATE_LIMIT_REMAINING);
+                if (remaining != null) {
+                    try {
+                        tokens.limitRemaining(now, Integer.parseInt(remaining.trim()),
+                            getReset(response.getHeader(RATE_LIMIT_RESET), now));
+                    } catch (NumberFormatException e) {
+                        // not a quota we understand
+                    }
+                }
+            }
+            callback.onResponseReceived(request, response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            callback.onError(request, exception);
+        }
+    }
+}
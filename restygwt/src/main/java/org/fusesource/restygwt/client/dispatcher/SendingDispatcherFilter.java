@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestException;
+
+import org.fusesource.restygwt.client.Method;
+
+/**
+ * A {@link DispatcherFilter} which also takes over sending the request once the whole chain let it pass, e.g. to
+ * send it more than once. The {@link DefaultFilterawareDispatcher} uses the first of these filters instead of
+ * {@link RequestBuilder#send()}, the callback of the builder is the final one by then.
+ */
+public interface SendingDispatcherFilter extends DispatcherFilter {
+
+    /**
+     * @return the request which the caller may cancel
+     */
+    Request send(Method method, RequestBuilder builder) throws RequestException;
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+/**
+ * The state of one bucket of a {@link RateLimitingDispatcherFilter}.
+ * <p>
+ * The bucket holds up to its burst size of tokens and refills at a steady rate, every request takes one token. The
+ * server can tighten it for a while: {@link #pause(long, long)} blocks it, e.g. for a {@code Retry-After}, and
+ * {@link #limitRemaining(long, int, long)} caps the tokens to the requests the server reports as remaining.
+ */
+public class TokenBucket {
+
+    private final String key;
+    private final double permitsPerMilli;
+    private final int burst;
+
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+
+    /**
+     * @param key the service root, the domain or whatever else the requests of this bucket have in common
+     * @param permitsPerSecond the steady rate of requests, more than 0
+     * @param burst the number of requests which may be sent at once after a quiet period
+     * @param now the current time, the bucket starts full
+     */
+    public TokenBucket(String key, double permitsPerSecond, int burst, long now) {
+        if (!(permitsPerSecond > 0)) {
+            // an empty bucket would never refill
+            throw new IllegalArgumentException("permits per second must be more than 0: " + permitsPerSecond);
+        }
+        this.key = key;
+        permitsPerMilli = permitsPerSecond / 1000;
+        this.burst = Math.max(1, burst);
+        tokens = this.burst;
+        refilledAt = now;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return whether a request may be sent now, taking a token if so
+     */
+    public boolean tryAcquire(long now) {
+        refill(now);
+        if (now < pausedUntil || tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return the milliseconds until {@link #tryAcquire(long)} succeeds, 0 if it would succeed now
+     */
+    public long getWaitMillis(long now) {
+        refill(now);
+        long wait = Math.max(0, pausedUntil - now);
+        if (tokens < 1) {
+            wait = Math.max(wait, (long) Math.ceil((1 - tokens) / permitsPerMilli));
+        }
+        return wait;
+    }
+
+    /**
+     * Lets no request through for the given time, e.g. after a response with a {@code Retry-After} header.
+     */
+    public void pause(long now, long millis) {
+        pausedUntil = Math.max(pausedUntil, now + millis);
+    }
+
+    /**
+     * Takes the quota the server reports into account, e.g. from {@code X-RateLimit-Remaining} and
+     * {@code X-RateLimit-Reset} headers. The bucket never holds more tokens than the server has left and stays
+     * paused until the reset once nothing is left.
+     *
+     * @param remaining the number of requests the server still accepts
+     * @param resetMillis the milliseconds until the server resets the quota or -1 if unknown
+     */
+    public void limitRemaining(long now, int remaining, long resetMillis) {
+        refill(now);
+        tokens = Math.min(tokens, Math.max(0, remaining));
+        if (remaining <= 0 && resetMillis > 0) {
+            pause(now, resetMillis);
+        }
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerMilli);
+            refilledAt = now;
+        }
+    }
+}
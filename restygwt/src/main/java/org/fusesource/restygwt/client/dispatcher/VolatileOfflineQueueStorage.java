@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the queued requests in memory only, for browsers without IndexedDB. They get lost with the page.
+ */
+public class VolatileOfflineQueueStorage implements OfflineQueueStorage {
+
+    private final List<QueuedRequest> requests = new ArrayList<QueuedRequest>();
+
+    @Override
+    public void load(LoadCallback callback) {
+        callback.onLoad(new ArrayList<QueuedRequest>(requests));
+    }
+
+    @Override
+    public void add(QueuedRequest request) {
+        requests.add(request);
+    }
+
+    @Override
+    public void remove(QueuedRequest request) {
+        for (Iterator<QueuedRequest> iterator = requests.iterator(); iterator.hasNext();) {
+            if (iterator.next().getId() == request.getId()) {
+                iterator.remove();
+            }
+        }
+    }
+}
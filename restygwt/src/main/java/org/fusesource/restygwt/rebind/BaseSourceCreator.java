@@ -57,6 +57,8 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
     protected SourceWriter sourceWriter;
     private TreeLogger logger;
     private PrintWriter writer;
+    private GeneratedCodeSize.Record size;
+    private int indent;
 
     private static final ThreadLocal<HashSet<String>> GENERATED_CLASSES = new ThreadLocal<HashSet<String>>();
 
@@ -71,6 +73,8 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
 
     public static void clearGeneratedClasses() {
         GENERATED_CLASSES.set(null);
+        GeneratedCodeSize.clear();
+        TypeMetadataCache.clear();
     }
 
     public static JClassType find(Class<?> type, TreeLogger logger, GeneratorContext context)
@@ -97,6 +101,7 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
         }
 
         name = packageName + "." + shortName;
+        IncrementalGeneration.addDependency(source);
     }
 
 
@@ -218,8 +223,10 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
     public BaseSourceCreator i(int i) {
         if (i == 1) {
             sourceWriter.indent();
+            indent++;
         } else if (i == -1) {
             sourceWriter.outdent();
+            indent--;
         } else {
             throw new IllegalArgumentException();
         }
@@ -228,6 +235,8 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
 
     public BaseSourceCreator p(String value) {
         sourceWriter.println(value);
+        // the source writer indents by two spaces
+        size.size += indent * 2 + value.length() + 1;
 
         // System.out.println(value);
         return this;
@@ -235,6 +244,7 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
 
     protected BaseSourceCreator p() {
         sourceWriter.println();
+        size.size++;
         return this;
     }
 
@@ -265,6 +275,7 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
     }
 
     public final String create() throws UnableToCompleteException {
+        GeneratedCodeSize.reference(name);
         writer = writer();
         if (writer == null) {
             return name;
@@ -274,8 +285,10 @@ public abstract class BaseSourceCreator extends AbstractSourceCreator {
         ClassSourceFileComposerFactory composerFactory = createComposerFactory();
         sourceWriter = composerFactory.createSourceWriter(context, writer);
 
+        size = GeneratedCodeSize.begin(name, source.getQualifiedSourceName());
         generate();
         sourceWriter.commit(getLogger());
+        GeneratedCodeSize.end(getLogger(), context, size);
         return name;
     }
 
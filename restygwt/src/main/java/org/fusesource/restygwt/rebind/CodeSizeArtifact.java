@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import com.google.gwt.core.ext.linker.Artifact;
+import com.google.gwt.core.ext.linker.Transferable;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The size and fan-out of one generated class, see {@link GeneratedCodeSize}.
+ */
+@Transferable
+public class CodeSizeArtifact extends Artifact<CodeSizeArtifact> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String className;
+    private final String sourceName;
+    private final int size;
+    private final SortedSet<String> dependencies;
+
+    public CodeSizeArtifact(String className, String sourceName, int size, SortedSet<String> dependencies) {
+        super(CodeSizeReportLinker.class);
+        this.className = className;
+        this.sourceName = sourceName;
+        this.size = size;
+        this.dependencies = Collections.unmodifiableSortedSet(new TreeSet<String>(dependencies));
+    }
+
+    /**
+     * @return the qualified name of the generated class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the qualified name of the type the class got generated for
+     */
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /**
+     * @return the number of characters of the generated class body
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the other generated classes this one refers to
+     */
+    public SortedSet<String> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public int hashCode() {
+        return className.hashCode() * 31 + size;
+    }
+
+    @Override
+    protected int compareToComparableArtifact(CodeSizeArtifact o) {
+        int rc = className.compareTo(o.className);
+        if (rc == 0) {
+            rc = size < o.size ? -1 : size == o.size ? 0 : 1;
+        }
+        return rc;
+    }
+
+    @Override
+    protected Class<CodeSizeArtifact> getComparableArtifactType() {
+        return CodeSizeArtifact.class;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.LinkerContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.linker.AbstractLinker;
+import com.google.gwt.core.ext.linker.ArtifactSet;
+import com.google.gwt.core.ext.linker.ConfigurationProperty;
+import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
+import com.google.gwt.core.ext.linker.LinkerOrder;
+import com.google.gwt.core.ext.linker.Shardable;
+import com.google.gwt.core.ext.linker.SyntheticArtifact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the {@link CodeSizeArtifact}s of all permutations into {@value #CSV} and {@value #JSON}, the largest
+ * generated classes first. Both are private artifacts, so they end up next to the other compile reports in the
+ * -extra directory and are not deployed.
+ * <p>
+ * RestyGWT.gwt.xml adds the linker to every compile, so it does nothing unless the configuration property
+ * {@value GeneratedCodeSize#REPORT} is true.
+ */
+@LinkerOrder(LinkerOrder.Order.POST)
+@Shardable
+public class CodeSizeReportLinker extends AbstractLinker {
+
+    static final String CSV = "restygwt-codesize.csv";
+    static final String JSON = "restygwt-codesize.json";
+
+    @Override
+    public String getDescription() {
+        return "RestyGWT generated code size report";
+    }
+
+    @Override
+    public ArtifactSet link(TreeLogger logger, LinkerContext context, ArtifactSet artifacts, boolean onePermutation)
+        throws UnableToCompleteException {
+        if (onePermutation || !isReportEnabled(context)) {
+            return artifacts;
+        }
+        Collection<CodeSizeArtifact> sizes = artifacts.find(CodeSizeArtifact.class);
+        if (sizes.isEmpty()) {
+            return artifacts;
+        }
+        ArtifactSet result = new ArtifactSet(artifacts);
+        List<CodeSizeArtifact> sorted = sort(sizes);
+        result.add(emit(logger, toCsv(sorted), CSV));
+        result.add(emit(logger, toJson(sorted), JSON));
+        return result;
+    }
+
+    private static boolean isReportEnabled(LinkerContext context) {
+        for (ConfigurationProperty property : context.getConfigurationProperties()) {
+            if (property.getName().equals(GeneratedCodeSize.REPORT)) {
+                List<String> values = property.getValues();
+                return !values.isEmpty() && Boolean.parseBoolean(values.get(0));
+            }
+        }
+        return false;
+    }
+
+    private SyntheticArtifact emit(TreeLogger logger, String contents, String path) throws UnableToCompleteException {
+        SyntheticArtifact artifact = emitString(logger, contents, path);
+        artifact.setVisibility(Visibility.Private);
+        return artifact;
+    }
+
+    static List<CodeSizeArtifact> sort(Collection<CodeSizeArtifact> sizes) {
+        List<CodeSizeArtifact> sorted = new ArrayList<CodeSizeArtifact>(sizes);
+        Collections.sort(sorted, new Comparator<CodeSizeArtifact>() {
+            @Override
+            public int compare(CodeSizeArtifact a, CodeSizeArtifact b) {
+                if (a.getSize() != b.getSize()) {
+                    return a.getSize() > b.getSize() ? -1 : 1;
+                }
+                return a.getClassName().compareTo(b.getClassName());
+            }
+        });
+        return sorted;
+    }
+
+    static String toCsv(List<CodeSizeArtifact> sizes) {
+        StringBuilder sb = new StringBuilder("class,source,size,fanOut,dependencies\n");
+        for (CodeSizeArtifact size : sizes) {
+            sb.append(size.getClassName()).append(',');
+            sb.append(size.getSourceName()).append(',');
+            sb.append(size.getSize()).append(',');
+            sb.append(size.getDependencies().size()).append(',');
+            int j = 0;
+            for (String dependency : size.getDependencies()) {
+                sb.append(j++ == 0 ? "" : " ").append(dependency);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static String toJson(List<CodeSizeArtifact> sizes) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < sizes.size(); i++) {
+            CodeSizeArtifact size = sizes.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("  {\"class\": ").append(quote(size.getClassName()));
+            sb.append(", \"source\": ").append(quote(size.getSourceName()));
+            sb.append(", \"size\": ").append(size.getSize());
+            sb.append(", \"fanOut\": ").append(size.getDependencies().size());
+            sb.append(", \"dependencies\": [");
+            int j = 0;
+            for (String dependency : size.getDependencies()) {
+                sb.append(j++ == 0 ? "" : ", ").append(quote(dependency));
+            }
+            sb.append("]}");
+        }
+        return sb.append("\n]\n").toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + Generator.escape(value) + "\"";
+    }
+}
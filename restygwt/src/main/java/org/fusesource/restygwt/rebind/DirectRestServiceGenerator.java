@@ -1,16 +1,22 @@
 package org.fusesource.restygwt.rebind;
 
-import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.IncrementalGenerator;
+import com.google.gwt.core.ext.RebindResult;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 
-public class DirectRestServiceGenerator extends Generator {
+public class DirectRestServiceGenerator extends IncrementalGenerator {
     @Override
-    public String generate(TreeLogger logger, GeneratorContext context, String source)
+    public RebindResult generateIncrementally(TreeLogger logger, GeneratorContext context, String source)
         throws UnableToCompleteException {
+        RebindResult cached = IncrementalGeneration.tryReuseCachedResult(logger, context);
+        if (cached != null) {
+            return cached;
+        }
         try {
+            IncrementalGeneration.begin();
             JClassType restService = find(logger, context, source);
 
             DirectRestServiceInterfaceClassCreator restyInterfaceCreator =
@@ -19,12 +25,18 @@ public class DirectRestServiceGenerator extends Generator {
 
             DirectRestServiceClassCreator generator = new DirectRestServiceClassCreator(logger, context, restService);
 
-            return generator.create();
+            return IncrementalGeneration.newResult(context, generator.create());
         } finally {
+            IncrementalGeneration.end();
             BaseSourceCreator.clearGeneratedClasses();
         }
     }
 
+    @Override
+    public long getVersionId() {
+        return IncrementalGeneration.VERSION_ID;
+    }
+
     static JClassType find(TreeLogger logger, GeneratorContext context, String type) throws UnableToCompleteException {
         JClassType rc = context.getTypeOracle().findType(type);
         if (rc == null) {
@@ -3,6 +3,7 @@ package org.fusesource.restygwt.rebind;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.json.client.JSONParser;
 
 import org.fusesource.restygwt.client.Json.Style;
 
@@ -13,6 +14,34 @@ public interface EncoderDecoderLocator {
 
     String decodeExpression(JType type, String expression, Style style) throws UnableToCompleteException;
 
+    /**
+     * Same as {@link #decodeExpression(JType, String, Style)}, but with {@code lazy} set a list gets decoded
+     * into a {@link org.fusesource.restygwt.client.LazyJsonList} if the locator supports it. Locators which do not
+     * decode lazily need not implement it.
+     */
+    default String decodeExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        return decodeExpression(type, expression, style);
+    }
+
+    /**
+     * @return an expression which encodes the given expression straight into JSON text, without building a
+     * {@link com.google.gwt.json.client.JSONValue} first if the locator supports it
+     */
+    default String encodeToStringExpression(JType type, String expression, Style style)
+        throws UnableToCompleteException {
+        return encodeExpression(type, expression, style) + ".toString()";
+    }
+
+    /**
+     * @return an expression which decodes the JSON text the given expression evaluates to, without parsing it into
+     * a {@link com.google.gwt.json.client.JSONValue} first if the locator supports it
+     */
+    default String decodeFromStringExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        return decodeExpression(type, JSONParser.class.getName() + ".parse(" + expression + ")", style, lazy);
+    }
+
     //TODO remove this methods
     boolean hasCustomEncoderDecoder(JType type);
 
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.ConfigurationProperty;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Records the size of the class body every {@link BaseSourceCreator} writes and the other generated classes it
+ * refers to, i.e. its fan-out. With the configuration property {@value #REPORT} set to true each record is committed
+ * as a {@link CodeSizeArtifact}, which the {@link CodeSizeReportLinker} writes into a report. With {@value #WARN_KB}
+ * set to a positive number every generated class above that many KB of source gets logged as a warning.
+ * <p>
+ * A generator run which reuses its cached result does not write any class, so the artifacts of the run which
+ * generated it are kept with the cached result and committed again, see {@link IncrementalGeneration}.
+ */
+public final class GeneratedCodeSize {
+
+    static final String REPORT = "restygwt.codesize.report";
+    static final String WARN_KB = "restygwt.codesize.warnKb";
+
+    /**
+     * The classes which are being generated right now, the innermost last.
+     */
+    private static final ThreadLocal<List<Record>> CURRENT = new ThreadLocal<List<Record>>();
+
+    /**
+     * The artifacts committed by the current generator run.
+     */
+    private static final ThreadLocal<ArrayList<CodeSizeArtifact>> COMMITTED =
+        new ThreadLocal<ArrayList<CodeSizeArtifact>>();
+
+    private GeneratedCodeSize() {
+    }
+
+    static final class Record {
+
+        final String className;
+        final String sourceName;
+        final TreeSet<String> dependencies = new TreeSet<String>();
+        int size;
+
+        Record(String className, String sourceName) {
+            this.className = className;
+            this.sourceName = sourceName;
+        }
+    }
+
+    /**
+     * Registers the class as a dependency of the class being generated, whether it gets generated now or not.
+     */
+    static void reference(String className) {
+        List<Record> records = CURRENT.get();
+        if (records != null && !records.isEmpty()) {
+            Record parent = records.get(records.size() - 1);
+            if (!parent.className.equals(className)) {
+                parent.dependencies.add(className);
+            }
+        }
+    }
+
+    static Record begin(String className, String sourceName) {
+        List<Record> records = CURRENT.get();
+        if (records == null) {
+            records = new ArrayList<Record>();
+            CURRENT.set(records);
+        }
+        Record record = new Record(className, sourceName);
+        records.add(record);
+        return record;
+    }
+
+    /**
+     * Finishes the record of the innermost class, warns if it is too large and commits it for the report.
+     */
+    static void end(TreeLogger logger, GeneratorContext context, Record record) throws UnableToCompleteException {
+        List<Record> records = CURRENT.get();
+        records.remove(record);
+        if (records.isEmpty()) {
+            CURRENT.set(null);
+        }
+
+        String warnKb = getProperty(context, WARN_KB);
+        if (warnKb != null) {
+            int limit;
+            try {
+                limit = Integer.parseInt(warnKb);
+            } catch (NumberFormatException e) {
+                logger.log(TreeLogger.ERROR, "configuration property " + WARN_KB + " is not a number: " + warnKb);
+                throw new UnableToCompleteException();
+            }
+            if (limit > 0 && record.size > limit * 1024) {
+                logger.log(TreeLogger.WARN, record.className + " has " + record.size / 1024 + " KB of generated " +
+                    "source, more than the " + limit + " KB of " + WARN_KB + ". It refers to " +
+                    record.dependencies.size() + " other generated classes: " + record.dependencies);
+            }
+        }
+        if (Boolean.parseBoolean(getProperty(context, REPORT))) {
+            CodeSizeArtifact artifact =
+                new CodeSizeArtifact(record.className, record.sourceName, record.size, record.dependencies);
+            context.commitArtifact(logger, artifact);
+            ArrayList<CodeSizeArtifact> committed = COMMITTED.get();
+            if (committed == null) {
+                committed = new ArrayList<CodeSizeArtifact>();
+                COMMITTED.set(committed);
+            }
+            committed.add(artifact);
+        }
+    }
+
+    /**
+     * @return the artifacts committed since the last {@link #clear()}, null if there are none
+     */
+    static ArrayList<CodeSizeArtifact> getCommitted() {
+        ArrayList<CodeSizeArtifact> committed = COMMITTED.get();
+        return committed == null ? null : new ArrayList<CodeSizeArtifact>(committed);
+    }
+
+    /**
+     * Commits the artifacts of a previous generator run again, when its result gets reused.
+     */
+    static void recommit(TreeLogger logger, GeneratorContext context, List<CodeSizeArtifact> artifacts)
+        throws UnableToCompleteException {
+        if (Boolean.parseBoolean(getProperty(context, REPORT))) {
+            for (CodeSizeArtifact artifact : artifacts) {
+                context.commitArtifact(logger, artifact);
+            }
+        }
+    }
+
+    /**
+     * Drops the records and committed artifacts of the generator run.
+     */
+    static void clear() {
+        CURRENT.set(null);
+        COMMITTED.set(null);
+    }
+
+    /**
+     * @return the value of a single valued configuration property or null if it is not defined or empty
+     */
+    private static String getProperty(GeneratorContext context, String name) {
+        try {
+            ConfigurationProperty property = context.getPropertyOracle().getConfigurationProperty(name);
+            List<String> values = property.getValues();
+            if (values.isEmpty() || values.get(0) == null || values.get(0).trim().isEmpty()) {
+                return null;
+            }
+            return values.get(0).trim();
+        } catch (BadPropertyValueException e) {
+            return null;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 public class GwtJacksonEncoderDecoderClassCreator extends BaseSourceCreator {
     private static final String GWT_JACKSON_ENCODER_SUFFIX = "_Gen_GwtJackEncDec_";
     private static final String GWT_JACKSON_MAPPER_IF = "GwtJackMapper";
+    private static final String MAPPER_FIELD = "MAPPER__";
 
     private static final String OBJECT_MAPPER_CLASS = ObjectMapper.class.getName();
 
@@ -71,6 +72,8 @@ public class GwtJacksonEncoderDecoderClassCreator extends BaseSourceCreator {
         }
         generateMapper();
         generateSingleton(shortName);
+        generateWriteMethod();
+        generateReadMethod();
         generateEncodeMethod(source);
         generateDecodeMethod(source);
     }
@@ -80,6 +83,38 @@ public class GwtJacksonEncoderDecoderClassCreator extends BaseSourceCreator {
         p("public static interface " + GWT_JACKSON_MAPPER_IF + " extends " + OBJECT_MAPPER_CLASS + "<" +
             source.getParameterizedQualifiedSourceName() + "> {};");
         p();
+        p("private static final " + GWT_JACKSON_MAPPER_IF + " " + MAPPER_FIELD + " = " + GWT.class.getName() +
+            ".create(" + GWT_JACKSON_MAPPER_IF + ".class);");
+        p();
+    }
+
+    /**
+     * JSON text straight from gwt-jackson, used for request bodies.
+     */
+    private void generateWriteMethod() {
+        p("public String write(" + source.getParameterizedQualifiedSourceName() + " value) {").i(1);
+        {
+            p("if( value==null ) {").i(1);
+            {
+                p("return \"null\";");
+            }
+            i(-1).p("}");
+            p("return " + MAPPER_FIELD + ".write(value);");
+        }
+        i(-1).p("}");
+        p();
+    }
+
+    /**
+     * Decodes JSON text straight with gwt-jackson, used for response bodies.
+     */
+    private void generateReadMethod() {
+        p("public " + source.getParameterizedQualifiedSourceName() + " read(String json) {").i(1);
+        {
+            p("return (" + source.getParameterizedQualifiedSourceName() + ") " + MAPPER_FIELD + ".read(json);");
+        }
+        i(-1).p("}");
+        p();
     }
 
     protected void generateSingleton(String shortName) {
@@ -107,10 +142,7 @@ public class GwtJacksonEncoderDecoderClassCreator extends BaseSourceCreator {
             }
             i(-1).p("}");
 
-            p(GWT_JACKSON_MAPPER_IF + " mapper__ = " + GWT.class.getName() + ".create(" + GWT_JACKSON_MAPPER_IF +
-                ".class);");
-            p(" String returnStr = mapper__.write(value);");
-            p("return " + JSONParser.class.getName() + ".parseLenient(returnStr);");
+            p("return " + JSONParser.class.getName() + ".parseLenient(" + MAPPER_FIELD + ".write(value));");
         }
         i(-1).p("}");
         p();
@@ -137,9 +169,7 @@ public class GwtJacksonEncoderDecoderClassCreator extends BaseSourceCreator {
             p("}");
 
 
-            p(GWT_JACKSON_MAPPER_IF + " mapper__ = " + GWT.class.getName() + ".create(" + GWT_JACKSON_MAPPER_IF +
-                ".class);");
-            p(" return (" + source.getParameterizedQualifiedSourceName() + ") mapper__.read(value.toString());");
+            p("return read(value.toString());");
 
             i(-1).p("}");
             p();
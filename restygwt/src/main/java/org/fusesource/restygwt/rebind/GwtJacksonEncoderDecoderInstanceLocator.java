@@ -57,6 +57,39 @@ public class GwtJacksonEncoderDecoderInstanceLocator extends JsonEncoderDecoderI
         return encodeDecodeExpression(type, expression, "decode");
     }
 
+    /**
+     * gwt-jackson decodes the whole value in one go, so {@code lazy} is ignored.
+     */
+    @Override
+    public String decodeExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        return decodeExpression(type, expression, style);
+    }
+
+    /**
+     * Generated gwt-jackson codecs write the JSON text directly, built-in ones go through a JSONValue.
+     */
+    @Override
+    public String encodeToStringExpression(JType type, String expression, Style style)
+        throws UnableToCompleteException {
+        if (builtInEncoderDecoders.containsKey(type)) {
+            return super.encodeToStringExpression(type, expression, style);
+        }
+        return encodeDecodeExpression(type, expression, "write");
+    }
+
+    /**
+     * Generated gwt-jackson codecs read the JSON text directly, built-in ones go through a JSONValue.
+     */
+    @Override
+    public String decodeFromStringExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        if (builtInEncoderDecoders.containsKey(type)) {
+            return super.decodeFromStringExpression(type, expression, style, lazy);
+        }
+        return encodeDecodeExpression(type, expression, "read");
+    }
+
     private String getEncoderDecoder(JType type, TreeLogger logger) throws UnableToCompleteException {
         String rc = builtInEncoderDecoders.get(type);
         if (rc == null) {
@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.gwt.core.ext.CachedGeneratorResult;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.RebindMode;
+import com.google.gwt.core.ext.RebindResult;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.typeinfo.JArrayType;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JField;
+import com.google.gwt.core.ext.typeinfo.JMethod;
+import com.google.gwt.core.ext.typeinfo.JParameter;
+import com.google.gwt.core.ext.typeinfo.JParameterizedType;
+import com.google.gwt.core.ext.typeinfo.JRawType;
+import com.google.gwt.core.ext.typeinfo.JRealClassType;
+import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the types a generator run depends on, so the output of the previous run can be reused by
+ * {@link com.google.gwt.core.ext.IncrementalGenerator}s as long as none of them changed.
+ * <p>
+ * Every {@link BaseSourceCreator} registers its source type, which covers the service interface and the DTOs
+ * which get a codec generated. Super types are registered as well, since their fields and annotations are
+ * inherited, and so are the types of fields and method signatures, since a codec also depends on the DTOs it
+ * references. JRE and library types are left out, they do not change between runs.
+ * <p>
+ * A type counts as changed when it got modified after the cached output was generated or when it got removed.
+ * Polymorphic types, which have {@link JsonSubTypes} or {@link JsonTypeInfo} or are abstract, also count as changed
+ * when the number of their subtypes changed, since the codec decodes to these subtypes.
+ */
+public final class IncrementalGeneration {
+
+    static final String DEPENDENCIES = "org.fusesource.restygwt.dependencies";
+    static final String CODE_SIZES = "org.fusesource.restygwt.codesizes";
+
+    /**
+     * Changed whenever the generated code changes, so results cached by an older restygwt are not reused.
+     */
+    static final long VERSION_ID = 2L;
+
+    /**
+     * recorded instead of the number of subtypes for types which are not polymorphic
+     */
+    static final int SUBTYPES_IGNORED = -1;
+
+    /**
+     * packages of types which do not change between generator runs
+     */
+    private static final String[] LIBRARY_PACKAGES =
+        { "java.", "javax.", "com.google.", "com.fasterxml.", "org.fusesource.restygwt.client." };
+
+    private static final ThreadLocal<HashMap<String, Integer>> CURRENT_DEPENDENCIES =
+        new ThreadLocal<HashMap<String, Integer>>();
+
+    private IncrementalGeneration() {
+    }
+
+    /**
+     * Starts recording the dependencies of a generator run.
+     */
+    static void begin() {
+        CURRENT_DEPENDENCIES.set(new HashMap<String, Integer>());
+    }
+
+    static void end() {
+        CURRENT_DEPENDENCIES.set(null);
+    }
+
+    /**
+     * Registers the given type, its super types and type arguments as dependencies of the current generator run.
+     */
+    public static void addDependency(JType type) {
+        HashMap<String, Integer> dependencies = CURRENT_DEPENDENCIES.get();
+        if (dependencies != null && type != null) {
+            addDependency(dependencies, type);
+        }
+    }
+
+    private static void addDependency(HashMap<String, Integer> dependencies, JType type) {
+        JArrayType arrayType = type.isArray();
+        if (arrayType != null) {
+            addDependency(dependencies, arrayType.getLeafType());
+            return;
+        }
+        JParameterizedType parameterizedType = type.isParameterized();
+        if (parameterizedType != null) {
+            for (JClassType arg : parameterizedType.getTypeArgs()) {
+                addDependency(dependencies, arg);
+            }
+            addDependency(dependencies, parameterizedType.getBaseType());
+            return;
+        }
+        JRawType rawType = type.isRawType();
+        if (rawType != null) {
+            addDependency(dependencies, rawType.getBaseType());
+            return;
+        }
+        JClassType classType = type.isClassOrInterface();
+        if (classType == null || !(classType instanceof JRealClassType) ||
+            dependencies.containsKey(classType.getQualifiedSourceName()) || isLibraryType(classType)) {
+            return;
+        }
+        dependencies.put(classType.getQualifiedSourceName(),
+            isPolymorphic(classType) ? classType.getSubtypes().length : SUBTYPES_IGNORED);
+        if (classType.getSuperclass() != null) {
+            addDependency(dependencies, classType.getSuperclass());
+        }
+        for (JClassType implemented : classType.getImplementedInterfaces()) {
+            addDependency(dependencies, implemented);
+        }
+        for (JField field : classType.getFields()) {
+            addDependency(dependencies, field.getType());
+        }
+        for (JMethod method : classType.getMethods()) {
+            addDependency(dependencies, method.getReturnType());
+            for (JParameter parameter : method.getParameters()) {
+                addDependency(dependencies, parameter.getType());
+            }
+        }
+    }
+
+    static boolean isLibraryType(JClassType type) {
+        String name = type.getQualifiedSourceName();
+        for (String library : LIBRARY_PACKAGES) {
+            if (name.startsWith(library)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isPolymorphic(JClassType type) {
+        return type.isAbstract() || type.isInterface() != null || type.isAnnotationPresent(JsonSubTypes.class) ||
+            type.isAnnotationPresent(JsonTypeInfo.class);
+    }
+
+    /**
+     * @return a result reusing everything the previous run generated or null if that is not possible
+     */
+    @SuppressWarnings("unchecked")
+    static RebindResult tryReuseCachedResult(TreeLogger logger, GeneratorContext context)
+        throws UnableToCompleteException {
+        CachedGeneratorResult cached = context.getCachedGeneratorResult();
+        if (!context.isGeneratorResultCachingEnabled() || cached == null) {
+            return null;
+        }
+        Map<String, Integer> dependencies = (Map<String, Integer>) cached.getClientData(DEPENDENCIES);
+        if (dependencies == null) {
+            return null;
+        }
+        TypeOracle typeOracle = context.getTypeOracle();
+        for (Map.Entry<String, Integer> entry : dependencies.entrySet()) {
+            JClassType type = typeOracle.findType(entry.getKey());
+            if (type == null ||
+                (entry.getValue() != SUBTYPES_IGNORED && type.getSubtypes().length != entry.getValue()) ||
+                (type instanceof JRealClassType &&
+                    ((JRealClassType) type).getLastModifiedTime() > cached.getTimeGenerated())) {
+                logger.log(TreeLogger.DEBUG, entry.getKey() + " changed, generating " + cached.getResultTypeName());
+                return null;
+            }
+        }
+        logger.log(TreeLogger.DEBUG, "reusing cached " + cached.getResultTypeName());
+        RebindResult result = new RebindResult(RebindMode.USE_ALL_CACHED, cached.getResultTypeName());
+        result.putClientData(DEPENDENCIES, new HashMap<String, Integer>(dependencies));
+        List<CodeSizeArtifact> codeSizes = (List<CodeSizeArtifact>) cached.getClientData(CODE_SIZES);
+        if (codeSizes != null) {
+            // no class gets written, so the code size report needs the records of the cached run
+            GeneratedCodeSize.recommit(logger, context, codeSizes);
+            result.putClientData(CODE_SIZES, new ArrayList<CodeSizeArtifact>(codeSizes));
+        }
+        return result;
+    }
+
+    /**
+     * @return a result for freshly generated code, remembering the dependencies recorded since {@link #begin()}
+     */
+    static RebindResult newResult(GeneratorContext context, String resultTypeName) {
+        if (!context.isGeneratorResultCachingEnabled()) {
+            return new RebindResult(RebindMode.USE_ALL_NEW_WITH_NO_CACHING, resultTypeName);
+        }
+        RebindResult result = new RebindResult(RebindMode.USE_ALL_NEW, resultTypeName);
+        HashMap<String, Integer> dependencies = CURRENT_DEPENDENCIES.get();
+        if (dependencies != null) {
+            result.putClientData(DEPENDENCIES, new HashMap<String, Integer>(dependencies));
+        }
+        ArrayList<CodeSizeArtifact> codeSizes = GeneratedCodeSize.getCommitted();
+        if (codeSizes != null) {
+            result.putClientData(CODE_SIZES, codeSizes);
+        }
+        return result;
+    }
+}
@@ -18,7 +18,6 @@
 
 package org.fusesource.restygwt.rebind;
 
-import static org.fusesource.restygwt.rebind.util.AnnotationUtils.getAnnotation;
 import static org.fusesource.restygwt.rebind.util.AnnotationUtils.getClassAnnotation;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -55,9 +54,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,7 +67,6 @@ import javax.xml.bind.annotation.XmlTransient;
 
 import org.fusesource.restygwt.client.Json;
 import org.fusesource.restygwt.client.Json.Style;
-import org.fusesource.restygwt.rebind.util.AnnotationUtils;
 
 /**
  *
@@ -93,12 +93,60 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
     private static final String JSON_NULL_CLASS = JSONNull.class.getName();
     protected static final String JSON_STRING_CLASS = JSONString.class.getName();
 
+    /**
+     * Types with at least that many decodable fields get a decode method which iterates over the keys of the json
+     * object, see {@link #useKeyIteratingDecode(List)}.
+     */
+    static final int KEY_ITERATING_DECODE_MIN_FIELDS = 16;
+
     protected EncoderDecoderLocator locator;
 
     protected boolean javaBeansNamingConventionEnabled;
 
+    /**
+     * Names of the static lookup tables emitted into the generated class, keyed by enum type.
+     */
+    private final Map<JClassType, String> enumLookups = new HashMap<JClassType, String>();
+
+    /**
+     * Names of the static constants emitted into the generated class, keyed by json property name and by type tag.
+     */
+    private final Map<String, String> jsonKeys = new LinkedHashMap<String, String>();
+    private final Map<String, String> jsonTags = new LinkedHashMap<String, String>();
+
+    protected final TypeMetadataCache metadata;
+
+    /**
+     * The halves of a codec which can be generated. Codecs which only encode or only decode get their own class
+     * name, so a type can have a codec for each direction within one compilation.
+     */
+    public enum CodecHalves {
+        ENCODE("_Generated_JsonEncoder_", true, false),
+        DECODE("_Generated_JsonDecoder_", false, true),
+        BOTH(JSON_ENCODER_SUFFIX, true, true);
+
+        final String suffix;
+        final boolean encode;
+        final boolean decode;
+
+        CodecHalves(String suffix, boolean encode, boolean decode) {
+            this.suffix = suffix;
+            this.encode = encode;
+            this.decode = decode;
+        }
+    }
+
+    protected final CodecHalves halves;
+
     public JsonEncoderDecoderClassCreator(TreeLogger logger, GeneratorContext context, JClassType source) {
-        super(logger, context, source, JSON_ENCODER_SUFFIX);
+        this(logger, context, source, CodecHalves.BOTH);
+    }
+
+    public JsonEncoderDecoderClassCreator(TreeLogger logger, GeneratorContext context, JClassType source,
+                                          CodecHalves halves) {
+        super(logger, context, source, halves.suffix);
+        this.halves = halves;
+        metadata = TypeMetadataCache.get(context);
 
         // true, if the naming convention from JavaBeans API specification should be used
         javaBeansNamingConventionEnabled = getBooleanProperty(getLogger(), context.getPropertyOracle(),
@@ -112,6 +160,9 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
 
         List<Subtype> possibleTypes = getPossibleTypes(typeInfo, isLeaf);
         Collections.sort(possibleTypes);
+        for (Subtype possibleType : possibleTypes) {
+            IncrementalGeneration.addDependency(possibleType.clazz);
+        }
 
         JClassType sourceClazz = source.isClass() == null ? source.isInterface() : source.isClass();
         if (sourceClazz == null) {
@@ -125,7 +176,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                 throw new UnableToCompleteException();
             }
         }
-        Json jsonAnnotation = getAnnotation(source, Json.class);
+        Json jsonAnnotation = metadata.getAnnotation(source, Json.class);
         Style classStyle = jsonAnnotation != null ? jsonAnnotation.style() : Style.DEFAULT;
         String railsWrapperName =
                 jsonAnnotation != null && !jsonAnnotation.name().isEmpty() ? jsonAnnotation.name() :
@@ -134,9 +185,33 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
 
         generateSingleton(shortName);
 
-        generateEncodeMethod(source, classStyle, typeInfo, railsWrapperName, possibleTypes, isLeaf, locator);
+        if (halves.encode) {
+            generateEncodeMethod(source, classStyle, typeInfo, railsWrapperName, possibleTypes, isLeaf, locator);
+        } else {
+            p("public " + JSON_VALUE_CLASS + " encode(" + source.getParameterizedQualifiedSourceName() + " value) {")
+                .i(1);
+            {
+                p("throw new EncodingException(\"encoding is not used in this compilation\");").i(-1);
+            }
+            p("}");
+            p();
+        }
+
+        if (halves.decode) {
+            generateEnumLookups(sourceClazz, possibleTypes);
 
-        generateDecodeMethod(source, classStyle, typeInfo, railsWrapperName, possibleTypes, isLeaf, locator);
+            generateDecodeMethod(source, classStyle, typeInfo, railsWrapperName, possibleTypes, isLeaf, locator);
+        } else {
+            p("public " + source.getParameterizedQualifiedSourceName() + " decode(" + JSON_VALUE_CLASS + " value) {")
+                .i(1);
+            {
+                p("throw new DecodingException(\"decoding is not used in this compilation\");").i(-1);
+            }
+            p("}");
+            p();
+        }
+
+        generateConstants();
     }
 
     @Override
@@ -154,7 +229,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         }
         Collection<Type> subTypes = findJsonSubTypes(source);
         if (subTypes.isEmpty()) {
-            JsonSubTypes foundAnnotation = getAnnotation(source, JsonSubTypes.class);
+            JsonSubTypes foundAnnotation = metadata.getAnnotation(source, JsonSubTypes.class);
             if (foundAnnotation != null) {
                 Type[] value = foundAnnotation.value();
                 subTypes = Arrays.asList(value);
@@ -170,7 +245,10 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
      * a parent class or an interface.
      */
     private Collection<Type> findJsonSubTypes(JClassType clazz) {
-        return findJsonSubTypes(clazz, new HashSet<JsonSubTypes.Type>());
+        if (metadata.jsonSubTypes.contains(clazz)) {
+            return metadata.jsonSubTypes.get(clazz);
+        }
+        return metadata.jsonSubTypes.put(clazz, findJsonSubTypes(clazz, new HashSet<JsonSubTypes.Type>()));
     }
 
     private Collection<Type> findJsonSubTypes(JClassType clazz, Set<Type> types) {
@@ -201,6 +279,88 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         p();
     }
 
+    /**
+     * @return the name of the static constant holding the given json property name
+     */
+    protected String jsonKey(String name) {
+        String constant = jsonKeys.get(name);
+        if (constant == null) {
+            constant = "KEY_" + jsonKeys.size() + "__";
+            jsonKeys.put(name, constant);
+        }
+        return constant;
+    }
+
+    /**
+     * @return the name of the static constant holding the given type tag encoded as json string, so polymorphic
+     *         encoders do not create a new wrapper for every value
+     */
+    protected String jsonTag(String tag) {
+        String constant = jsonTags.get(tag);
+        if (constant == null) {
+            constant = "TAG_" + jsonTags.size() + "__";
+            jsonTags.put(tag, constant);
+        }
+        return constant;
+    }
+
+    /**
+     * Emits the constants handed out by {@link #jsonKey(String)} and {@link #jsonTag(String)}. They get declared
+     * after the methods using them, which is fine as the keys are compile time constants and the tags are only
+     * used once the class is initialized.
+     */
+    private void generateConstants() {
+        for (Map.Entry<String, String> entry : jsonKeys.entrySet()) {
+            p("private static final String " + entry.getValue() + " = " + wrap(entry.getKey()) + ";");
+        }
+        for (Map.Entry<String, String> entry : jsonTags.entrySet()) {
+            p("private static final " + JSON_VALUE_CLASS + " " + entry.getValue() +
+                " = org.fusesource.restygwt.client.AbstractJsonEncoderDecoder.STRING.encode(" +
+                wrap(entry.getKey()) + ");");
+        }
+    }
+
+    private void generateEnumLookups(JClassType sourceClazz, List<Subtype> possibleTypes) {
+        if (sourceClazz.isEnum() != null) {
+            generateEnumLookup(sourceClazz);
+        }
+        for (Subtype possibleType : possibleTypes) {
+            if (possibleType.clazz.isEnum() != null && possibleType.clazz.isAssignableTo(sourceClazz)) {
+                generateEnumLookup(possibleType.clazz);
+            }
+        }
+    }
+
+    /**
+     * Emits a static map from the JSON token of each constant to the constant itself. The map is filled once
+     * when the generated class is initialized, so decoding an enum value is a single lookup.
+     *
+     * @param classType the enum type
+     * @return the name of the generated static field
+     */
+    protected String generateEnumLookup(JClassType classType) {
+        String lookup = enumLookups.get(classType);
+        if (lookup != null) {
+            return lookup;
+        }
+        lookup = "ENUM_LOOKUP_" + enumLookups.size() + "__";
+        String className = classType.getParameterizedQualifiedSourceName();
+        p("private static final java.util.Map<String, " + className + "> " + lookup +
+            " = new java.util.HashMap<String, " + className + ">();");
+        p("static {").i(1);
+        {
+            p("for(" + className + " v: " + className + ".values()) {").i(1);
+            {
+                p(lookup + ".put(v." + getValueMethod(classType) + "(), v);");
+            }
+            i(-1).p("}");
+        }
+        i(-1).p("}");
+        p();
+        enumLookups.put(classType, lookup);
+        return lookup;
+    }
+
     private void generateEncodeMethod(JClassType classType, final Style classStyle, JsonTypeInfo typeInfo,
                                       String railsWrapperName, List<Subtype> possibleTypes, boolean isLeaf,
                                       final EncoderDecoderLocator locator) throws UnableToCompleteException {
@@ -223,10 +383,10 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
             if (classStyle == Style.RAILS) {
                 returnWrapper = true;
                 p(JSON_OBJECT_CLASS + " rrc = new " + JSON_OBJECT_CLASS + "();");
-                p("rrc.put(\"" + railsWrapperName + "\" , rc);");
+                p("rrc.put(" + jsonKey(railsWrapperName) + ", rc);");
             }
 
-            for (Subtype possibleType : possibleTypes) {
+            for (Subtype possibleType : mostSpecificFirst(possibleTypes)) {
 
                 if (!possibleType.clazz.isAssignableTo(classType)) {
                     getLogger().log(DEBUG, "Only assignable classes are allowed: " +
@@ -236,8 +396,9 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                 }
 
                 if (!isLeaf && possibleTypes.size() > 1) {
-                    // Generate a decoder for each possible type
-                    p("if(value.getClass().getName().equals(\"" + possibleType.clazz.getQualifiedBinaryName() + "\"))");
+                    // Generate an encoder for each possible type, instanceof does not need the class names
+                    // and so works with -XdisableClassMetadata
+                    p("if(value instanceof " + possibleType.clazz.getErasedType().getQualifiedSourceName() + ")");
                     p("{");
                 }
 
@@ -254,22 +415,20 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                     if (typeInfo != null) {
                         switch (typeInfo.include()) {
                             case PROPERTY:
-                                p("com.google.gwt.json.client.JSONValue className=org.fusesource.restygwt.client" +
-                                    ".AbstractJsonEncoderDecoder.STRING.encode(\"" + possibleType.tag + "\");");
+                                p("com.google.gwt.json.client.JSONValue className=" + jsonTag(possibleType.tag) + ";");
                                 p("if( className!=null ) { ").i(1);
-                                p("rc.put(" + wrap(getTypeInfoPropertyValue(typeInfo)) + ", className);");
+                                p("rc.put(" + jsonKey(getTypeInfoPropertyValue(typeInfo)) + ", className);");
                                 i(-1).p("}");
                                 break;
                             case WRAPPER_OBJECT:
                                 returnWrapper = true;
                                 p(JSON_OBJECT_CLASS + " rrc = new " + JSON_OBJECT_CLASS + "();");
-                                p("rrc.put(\"" + possibleType.tag + "\", rc);");
+                                p("rrc.put(" + jsonKey(possibleType.tag) + ", rc);");
                                 break;
                             case WRAPPER_ARRAY:
                                 returnWrapper = true;
                                 p(JSON_ARRAY_CLASS + " rrc = new " + JSON_ARRAY_CLASS + "();");
-                                p("rrc.set(0, org.fusesource.restygwt.client.AbstractJsonEncoderDecoder.STRING.encode" +
-                                    "(\"" + possibleType.tag + "\"));");
+                                p("rrc.set(0, " + jsonTag(possibleType.tag) + ");");
                                 p("rrc.set(1, rc);");
                                 break;
                             case EXISTING_PROPERTY:
@@ -289,13 +448,15 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                     p(possibleType.clazz.getParameterizedQualifiedSourceName() + " parseValue = (" +
                         possibleType.clazz.getParameterizedQualifiedSourceName() + ")value;");
 
+                    JsonIgnoreProperties ignoreProperties =
+                        metadata.getAnnotation(possibleType.clazz, JsonIgnoreProperties.class);
                     for (final JField field : fields) {
 
                         final String getterName = getGetterName(possibleType.clazz, field);
 
                         boolean ignoreField = false;
-                        if (getAnnotation(possibleType.clazz, JsonIgnoreProperties.class) != null) {
-                            for (String s : getAnnotation(possibleType.clazz, JsonIgnoreProperties.class).value()) {
+                        if (ignoreProperties != null) {
+                            for (String s : ignoreProperties.value()) {
                                 if (s.equals(field.getName())) {
                                     ignoreField = true;
                                     break;
@@ -319,8 +480,9 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                                 if (getterName != null || field.isDefaultAccess() || field.isProtected() ||
                                     field.isPublic()) {
 
-                                    Json jsonAnnotation = getAnnotation(field, Json.class);
-                                    JsonProperty jsonPropertyAnnotation = getAnnotation(field, JsonProperty.class);
+                                    Json jsonAnnotation = metadata.getAnnotation(field, Json.class);
+                                    JsonProperty jsonPropertyAnnotation =
+                                        metadata.getAnnotation(field, JsonProperty.class);
 
                                     String name = field.getName();
                                     String jsonName = name;
@@ -343,11 +505,11 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
 
 
                                     if (null != field.getType().isEnum()) {
-                                        p("if(isNotNullAndCheckDefaults(" + fieldExpr + ", rc, " + wrap(jsonName) +
+                                        p("if(isNotNullAndCheckDefaults(" + fieldExpr + ", rc, " + jsonKey(jsonName) +
                                             ")) {").i(1);
                                     }
 
-                                    p("isNotNullValuePut(" + expression + ", rc, " + wrap(jsonName) + ");");
+                                    p("isNotNullValuePut(" + expression + ", rc, " + jsonKey(jsonName) + ");");
 
                                     if (null != field.getType().isEnum()) {
                                         i(-1).p("}");
@@ -384,6 +546,23 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         p();
     }
 
+    /**
+     * Orders the given types such that every type comes before all of its super types, which makes the first
+     * matching instanceof check the one of the most specific type. The order of unrelated types is kept.
+     */
+    static List<Subtype> mostSpecificFirst(List<Subtype> possibleTypes) {
+        List<Subtype> ordered = new ArrayList<Subtype>(possibleTypes);
+        Collections.sort(ordered, new Comparator<Subtype>() {
+            @Override
+            public int compare(Subtype a, Subtype b) {
+                // a sub type always has more super types than any of its super types
+                return b.clazz.getFlattenedSupertypeHierarchy().size() -
+                    a.clazz.getFlattenedSupertypeHierarchy().size();
+            }
+        });
+        return ordered;
+    }
+
     private void generateEnumEncodeMethodBody(Subtype possibleType, JsonTypeInfo typeInfo) {
         p("if( value==null ) {").i(1);
         {
@@ -391,9 +570,8 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         }
         p("}");
         p(JSON_OBJECT_CLASS + " rrc = new " + JSON_OBJECT_CLASS + "();");
-        p(JSON_VALUE_CLASS + " className=org.fusesource.restygwt.client.AbstractJsonEncoderDecoder.STRING.encode(\"" +
-            possibleType.tag + "\");");
-        p("rrc.put(" + wrap(getTypeInfoPropertyValue(typeInfo)) + ", className);");
+        p(JSON_VALUE_CLASS + " className=" + jsonTag(possibleType.tag) + ";");
+        p("rrc.put(" + jsonKey(getTypeInfoPropertyValue(typeInfo)) + ", className);");
         p("rrc.put(\"name\", new " + JSON_STRING_CLASS + "(value." + getValueMethod(possibleType.clazz) + "()));");
         p("return rrc;");
     }
@@ -440,7 +618,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
             }
             p("}");
             if (classStyle == Style.RAILS) {
-                p(JSON_OBJECT_CLASS + " object = toObjectFromWrapper(value, \"" + railsWrapperName + "\");");
+                p(JSON_OBJECT_CLASS + " object = toObjectFromWrapper(value, " + jsonKey(railsWrapperName) + ");");
             } else if (typeInfo != null && typeInfo.include() == As.WRAPPER_ARRAY) {
                 p(JSON_ARRAY_CLASS + " array = (" + JSON_ARRAY_CLASS + ")value;");
                 if (!isLeaf) {
@@ -454,7 +632,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
 
             if (!isLeaf && typeInfo != null && typeInfo.include() == As.PROPERTY) {
                 p("String sourceName = org.fusesource.restygwt.client.AbstractJsonEncoderDecoder.STRING.decode(object" +
-                    ".get(" + wrap(getTypeInfoPropertyValue(typeInfo)) + "));");
+                    ".get(" + jsonKey(getTypeInfoPropertyValue(typeInfo)) + "));");
             }
 
             for (Subtype possibleType : possibleTypes) {
@@ -469,16 +647,16 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                 if (typeInfo != null) {
                     if (typeInfo.include() == As.WRAPPER_OBJECT) {
                         if (!isLeaf) {
-                            p("if(object.containsKey(\"" + possibleType.tag + "\"))");
+                            p("if(object.containsKey(" + jsonKey(possibleType.tag) + "))");
                             p("{");
                         }
-                        p("object = toObjectFromWrapper(value, \"" + possibleType.tag + "\");");
+                        p("object = toObjectFromWrapper(value, " + jsonKey(possibleType.tag) + ");");
                     } else if (!isLeaf) {
                         if (classType.equals(possibleType.clazz)) {
-                            p("if(sourceName == null || sourceName.equals(\"" + possibleType.tag + "\"))");
+                            p("if(sourceName == null || sourceName.equals(" + jsonKey(possibleType.tag) + "))");
                             p("{");
                         } else {
-                            p("if(sourceName != null && sourceName.equals(\"" + possibleType.tag + "\"))");
+                            p("if(sourceName != null && sourceName.equals(" + jsonKey(possibleType.tag) + "))");
                             p("{");
                         }
                     }
@@ -503,14 +681,16 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                             branch("Processing field: " + field.getName(), new Branch<Void>() {
                                 @Override
                                 public Void execute() throws UnableToCompleteException {
-                                    Json jsonAnnotation = getAnnotation(field, Json.class);
+                                    Json jsonAnnotation = metadata.getAnnotation(field, Json.class);
                                     Style style = jsonAnnotation != null ? jsonAnnotation.style() : classStyle;
                                     String jsonName = field.getName();
                                     if (jsonAnnotation != null && !jsonAnnotation.name().isEmpty()) {
                                         jsonName = jsonAnnotation.name();
                                     }
-                                    String objectGetter = "object.get(" + wrap(jsonName) + ")";
-                                    String expression = locator.decodeExpression(field.getType(), objectGetter, style);
+                                    String objectGetter = "object.get(" + jsonKey(jsonName) + ")";
+                                    boolean lazy = jsonAnnotation != null && jsonAnnotation.lazy();
+                                    String expression =
+                                        locator.decodeExpression(field.getType(), objectGetter, style, lazy);
 
                                     String defaultValue = getDefaultValue(field);
                                     i(1).p("" + (objectGetter + " == null || " + objectGetter + " instanceof " +
@@ -529,11 +709,14 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                             possibleType.clazz.getParameterizedQualifiedSourceName() + "();");
                     }
 
+                    final List<DecodedField> decodedFields = new ArrayList<DecodedField>();
+                    JsonIgnoreProperties ignoreProperties =
+                        metadata.getAnnotation(possibleType.clazz, JsonIgnoreProperties.class);
                     for (final JField field : getFields(possibleType.clazz)) {
 
                         boolean ignoreField = false;
-                        if (getAnnotation(possibleType.clazz, JsonIgnoreProperties.class) != null) {
-                            for (String s : getAnnotation(possibleType.clazz, JsonIgnoreProperties.class).value()) {
+                        if (ignoreProperties != null) {
+                            for (String s : ignoreProperties.value()) {
                                 if (s.equals(field.getName())) {
                                     ignoreField = true;
                                     break;
@@ -565,9 +748,10 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                                 if (setterName != null || field.isDefaultAccess() || field.isProtected() ||
                                     field.isPublic()) {
 
-                                    Json jsonAnnotation = getAnnotation(field, Json.class);
+                                    Json jsonAnnotation = metadata.getAnnotation(field, Json.class);
                                     Style style = jsonAnnotation != null ? jsonAnnotation.style() : classStyle;
-                                    JsonProperty jsonPropertyAnnotation = getAnnotation(field, JsonProperty.class);
+                                    JsonProperty jsonPropertyAnnotation =
+                                        metadata.getAnnotation(field, JsonProperty.class);
 
                                     String name = field.getName();
                                     String jsonName = name;
@@ -580,21 +764,8 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                                         jsonName = jsonPropertyAnnotation.value();
                                     }
 
-                                    String objectGetter = "object.get(" + wrap(jsonName) + ")";
-                                    String expression = locator.decodeExpression(field.getType(), objectGetter, style);
-
-                                    boolean isShort = field.getType().isPrimitive() == JPrimitiveType.SHORT;
-                                    String defaultValue = getDefaultValue(field);
-
-                                    String methodName = isShort ? "getValueToSetForShort" : "getValueToSet";
-
-                                    if (setterName != null) {
-                                        p("rc." + setterName + "(" + methodName + "(" + expression + ", " +
-                                            defaultValue + "));");
-                                    } else {
-                                        p("rc." + name + "= " + methodName + "(" + expression + "," + defaultValue +
-                                            ");");
-                                    }
+                                    boolean lazy = jsonAnnotation != null && jsonAnnotation.lazy();
+                                    decodedFields.add(new DecodedField(field, jsonName, setterName, style, lazy));
 
                                 } else {
                                     getLogger().log(DEBUG, "private field gets ignored: " +
@@ -605,6 +776,15 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                         });
                     }
 
+                    if (useKeyIteratingDecode(decodedFields)) {
+                        generateKeyIteratingFieldDecoding(decodedFields, locator);
+                    } else {
+                        for (DecodedField decodedField : decodedFields) {
+                            p(decodeFieldStatement(decodedField, "object.get(" + jsonKey(decodedField.jsonName) + ")",
+                                locator));
+                        }
+                    }
+
                     p("return rc;");
                 }
                 if (typeInfo != null && !isLeaf) {
@@ -620,6 +800,80 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         }
     }
 
+    /**
+     * Wide types which usually arrive with only a few of their properties set are decoded by iterating over the
+     * keys of the json object instead of looking up every field, so the cost follows the size of the payload and
+     * not the size of the class.
+     */
+    private boolean useKeyIteratingDecode(List<DecodedField> decodedFields) {
+        if (decodedFields.size() < KEY_ITERATING_DECODE_MIN_FIELDS) {
+            return false;
+        }
+        // every json name becomes a case label and those need to be unique
+        Set<String> jsonNames = new HashSet<String>();
+        for (DecodedField decodedField : decodedFields) {
+            if (!jsonNames.add(decodedField.jsonName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Emits a switch over the keys present in the json object. Fields whose key is missing get what their decoder
+     * returns for null afterwards, the default of a primitive and null otherwise, exactly as with the per field
+     * lookup. So the number of fields of a class never changes what a payload decodes to.
+     */
+    private void generateKeyIteratingFieldDecoding(List<DecodedField> decodedFields, EncoderDecoderLocator locator)
+        throws UnableToCompleteException {
+        p("boolean[] present = new boolean[" + decodedFields.size() + "];");
+        p("for (String key : object.keySet()) {").i(1);
+        {
+            p("switch (key) {").i(1);
+            {
+                for (int i = 0; i < decodedFields.size(); i++) {
+                    DecodedField decodedField = decodedFields.get(i);
+                    p("case " + jsonKey(decodedField.jsonName) + ":").i(1);
+                    {
+                        p("present[" + i + "] = true;");
+                        p(decodeFieldStatement(decodedField, "object.get(key)", locator));
+                        p("break;").i(-1);
+                    }
+                }
+                p("default:").i(1);
+                {
+                    p("break;").i(-1);
+                }
+                i(-1);
+            }
+            p("}").i(-1);
+        }
+        p("}");
+        for (int i = 0; i < decodedFields.size(); i++) {
+            p("if (!present[" + i + "]) {").i(1);
+            {
+                p(decodeFieldStatement(decodedFields.get(i), "(" + JSON_VALUE_CLASS + ") null", locator)).i(-1);
+            }
+            p("}");
+        }
+    }
+
+    private String decodeFieldStatement(DecodedField decodedField, String jsonValue, EncoderDecoderLocator locator)
+        throws UnableToCompleteException {
+        JField field = decodedField.field;
+        String expression = locator.decodeExpression(field.getType(), jsonValue, decodedField.style, decodedField.lazy);
+
+        boolean isShort = field.getType().isPrimitive() == JPrimitiveType.SHORT;
+        String defaultValue = getDefaultValue(field);
+
+        String methodName = isShort ? "getValueToSetForShort" : "getValueToSet";
+
+        if (decodedField.setterName != null) {
+            return "rc." + decodedField.setterName + "(" + methodName + "(" + expression + ", " + defaultValue + "));";
+        }
+        return "rc." + field.getName() + "= " + methodName + "(" + expression + "," + defaultValue + ");";
+    }
+
     private void generateEnumDecodeMethodBody(JClassType classType) {
         p(JSON_VALUE_CLASS + " str = object.get(\"name\");");
         p("if( null == str || str.isString() == null ) {").i(1);
@@ -660,10 +914,18 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
 
     protected void decodeEnum(JClassType classType, String value) {
         String className = classType.getParameterizedQualifiedSourceName();
-        String method = getValueMethod(classType);
-        if (method == null) {
-            p("return Enum.valueOf(" + className + ".class, " + value + ");").i(-1);
+        String lookup = enumLookups.get(classType);
+        if (lookup != null) {
+            p(className + " rc = " + lookup + ".get(" + value + ");");
+            p("if( rc == null ) {").i(1);
+            {
+                p("throw new DecodingException(\"can not find enum for given value: \"+" + value + ");").i(-1);
+            }
+            p("}");
+            p("return rc;").i(-1);
         } else {
+            // no lookup table was generated up front, e.g. by a subclass, so scan the constants
+            String method = getValueMethod(classType);
             p("for(" + className + " v: " + className + ".values()) {").i(1);
             {
                 p("if(v." + method + "().equals(" + value + ")) {").i(1);
@@ -711,7 +973,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
     private List<JField> getOrderedFields(List<JField> fields, JConstructor creator) throws UnableToCompleteException {
         List<JField> orderedFields = new ArrayList<JField>();
         for (JParameter param : creator.getParameters()) {
-            JsonProperty prop = getAnnotation(param, JsonProperty.class);
+            JsonProperty prop = metadata.getAnnotation(param, JsonProperty.class);
             if (prop != null) {
                 for (JField field : fields) {
                     if (field.getName().equals(prop.value())) {
@@ -730,13 +992,16 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
     }
 
     private JConstructor findCreator(JClassType sourceClazz) {
+        if (metadata.creators.contains(sourceClazz)) {
+            return metadata.creators.get(sourceClazz);
+        }
         for (JConstructor constructor : sourceClazz.getConstructors()) {
-            if (getAnnotation(constructor, JsonCreator.class) != null) {
-                return constructor;
+            if (metadata.getAnnotation(constructor, JsonCreator.class) != null) {
+                return metadata.creators.put(sourceClazz, constructor);
             }
         }
 
-        return null;
+        return metadata.creators.put(sourceClazz, null);
     }
 
     /**
@@ -761,6 +1026,16 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
      *         getter can't be found.
      */
     private String getGetterName(JClassType type, JField field) {
+        TypeMetadataCache.Memo<List<Object>, String> getterNames =
+            javaBeansNamingConventionEnabled ? metadata.javaBeansGetterNames : metadata.getterNames;
+        List<Object> key = Arrays.<Object>asList(type, field);
+        if (getterNames.contains(key)) {
+            return getterNames.get(key);
+        }
+        return getterNames.put(key, findGetterName(type, field));
+    }
+
+    private String findGetterName(JClassType type, JField field) {
         String methodBaseName = getMiddleNameForPrefixingAsAccessorMutator(field.getName());
         String fieldName;
         JType booleanType = null;
@@ -826,16 +1101,21 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
      * @see #isXmlTransient(HasAnnotations)
      */
     private boolean isIgnored(HasAnnotations hasAnnotations) {
-        return isJsonIgnored(hasAnnotations) || isXmlTransient(hasAnnotations);
+        Boolean ignored = metadata.ignored.get(hasAnnotations);
+        if (ignored == null) {
+            ignored = metadata.ignored.put(hasAnnotations,
+                isJsonIgnored(hasAnnotations) || isXmlTransient(hasAnnotations));
+        }
+        return ignored;
     }
 
     /**
      * @param hasAnnotations
      * @return true if hasAnnotations is annotated with @JsonIgnore and its value is true
-     * @see AnnotationUtils#getAnnotation(HasAnnotations, Class)
+     * @see TypeMetadataCache#getAnnotation(HasAnnotations, Class)
      */
     private boolean isJsonIgnored(HasAnnotations hasAnnotations) {
-        return isJsonIgnored(getAnnotation(hasAnnotations, JsonIgnore.class));
+        return isJsonIgnored(metadata.getAnnotation(hasAnnotations, JsonIgnore.class));
     }
 
     /**
@@ -849,10 +1129,10 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
     /**
      * @param hasAnnotations
      * @return true of hasAnnotations is annotated with XmlTransient
-     * @see AnnotationUtils#getAnnotation(HasAnnotations, Class)
+     * @see TypeMetadataCache#getAnnotation(HasAnnotations, Class)
      */
     private boolean isXmlTransient(HasAnnotations hasAnnotations) {
-        return getAnnotation(hasAnnotations, XmlTransient.class) != null;
+        return metadata.getAnnotation(hasAnnotations, XmlTransient.class) != null;
     }
 
     /**
@@ -913,8 +1193,8 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
      * @return
      */
     private JsonProperty getJsonPropertyFromGetterSetter(JMethod getter, JMethod setter) {
-        JsonProperty setterProp = getAnnotation(setter, JsonProperty.class);
-        return (null != setterProp) ? setterProp : getAnnotation(getter, JsonProperty.class);
+        JsonProperty setterProp = metadata.getAnnotation(setter, JsonProperty.class);
+        return (null != setterProp) ? setterProp : metadata.getAnnotation(getter, JsonProperty.class);
     }
 
     /**
@@ -925,6 +1205,14 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
      * @return
      */
     private List<JField> getFields(JClassType type) {
+        List<JField> fields = metadata.fields.get(type);
+        if (fields == null) {
+            fields = metadata.fields.put(type, Collections.unmodifiableList(findFields(type)));
+        }
+        return fields;
+    }
+
+    private List<JField> findFields(JClassType type) {
         List<JField> allFields = getFields(new ArrayList<JField>(), type);
         Map<String, JMethod> getters = new HashMap<String, JMethod>();
         Map<String, JMethod> setters = new HashMap<String, JMethod>();
@@ -983,7 +1271,7 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
                 } else {
                     DummyJField dummy = new DummyJField(name, getter.getReturnType(), getter);
                     if (getter.isAnnotationPresent(JsonProperty.class)) {
-                        dummy.setAnnotation(getAnnotation(getter, JsonProperty.class));
+                        dummy.setAnnotation(metadata.getAnnotation(getter, JsonProperty.class));
                     }
                     allFields.add(dummy);
                 }
@@ -1043,6 +1331,25 @@ public class JsonEncoderDecoderClassCreator extends BaseSourceCreator {
         return !(source.getSubtypes() != null && source.getSubtypes().length > 0);
     }
 
+    /**
+     * A field which gets its value from a json property after the instance got created.
+     */
+    private static class DecodedField {
+        final JField field;
+        final String jsonName;
+        final String setterName;
+        final Style style;
+        final boolean lazy;
+
+        DecodedField(JField field, String jsonName, String setterName, Style style, boolean lazy) {
+            this.field = field;
+            this.jsonName = jsonName;
+            this.setterName = setterName;
+            this.style = style;
+            this.lazy = lazy;
+        }
+    }
+
     public static class Subtype implements Comparable<Subtype> {
         final String tag;
         final JClassType clazz;
@@ -18,8 +18,9 @@
 
 package org.fusesource.restygwt.rebind;
 
-import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.IncrementalGenerator;
+import com.google.gwt.core.ext.RebindResult;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.typeinfo.JClassType;
@@ -28,21 +29,32 @@ import com.google.gwt.core.ext.typeinfo.JClassType;
  *
  * @author <a href="http://hiramchirino.com">Hiram Chirino</a>
  */
-public class JsonEncoderDecoderGenerator extends Generator {
+public class JsonEncoderDecoderGenerator extends IncrementalGenerator {
 
     @Override
-    public String generate(TreeLogger logger, GeneratorContext context, String source)
+    public RebindResult generateIncrementally(TreeLogger logger, GeneratorContext context, String source)
         throws UnableToCompleteException {
+        RebindResult cached = IncrementalGeneration.tryReuseCachedResult(logger, context);
+        if (cached != null) {
+            return cached;
+        }
         try {
+            IncrementalGeneration.begin();
             JClassType type = find(logger, context, source);
             ExtendedJsonEncoderDecoderClassCreator generator =
                 new ExtendedJsonEncoderDecoderClassCreator(logger, context, type);
-            return generator.create();
+            return IncrementalGeneration.newResult(context, generator.create());
         } finally {
+            IncrementalGeneration.end();
             BaseSourceCreator.clearGeneratedClasses();
         }
     }
 
+    @Override
+    public long getVersionId() {
+        return IncrementalGeneration.VERSION_ID;
+    }
+
     static JClassType find(TreeLogger logger, GeneratorContext context, String type) throws UnableToCompleteException {
         JClassType rc = context.getTypeOracle().findType(type);
         if (rc == null) {
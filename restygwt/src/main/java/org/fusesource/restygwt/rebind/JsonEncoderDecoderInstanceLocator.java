@@ -32,6 +32,7 @@ import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.JParameterizedType;
 import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
 import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.json.client.JSONParser;
 import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.xml.client.Document;
 
@@ -50,6 +51,8 @@ import org.fusesource.restygwt.client.AbstractNestedJsonEncoderDecoder;
 import org.fusesource.restygwt.client.Json;
 import org.fusesource.restygwt.client.Json.Style;
 import org.fusesource.restygwt.client.ObjectEncoderDecoder;
+import org.fusesource.restygwt.client.ObjectViewEncoderDecoder;
+import org.fusesource.restygwt.rebind.JsonEncoderDecoderClassCreator.CodecHalves;
 
 /**
  *
@@ -60,8 +63,12 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
     public static final String JSON_ENCODER_DECODER_CLASS = AbstractJsonEncoderDecoder.class.getName();
     public static final String JSON_NESTED_ENCODER_DECODER_CLASS = AbstractNestedJsonEncoderDecoder.class.getName();
     public static final String JSON_CLASS = Json.class.getName();
+    public static final String JSON_PARSER_CLASS = JSONParser.class.getName();
+    public static final String OBJECT_VIEW_CLASS = ObjectViewEncoderDecoder.class.getName();
     public static final String CUSTOM_SERIALIZER_GENERATORS = "org.fusesource.restygwt.restyjsonserializergenerator";
+    public static final String ONLY_REACHABLE_HALVES_PROPERTY = "restygwt.encodeDecode.onlyReachableHalves";
 
+    public final JClassType OBJECT_TYPE;
     public final JClassType STRING_TYPE;
     public final JClassType JSON_VALUE_TYPE;
     public final JClassType DOCUMENT_TYPE;
@@ -76,11 +83,23 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
     public final GeneratorContext context;
     public final TreeLogger logger;
 
+    /**
+     * If set, codecs created for an encode expression only get an encode method and the ones created for a decode
+     * expression only a decode method, along with the codecs of their fields for that direction.
+     */
+    private final boolean onlyReachableHalves;
+
+    /**
+     * The halves needed by the expression which is currently being built.
+     */
+    private CodecHalves reachableHalves = CodecHalves.BOTH;
+
     public JsonEncoderDecoderInstanceLocator(GeneratorContext context, TreeLogger logger)
         throws UnableToCompleteException {
         this.context = context;
         this.logger = logger;
 
+        OBJECT_TYPE = find(Object.class);
         STRING_TYPE = find(String.class);
         JSON_VALUE_TYPE = find(JSONValue.class);
         DOCUMENT_TYPE = find(Document.class);
@@ -89,6 +108,9 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
         LIST_TYPE = find(List.class);
         COLLECTION_TYPE = find(Collection.class);
 
+        onlyReachableHalves = BaseSourceCreator.getBooleanProperty(logger, context.getPropertyOracle(),
+            ONLY_REACHABLE_HALVES_PROPERTY, false);
+
         builtInEncoderDecoders.put(JPrimitiveType.BOOLEAN, JSON_ENCODER_DECODER_CLASS + ".BOOLEAN");
         builtInEncoderDecoders.put(JPrimitiveType.BYTE, JSON_ENCODER_DECODER_CLASS + ".BYTE");
         builtInEncoderDecoders.put(JPrimitiveType.CHAR, JSON_ENCODER_DECODER_CLASS + ".CHAR");
@@ -114,7 +136,7 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
 
         builtInEncoderDecoders.put(find(Date.class), JSON_ENCODER_DECODER_CLASS + ".DATE");
 
-        builtInEncoderDecoders.put(find(Object.class), ObjectEncoderDecoder.class.getName() + ".INSTANCE");
+        builtInEncoderDecoders.put(OBJECT_TYPE, ObjectEncoderDecoder.class.getName() + ".INSTANCE");
 
         fillInCustomGenerators(context, logger);
 
@@ -153,7 +175,8 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
         if (rc == null) {
             JClassType ct = type.isClass() == null ? type.isInterface() : type.isClass();
             if (ct != null && !isCollectionType(ct)) {
-                JsonEncoderDecoderClassCreator generator = new JsonEncoderDecoderClassCreator(logger, context, ct);
+                JsonEncoderDecoderClassCreator generator =
+                    new JsonEncoderDecoderClassCreator(logger, context, ct, reachableHalves);
                 return generator.create() + ".INSTANCE";
             }
         }
@@ -208,9 +231,92 @@ public class JsonEncoderDecoderInstanceLocator implements EncoderDecoderLocator
             JSON_ENCODER_DECODER_CLASS + ".toArray");
     }
 
+    /* (non-Javadoc)
+    * @see org.fusesource.restygwt.rebind.EncoderDecoderLocator#decodeExpression(com.google.gwt.core.ext.typeinfo
+    * .JType, java.lang.String, org.fusesource.restygwt.client.Json.Style, boolean)
+    */
+    @Override
+    public String decodeExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        CodecHalves previous = reachableHalves;
+        reachableHalves = onlyReachableHalves ? CodecHalves.DECODE : CodecHalves.BOTH;
+        try {
+            return lazyDecodeExpression(type, expression, style, lazy);
+        } finally {
+            reachableHalves = previous;
+        }
+    }
+
+    private String lazyDecodeExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        if (lazy) {
+            JClassType clazz = type.isClassOrInterface();
+            if (clazz != null && OBJECT_TYPE.equals(clazz)) {
+                return OBJECT_VIEW_CLASS + ".INSTANCE.decode(" + expression + ")";
+            }
+            // the declared type must be able to hold a JsonMapView, i.e. Map<String, Object>
+            if (clazz != null && MAP_TYPE.getErasedType().equals(clazz.getErasedType())) {
+                JClassType[] types = getTypes(type);
+                if (types.length == 2 && STRING_TYPE.equals(types[0]) && OBJECT_TYPE.equals(types[1])) {
+                    return OBJECT_VIEW_CLASS + ".toMapView(" + expression + ")";
+                }
+            }
+            // the declared type must be able to hold a LazyJsonList, i.e. List or one of its super types
+            if (clazz != null && isCollectionType(clazz) &&
+                LIST_TYPE.getErasedType().isAssignableTo(clazz.getErasedType())) {
+                JClassType[] types = getTypes(type);
+                if (types.length == 1 && OBJECT_TYPE.equals(types[0])) {
+                    return OBJECT_VIEW_CLASS + ".toListView(" + expression + ")";
+                }
+                String encoderDecoder = types.length == 1 ? getNestedEncoderDecoder(types[0], style) : null;
+                if (encoderDecoder != null) {
+                    return JSON_ENCODER_DECODER_CLASS + ".toLazyList(" + expression + ", " + encoderDecoder + ")";
+                }
+            }
+            debug("lazy decoding is not supported for " + type + ", decoding eagerly");
+        }
+        return decodeExpression(type, expression, style);
+    }
+
+    /* (non-Javadoc)
+    * @see org.fusesource.restygwt.rebind.EncoderDecoderLocator#encodeToStringExpression(com.google.gwt.core.ext
+    * .typeinfo.JType, java.lang.String, org.fusesource.restygwt.client.Json.Style)
+    */
+    @Override
+    public String encodeToStringExpression(JType type, String expression, Style style)
+        throws UnableToCompleteException {
+        return encodeExpression(type, expression, style) + ".toString()";
+    }
+
+    /* (non-Javadoc)
+    * @see org.fusesource.restygwt.rebind.EncoderDecoderLocator#decodeFromStringExpression(com.google.gwt.core.ext
+    * .typeinfo.JType, java.lang.String, org.fusesource.restygwt.client.Json.Style, boolean)
+    */
+    @Override
+    public String decodeFromStringExpression(JType type, String expression, Style style, boolean lazy)
+        throws UnableToCompleteException {
+        return decodeExpression(type, JSON_PARSER_CLASS + ".parse(" + expression + ")", style, lazy);
+    }
+
     private String encodeDecodeExpression(JType type, String expression, Style style, String encoderMethod,
                                           String mapMethod, String setMethod, String listMethod, String arrayMethod)
         throws UnableToCompleteException {
+        CodecHalves previous = reachableHalves;
+        if (onlyReachableHalves) {
+            reachableHalves = encoderMethod.equals("encode") ? CodecHalves.ENCODE : CodecHalves.DECODE;
+        }
+        try {
+            return encodeDecodeExpressionForHalves(type, expression, style, encoderMethod, mapMethod, setMethod,
+                listMethod, arrayMethod);
+        } finally {
+            reachableHalves = previous;
+        }
+    }
+
+    private String encodeDecodeExpressionForHalves(JType type, String expression, Style style, String encoderMethod,
+                                                   String mapMethod, String setMethod, String listMethod,
+                                                   String arrayMethod)
+        throws UnableToCompleteException {
 
         String customEncoderDecoder = getCustomEncoderDecoder(type);
         if (customEncoderDecoder != null) {
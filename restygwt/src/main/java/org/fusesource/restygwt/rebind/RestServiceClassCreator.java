@@ -42,7 +42,6 @@ import com.google.gwt.http.client.Request;
 import com.google.gwt.http.client.RequestException;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONObject;
-import com.google.gwt.json.client.JSONParser;
 import com.google.gwt.json.client.JSONString;
 import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.jsonp.client.JsonpRequest;
@@ -78,9 +77,9 @@ import javax.ws.rs.core.MediaType;
 import org.fusesource.restygwt.client.AbstractAsyncCallback;
 import org.fusesource.restygwt.client.AbstractRequestCallback;
 import org.fusesource.restygwt.client.Attribute;
-import org.fusesource.restygwt.client.Defaults;
 import org.fusesource.restygwt.client.Dispatcher;
 import org.fusesource.restygwt.client.FormPostContent;
+import org.fusesource.restygwt.client.Idempotent;
 import org.fusesource.restygwt.client.JSONP;
 import org.fusesource.restygwt.client.Json;
 import org.fusesource.restygwt.client.Json.Style;
@@ -94,9 +93,10 @@ import org.fusesource.restygwt.client.Resource;
 import org.fusesource.restygwt.client.ResponseFormatException;
 import org.fusesource.restygwt.client.RestService;
 import org.fusesource.restygwt.client.RestServiceProxy;
-import org.fusesource.restygwt.client.ServiceRoots;
+import org.fusesource.restygwt.client.SplitPoint;
 import org.fusesource.restygwt.client.TextCallback;
 import org.fusesource.restygwt.client.XmlCallback;
+import org.fusesource.restygwt.client.callback.RetryPolicy;
 
 /**
  *
@@ -109,16 +109,15 @@ import org.fusesource.restygwt.client.XmlCallback;
 public class RestServiceClassCreator extends BaseSourceCreator {
 
     private static final String REST_SERVICE_PROXY_SUFFIX = "_Generated_RestServiceProxy_";
+    private static final String REST_SERVICE_PROXY_IMPL_SUFFIX = "_Generated_RestServiceProxyImpl_";
 
     private static final String PLAIN_TEXT_AUTODETECTION_CONFIGURATION_PROPERTY_NAME = "restygwt.autodetect.plainText";
 
     private static final String METHOD_CLASS = Method.class.getName();
     private static final String RESOURCE_CLASS = Resource.class.getName();
     private static final String DISPATCHER_CLASS = Dispatcher.class.getName();
-    private static final String DEFAULTS_CLASS = Defaults.class.getName();
     private static final String ABSTRACT_REQUEST_CALLBACK_CLASS = AbstractRequestCallback.class.getName();
     private static final String ABSTRACT_ASYNC_CALLBACK_CLASS = AbstractAsyncCallback.class.getName();
-    private static final String JSON_PARSER_CLASS = JSONParser.class.getName();
     private static final String JSON_ARRAY_CLASS = JSONArray.class.getName();
     private static final String JSON_OBJECT_CLASS = JSONObject.class.getName();
     private static final String JSON_VALUE_CLASS = JSONValue.class.getName();
@@ -127,7 +126,6 @@ public class RestServiceClassCreator extends BaseSourceCreator {
     private static final String RESPONSE_FORMAT_EXCEPTION_CLASS = ResponseFormatException.class.getName();
     private static final String JSONP_METHOD_CLASS = JsonpMethod.class.getName();
     private static final String FORM_POST_CONTENT_CLASS = FormPostContent.class.getName();
-    private static final String SERVICE_ROOTS_CLASS = ServiceRoots.class.getName();
 
     /*
      * static class in which are some compile-time relevant infos.
@@ -177,8 +175,31 @@ public class RestServiceClassCreator extends BaseSourceCreator {
 
     private boolean autodetectTypeForStrings;
 
+    /**
+     * True for the implementation which a {@link SplitPoint} proxy loads behind its split point.
+     */
+    private final boolean splitPointImpl;
+
+    private final RestServiceStatements statements = new RestServiceStatements() {
+        @Override
+        protected void println(String line) {
+            p(line);
+        }
+
+        @Override
+        protected void indent(int delta) {
+            i(delta);
+        }
+    };
+
     public RestServiceClassCreator(TreeLogger logger, GeneratorContext context, JClassType source) {
-        super(logger, context, source, REST_SERVICE_PROXY_SUFFIX);
+        this(logger, context, source, false);
+    }
+
+    private RestServiceClassCreator(TreeLogger logger, GeneratorContext context, JClassType source,
+                                    boolean splitPointImpl) {
+        super(logger, context, source, splitPointImpl ? REST_SERVICE_PROXY_IMPL_SUFFIX : REST_SERVICE_PROXY_SUFFIX);
+        this.splitPointImpl = splitPointImpl;
     }
 
     @Override
@@ -259,26 +280,7 @@ public class RestServiceClassCreator extends BaseSourceCreator {
 
         Options options = getAnnotation(source, Options.class);
 
-        p("public " + RESOURCE_CLASS + " getResource() {").i(1);
-        {
-            p("if (this.resource == null) {").i(1);
-
-            if (options != null && options.serviceRootKey() != null && !options.serviceRootKey().isEmpty()) {
-                p("String serviceRoot = " + SERVICE_ROOTS_CLASS + ".get(\"" + options.serviceRootKey() + "\");");
-            } else {
-                p("String serviceRoot = " + DEFAULTS_CLASS + ".getServiceRoot();");
-            }
-
-            if (path == null) {
-                p("this.resource = new " + RESOURCE_CLASS + "(serviceRoot);");
-            } else {
-                p("this.resource = new " + RESOURCE_CLASS + "(serviceRoot).resolve(" + quote(path) + ");");
-            }
-
-            i(-1).p("}");
-            p("return this.resource;");
-        }
-        i(-1).p("}");
+        statements.writeGetResource(options == null ? null : options.serviceRootKey(), path);
 
 
         if (options != null && options.dispatcher() != Dispatcher.class) {
@@ -301,6 +303,11 @@ public class RestServiceClassCreator extends BaseSourceCreator {
         }
         i(-1).p("}");
 
+        if (!splitPointImpl && getAnnotation(source, SplitPoint.class) != null) {
+            writeSplitPointImpl();
+            return;
+        }
+
         for (JMethod method : source.getInheritableMethods()) {
             JClassType iface = method.getReturnType().isInterface();
             if (iface != null && REST_SERVICE_TYPE.isAssignableFrom(iface)) {
@@ -311,6 +318,103 @@ public class RestServiceClassCreator extends BaseSourceCreator {
         }
     }
 
+    /**
+     * Writes the methods of a {@link SplitPoint} proxy. They load the real implementation, which references all the
+     * encoders/decoders, through a single GWT.runAsync call and then delegate to it.
+     */
+    private void writeSplitPointImpl() throws UnableToCompleteException {
+        String implName = new RestServiceClassCreator(getLogger(), context, source, true).create();
+        String serviceType = source.getParameterizedQualifiedSourceName();
+        String callbackType = "com.google.gwt.core.client.Callback<" + serviceType + ", Throwable>";
+
+        String typeArguments = "";
+        if (source instanceof JGenericType) {
+            List<String> names = new ArrayList<String>();
+            for (JTypeParameter arg : ((JGenericType) source).getTypeParameters()) {
+                names.add(arg.getName());
+            }
+            typeArguments = "<" + join(names.toArray(), ",") + ">";
+        }
+
+        p();
+        p("private " + serviceType + " __impl = null;");
+        p();
+        p("private void __load(final " + callbackType + " callback) {").i(1);
+        {
+            p("if (this.__impl != null) {").i(1);
+            {
+                p("__loaded(callback);");
+                p("return;");
+            }
+            i(-1).p("}");
+            p("com.google.gwt.core.client.GWT.runAsync(" + source.getErasedType().getQualifiedSourceName() +
+                ".class, new com.google.gwt.core.client.RunAsyncCallback() {").i(1);
+            {
+                p("public void onSuccess() {").i(1);
+                {
+                    p("if (__impl == null) {").i(1);
+                    {
+                        p("__impl = new " + implName + typeArguments + "();");
+                    }
+                    i(-1).p("}");
+                    p("__loaded(callback);");
+                }
+                i(-1).p("}");
+                p("public void onFailure(Throwable reason) {").i(1);
+                {
+                    p("callback.onFailure(reason);");
+                }
+                i(-1).p("}");
+            }
+            i(-1).p("});");
+        }
+        i(-1).p("}");
+        p();
+        p("private void __loaded(" + callbackType + " callback) {").i(1);
+        {
+            p("((" + RestServiceProxy.class.getName() + ")this.__impl).setResource(getResource());");
+            p("((" + RestServiceProxy.class.getName() + ")this.__impl).setDispatcher(getDispatcher());");
+            p("callback.onSuccess(this.__impl);");
+        }
+        i(-1).p("}");
+
+        for (JMethod method : source.getInheritableMethods()) {
+            if (method.getReturnType() != JPrimitiveType.VOID) {
+                getLogger().log(ERROR, "Invalid rest method. Methods of a service with a split point must have void " +
+                    "return types: " + method.getReadableDeclaration());
+                throw new UnableToCompleteException();
+            }
+            JParameter[] args = method.getParameters();
+            List<String> names = new ArrayList<String>();
+
+            p();
+            p(method.getReadableDeclaration(false, false, false, false, true) + " {").i(1);
+            {
+                for (JParameter arg : args) {
+                    p("final " + arg.getType().getParameterizedQualifiedSourceName() + " final_" + arg.getName() +
+                        " = " + arg.getName() + ";");
+                    names.add("final_" + arg.getName());
+                }
+                p("__load(new " + callbackType + "() {").i(1);
+                {
+                    p("public void onSuccess(" + serviceType + " impl) {").i(1);
+                    {
+                        p("impl." + method.getName() + "(" + join(names.toArray(), ", ") + ");");
+                    }
+                    i(-1).p("}");
+                    p("public void onFailure(Throwable reason) {").i(1);
+                    {
+                        // the implementation checked that the last argument is a MethodCallback
+                        p(names.get(names.size() - 1) + ".onFailure(null, reason);");
+                    }
+                    i(-1).p("}");
+                }
+                i(-1).p("});");
+            }
+            i(-1).p("}");
+        }
+    }
+
     private static String getPathFromSource(HasAnnotations annotatedType) {
         String path = null;
 
@@ -327,11 +431,6 @@ public class RestServiceClassCreator extends BaseSourceCreator {
         return path;
     }
 
-    private String quote(String path) {
-        // TODO: unlikely to occur. but we should escape chars like newlines..
-        return "\"" + path + "\"";
-    }
-
     private boolean isOverlayArrayType(JClassType type) {
         for (JClassType arrayType : OVERLAY_ARRAY_TYPES) {
             if (type.isAssignableTo(arrayType)) {
@@ -432,6 +531,21 @@ public class RestServiceClassCreator extends BaseSourceCreator {
             // Using class level defined value
             p("__method.timeout(" + classOptions.timeout() + ");");
         }
+
+        // configure the deadline and the retry policy
+        long deadline = -1;
+        if (options != null && options.deadline() >= 0) {
+            deadline = options.deadline();
+        } else if (classOptions != null && classOptions.deadline() >= 0) {
+            deadline = classOptions.deadline();
+        }
+        String retryPolicy = null;
+        if (options != null && options.retryPolicy() != RetryPolicy.class) {
+            retryPolicy = options.retryPolicy().getName().replace('$', '.');
+        } else if (classOptions != null && classOptions.retryPolicy() != RetryPolicy.class) {
+            retryPolicy = classOptions.retryPolicy().getName().replace('$', '.');
+        }
+        statements.writeRetryOptions(deadline, retryPolicy);
     }
 
     private void writeMethodImpl(JMethod method, Options classOptions) throws UnableToCompleteException {
@@ -600,6 +714,7 @@ public class RestServiceClassCreator extends BaseSourceCreator {
             }
 
             writeOptions(options, classOptions);
+            statements.writeEndpoint(source.getQualifiedSourceName(), method.getName());
 
             String contentTypeHeaderValue = null;
 
@@ -634,6 +749,11 @@ public class RestServiceClassCreator extends BaseSourceCreator {
                         ");");
                 }
 
+                Idempotent idempotent = findAnnotationOnMethodOrEnclosingType(method, Idempotent.class);
+                if (idempotent != null) {
+                    statements.writeIdempotent(idempotent.header());
+                }
+
                 // and set the explicit headers now (could override the accept header)
                 for (Map.Entry<String, JParameter> entry : headerParams.entrySet()) {
                     String expr = entry.getValue().getName();
@@ -687,9 +807,10 @@ public class RestServiceClassCreator extends BaseSourceCreator {
                     Style style = jsonAnnotation != null ? jsonAnnotation.style() : classStyle;
 
                     // example:
-                    // .json(Listings$_Generated_JsonEncoder_$.INSTANCE.encode(arg0)
+                    // .jsonText(Listings$_Generated_JsonEncoder_$.INSTANCE.encode(arg0).toString()
                     // )
-                    p("__method.json(" + locator.encodeExpression(contentClass, contentArg.getName(), style) + ");");
+                    p("__method.jsonText(" +
+                        locator.encodeToStringExpression(contentClass, contentArg.getName(), style) + ");");
                 }
             }
 
@@ -748,7 +869,8 @@ public class RestServiceClassCreator extends BaseSourceCreator {
                                 }
                                 jsonAnnotation = getAnnotation(method, Json.class);
                                 Style style = jsonAnnotation != null ? jsonAnnotation.style() : classStyle;
-                                p("return " + locator.decodeExpression(resultType, "result", style) + ";");
+                                boolean lazy = jsonAnnotation != null && jsonAnnotation.lazy();
+                                p("return " + locator.decodeExpression(resultType, "result", style, lazy) + ";");
                             }
                             i(-1).p("} catch (Throwable __e) {").i(1);
                             {
@@ -778,8 +900,9 @@ public class RestServiceClassCreator extends BaseSourceCreator {
                                 {
                                     jsonAnnotation = getAnnotation(method, Json.class);
                                     Style style = jsonAnnotation != null ? jsonAnnotation.style() : classStyle;
-                                    p("return " + locator.decodeExpression(resultType,
-                                        JSON_PARSER_CLASS + ".parse(__method.getResponse().getText())", style) + ";");
+                                    boolean lazy = jsonAnnotation != null && jsonAnnotation.lazy();
+                                    p("return " + locator.decodeFromStringExpression(resultType,
+                                        "__method.getResponse().getText()", style, lazy) + ";");
                                 }
                                 i(-1).p("} catch (Throwable __e) {").i(1);
                                 {
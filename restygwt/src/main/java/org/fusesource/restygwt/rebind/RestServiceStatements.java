@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+/**
+ * Writes the parts of a rest service proxy which the {@link RestServiceClassCreator} and the annotation processor of
+ * restygwt-apt have in common, so a new {@code Method} option is emitted in one place for both of them.
+ * <p>
+ * The annotation values are passed in as plain strings and numbers, since the deferred binding generator reads them
+ * through the type oracle and the annotation processor through javax.lang.model. For the same reason this class
+ * must not load any GWT or restygwt client class.
+ */
+public abstract class RestServiceStatements {
+
+    private static final String CLIENT_PACKAGE = "org.fusesource.restygwt.client.";
+    private static final String RESOURCE_CLASS = CLIENT_PACKAGE + "Resource";
+    private static final String DEFAULTS_CLASS = CLIENT_PACKAGE + "Defaults";
+    private static final String SERVICE_ROOTS_CLASS = CLIENT_PACKAGE + "ServiceRoots";
+
+    protected abstract void println(String line);
+
+    protected abstract void indent(int delta);
+
+    /**
+     * Writes the {@code getResource()} method of the proxy. Services with a service root key which has several
+     * endpoints resolve the resource for every call, so each one can go to another endpoint.
+     *
+     * @param serviceRootKey the {@code @Options(serviceRootKey)} of the service, null or empty for the default
+     *        service root
+     * @param path the {@code @Path} of the service or null
+     */
+    public void writeGetResource(String serviceRootKey, String path) {
+        boolean keyed = serviceRootKey != null && !serviceRootKey.isEmpty();
+        println("public " + RESOURCE_CLASS + " getResource() {");
+        indent(1);
+        println("if (this.resource == null) {");
+        indent(1);
+        if (keyed) {
+            println("String serviceRoot = " + SERVICE_ROOTS_CLASS + ".get(" + quote(serviceRootKey) + ");");
+        } else {
+            println("String serviceRoot = " + DEFAULTS_CLASS + ".getServiceRoot();");
+        }
+        String resource = "new " + RESOURCE_CLASS + "(serviceRoot)";
+        if (path != null) {
+            resource += ".resolve(" + quote(path) + ")";
+        }
+        if (keyed) {
+            println("if (" + SERVICE_ROOTS_CLASS + ".isBalanced(" + quote(serviceRootKey) + ")) {");
+            indent(1);
+            println("// every call picks one of the endpoints");
+            println("return " + resource + ";");
+            indent(-1);
+            println("}");
+        }
+        println("this.resource = " + resource + ";");
+        indent(-1);
+        println("}");
+        println("return this.resource;");
+        indent(-1);
+        println("}");
+    }
+
+    /**
+     * Configures how long {@code __method} may take over all its attempts and how it retries them.
+     *
+     * @param deadline the {@code @Options(deadline)} in milliseconds, negative for none
+     * @param retryPolicyClass the qualified source name of the {@code @Options(retryPolicy)}, null for none
+     */
+    public void writeRetryOptions(long deadline, String retryPolicyClass) {
+        if (deadline >= 0) {
+            println("__method.deadline(" + deadline + ");");
+        }
+        if (retryPolicyClass != null) {
+            println("__method.retryPolicy(" + retryPolicyClass + ".INSTANCE);");
+        }
+    }
+
+    /**
+     * Names {@code __method} after the rest method, the key under which dispatcher filters keep per method state.
+     */
+    public void writeEndpoint(String serviceName, String methodName) {
+        println("__method.endpoint(" + quote(serviceName + "." + methodName) + ");");
+    }
+
+    /**
+     * Marks {@code __method} as safe to retry, sending the same idempotency key in the given header with every
+     * attempt.
+     */
+    public void writeIdempotent(String header) {
+        println("__method.idempotent(" + quote(header) + ");");
+    }
+
+    /**
+     * @return the given value as a java string literal
+     */
+    public static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
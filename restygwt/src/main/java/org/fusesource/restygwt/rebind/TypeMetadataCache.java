@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.typeinfo.HasAnnotations;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JConstructor;
+import com.google.gwt.core.ext.typeinfo.JField;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fusesource.restygwt.rebind.util.AnnotationUtils;
+
+/**
+ * Remembers what the generators find out about DTO types, so it is not looked up again per subtype and per encode
+ * and decode method of one rebind: the serializable fields, getter names, {@code @JsonCreator} constructors, whether
+ * something is ignored, the {@link JsonSubTypes} closure and annotations.
+ * <p>
+ * Sharing is limited to one rebind, i.e. one generator run for one service or one encoder/decoder interface, with
+ * the encoders and decoders it generates along. {@link BaseSourceCreator#clearGeneratedClasses()} drops the instance
+ * at the end of every run, so two services referencing the same types look them up once each. That keeps neither the
+ * {@link TypeOracle} nor metadata of types which changed before the next Super Dev Mode recompile beyond the run.
+ */
+public final class TypeMetadataCache {
+
+    private static final ThreadLocal<TypeMetadataCache> CURRENT = new ThreadLocal<TypeMetadataCache>();
+
+    public final Memo<JClassType, List<JField>> fields = new Memo<JClassType, List<JField>>();
+    /**
+     * keyed by {@code [type, field]}
+     */
+    public final Memo<List<Object>, String> getterNames = new Memo<List<Object>, String>();
+    /**
+     * getter names following the naming convention of the JavaBeans API specification, keyed by
+     * {@code [type, field]}
+     */
+    public final Memo<List<Object>, String> javaBeansGetterNames = new Memo<List<Object>, String>();
+    public final Memo<JClassType, JConstructor> creators = new Memo<JClassType, JConstructor>();
+    public final Memo<HasAnnotations, Boolean> ignored = new Memo<HasAnnotations, Boolean>();
+    public final Memo<JClassType, Collection<JsonSubTypes.Type>> jsonSubTypes =
+        new Memo<JClassType, Collection<JsonSubTypes.Type>>();
+
+    private final TypeOracle typeOracle;
+    private final Map<HasAnnotations, Map<Class<?>, Annotation>> annotations =
+        new HashMap<HasAnnotations, Map<Class<?>, Annotation>>();
+
+    private TypeMetadataCache(TypeOracle typeOracle) {
+        this.typeOracle = typeOracle;
+    }
+
+    /**
+     * @return the cache of the current generator run for the type oracle of the given context
+     */
+    public static TypeMetadataCache get(GeneratorContext context) {
+        TypeOracle typeOracle = context == null ? null : context.getTypeOracle();
+        TypeMetadataCache current = CURRENT.get();
+        if (current == null || current.typeOracle != typeOracle) {
+            current = new TypeMetadataCache(typeOracle);
+            CURRENT.set(current);
+        }
+        return current;
+    }
+
+    /**
+     * Drops everything remembered so far, the next lookup starts from scratch.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Same as {@link AnnotationUtils#getAnnotation(HasAnnotations, Class)}, but remembers the result.
+     */
+    public synchronized <T extends Annotation> T getAnnotation(HasAnnotations element, Class<T> annotationType) {
+        Map<Class<?>, Annotation> found = annotations.get(element);
+        if (found == null) {
+            found = new HashMap<Class<?>, Annotation>();
+            annotations.put(element, found);
+        }
+        if (!found.containsKey(annotationType)) {
+            found.put(annotationType, AnnotationUtils.getAnnotation(element, annotationType));
+        }
+        return annotationType.cast(found.get(annotationType));
+    }
+
+    /**
+     * Remembered values by key, null values included.
+     */
+    public static final class Memo<K, V> {
+
+        private final Map<K, V> values = new HashMap<K, V>();
+
+        public synchronized boolean contains(K key) {
+            return values.containsKey(key);
+        }
+
+        public synchronized V get(K key) {
+            return values.get(key);
+        }
+
+        /**
+         * @return the given value
+         */
+        public synchronized V put(K key, V value) {
+            values.put(key, value);
+            return value;
+        }
+    }
+}
@@ -28,11 +28,13 @@ import org.fusesource.restygwt.client.basic.BasicTestGwt;
 import org.fusesource.restygwt.client.basic.CacheCallbackTestGwt;
 import org.fusesource.restygwt.client.basic.CachingTestGwt;
 import org.fusesource.restygwt.client.basic.ConfiguredServiceTestGwt;
+import org.fusesource.restygwt.client.basic.DeadlineTestGwt;
 import org.fusesource.restygwt.client.basic.DirectRestServiceTestGwt;
 import org.fusesource.restygwt.client.basic.FailingTestGwt;
 import org.fusesource.restygwt.client.basic.FlakyTestGwt;
 import org.fusesource.restygwt.client.basic.FormParamTestGwt;
 import org.fusesource.restygwt.client.basic.GenericsTestGwt;
+import org.fusesource.restygwt.client.basic.IdempotentTestGwt;
 import org.fusesource.restygwt.client.basic.JsonCreatorWithBoolean;
 import org.fusesource.restygwt.client.basic.JsonCreatorWithSubtypes;
 import org.fusesource.restygwt.client.basic.JsonpTestGwt;
@@ -93,7 +95,9 @@ public class GwtCompleteTestSuite extends TestCase {
         suite.addTestSuite(JsonIgnoreEncoderTestGwt.class);
 
         suite.addTestSuite(FlakyTestGwt.class);
+        suite.addTestSuite(IdempotentTestGwt.class);
         suite.addTestSuite(TimeoutTestGwt.class);
+        suite.addTestSuite(DeadlineTestGwt.class);
         suite.addTestSuite(CachingTestGwt.class);
         suite.addTestSuite(ResourceTestGwt.class);
         suite.addTestSuite(ResourcePassesHeadersTestGwt.class);
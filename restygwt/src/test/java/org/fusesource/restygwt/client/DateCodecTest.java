@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+public class DateCodecTest extends TestCase {
+
+    public void testParseIso8601() {
+        assertEquals(0L, DateCodec.parseIso8601("1970-01-01T00:00:00.000+0000").getTime());
+        assertEquals(0L, DateCodec.parseIso8601("1970-01-01T00:00:00.000Z").getTime());
+        assertEquals(0L, DateCodec.parseIso8601("1970-01-01T01:00:00.000+01").getTime());
+        assertEquals(0L, DateCodec.parseIso8601("1970-01-01T02:30:00.000+02:30").getTime());
+        assertEquals(0L, DateCodec.parseIso8601("1969-12-31T16:00:00.000-0800").getTime());
+
+        assertEquals(951782400123L, DateCodec.parseIso8601("2000-02-29T00:00:00.123+0000").getTime());
+        assertEquals(-2208988800000L, DateCodec.parseIso8601("1900-01-01T00:00:00.000+0000").getTime());
+        // lenient like DateTimeFormat: the 30th of february rolls over into march
+        assertEquals(DateCodec.parseIso8601("2001-03-02T00:00:00.000+0000").getTime(),
+            DateCodec.parseIso8601("2001-02-30T00:00:00.000+0000").getTime());
+    }
+
+    public void testParseIso8601RejectsOtherShapes() {
+        assertNull(DateCodec.parseIso8601("1970-01-01"));
+        assertNull(DateCodec.parseIso8601("1970-01-01T00:00:00+0000"));
+        assertNull(DateCodec.parseIso8601("1970-01-01T00:00:00.000"));
+        assertNull(DateCodec.parseIso8601("1970-13-01T00:00:00.000+0000"));
+        assertNull(DateCodec.parseIso8601("1970-01-01T00:00:00.000+00:0"));
+        assertNull(DateCodec.parseIso8601("1970-01-01T00:00:00.000 GMT"));
+        assertNull(DateCodec.parseIso8601("197O-01-01T00:00:00.000+0000"));
+    }
+
+    public void testFormatIso8601MatchesPattern() {
+        SimpleDateFormat format = new SimpleDateFormat(DateCodec.ISO_8601_FORMAT);
+        long[] times = { 0L, 1L, -1L, 951782400123L, 1234567890999L, -2208988800000L };
+        for (long time : times) {
+            Date date = new Date(time);
+            assertEquals(format.format(date), DateCodec.formatIso8601(date));
+        }
+    }
+
+    public void testRoundTrip() {
+        long[] times = { 0L, 1L, -1L, 951782400123L, 1234567890999L };
+        for (long time : times) {
+            Date date = new Date(time);
+            assertEquals(time, DateCodec.parseIso8601(DateCodec.formatIso8601(date)).getTime());
+        }
+    }
+}
@@ -67,6 +67,30 @@ public class BasicTestGwt extends GWTTestCase {
         delayTestFinish(10000);
     }
 
+    public void testSplitPoint() {
+        Resource resource = new Resource(GWT.getModuleBaseURL() + "api/getendpoint");
+
+        SplitPointService service = GWT.create(SplitPointService.class);
+        ((RestServiceProxy) service).setResource(resource);
+        assertSame(resource, ((RestServiceProxy) service).getResource());
+
+        service.getExampleDto(new MethodCallback<ExampleDto>() {
+
+            @Override
+            public void onSuccess(Method method, ExampleDto response) {
+                assertEquals(response.name, "myName");
+                finishTest();
+            }
+
+            @Override
+            public void onFailure(Method method, Throwable exception) {
+                fail();
+            }
+        });
+
+        delayTestFinish(10000);
+    }
+
     @Test
     public void testCancelRequest() {
         Resource resource = new Resource(GWT.getModuleBaseURL() + "api/getendpoint");
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.basic;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import org.fusesource.restygwt.client.DeadlineExceededException;
+import org.fusesource.restygwt.client.Defaults;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.MethodCallback;
+import org.fusesource.restygwt.client.Resource;
+import org.fusesource.restygwt.client.RestServiceProxy;
+import org.fusesource.restygwt.client.callback.BackoffRetryPolicy;
+import org.fusesource.restygwt.client.callback.ExceptionRetryClassifier;
+import org.fusesource.restygwt.client.callback.RetryingCallbackFactory;
+import org.fusesource.restygwt.client.callback.StatusCodeRetryClassifier;
+import org.fusesource.restygwt.client.dispatcher.DefaultDispatcher;
+import org.fusesource.restygwt.client.dispatcher.DefaultDispatcherFilter;
+import org.fusesource.restygwt.client.dispatcher.DefaultFilterawareDispatcher;
+
+/**
+ * the server never answers in time, every attempt times out after 500ms and gets retried until the deadline of 2s
+ * of the whole call leaves no time for another attempt: the attempts time out after 500, 1100 and 1800ms and the
+ * retry delay of 200ms would pass the deadline.
+ */
+public class DeadlineTestGwt extends GWTTestCase {
+
+    @Override
+    public String getModuleName() {
+        return "org.fusesource.restygwt.TimeoutTestGwt";
+    }
+
+    @Override
+    public void gwtSetUp() {
+        BackoffRetryPolicy policy = new BackoffRetryPolicy(100, 100, 200, BackoffRetryPolicy.Jitter.NONE,
+            StatusCodeRetryClassifier.INSTANCE, ExceptionRetryClassifier.INSTANCE);
+        Defaults.setDispatcher(
+            new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(new RetryingCallbackFactory(policy))));
+    }
+
+    @Override
+    public void gwtTearDown() {
+        Defaults.setDispatcher(DefaultDispatcher.INSTANCE);
+    }
+
+    public void testDeadlineSpansRetries() {
+        DeadlineService service = GWT.create(DeadlineService.class);
+        ((RestServiceProxy) service).setResource(new Resource(GWT.getModuleBaseURL() + "api/getendpoint"));
+
+        final long start = System.currentTimeMillis();
+        service.getExampleDto(new MethodCallback<ExampleDto>() {
+            @Override
+            public void onSuccess(Method method, ExampleDto response) {
+                fail("the server should not answer within the deadline");
+            }
+
+            @Override
+            public void onFailure(Method method, Throwable exception) {
+                long elapsed = System.currentTimeMillis() - start;
+                assertTrue(exception.toString(), exception instanceof DeadlineExceededException);
+                assertEquals(2000, ((DeadlineExceededException) exception).getDeadlineMillis());
+                assertTrue("took " + elapsed + "ms", elapsed >= 1700 && elapsed < 2500);
+                finishTest();
+            }
+        });
+
+        delayTestFinish(10000);
+    }
+}
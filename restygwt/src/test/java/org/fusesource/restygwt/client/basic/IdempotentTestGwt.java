@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.basic;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import org.fusesource.restygwt.client.Defaults;
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.MethodCallback;
+import org.fusesource.restygwt.client.Resource;
+import org.fusesource.restygwt.client.RestServiceProxy;
+import org.fusesource.restygwt.client.callback.BackoffRetryPolicy;
+import org.fusesource.restygwt.client.callback.ExceptionRetryClassifier;
+import org.fusesource.restygwt.client.callback.RetryingCallbackFactory;
+import org.fusesource.restygwt.client.callback.StatusCodeRetryClassifier;
+import org.fusesource.restygwt.client.dispatcher.DefaultDispatcher;
+import org.fusesource.restygwt.client.dispatcher.DefaultDispatcherFilter;
+import org.fusesource.restygwt.client.dispatcher.DefaultFilterawareDispatcher;
+
+/**
+ * the server loses the first response of every POST. the retry has to carry the same idempotency key to get the
+ * stored response instead of creating the resource a second time, a new invocation gets a new key.
+ */
+public class IdempotentTestGwt extends GWTTestCase {
+
+    private IdempotentService service;
+
+    @Override
+    public String getModuleName() {
+        return "org.fusesource.restygwt.IdempotentTestGwt";
+    }
+
+    @Override
+    public void gwtSetUp() {
+        BackoffRetryPolicy policy = new BackoffRetryPolicy(3, 100, 1000, BackoffRetryPolicy.Jitter.NONE,
+            StatusCodeRetryClassifier.INSTANCE, ExceptionRetryClassifier.INSTANCE);
+        Defaults.setDispatcher(
+            new DefaultFilterawareDispatcher(new DefaultDispatcherFilter(new RetryingCallbackFactory(policy))));
+
+        service = GWT.create(IdempotentService.class);
+        ((RestServiceProxy) service).setResource(new Resource(GWT.getModuleBaseURL() + "api/owners"));
+    }
+
+    @Override
+    public void gwtTearDown() {
+        Defaults.setDispatcher(DefaultDispatcher.INSTANCE);
+    }
+
+    public void testRetryReplaysTheCreation() {
+        service.create(new ExampleDto(), new MethodCallback<ExampleDto>() {
+            @Override
+            public void onSuccess(Method method, ExampleDto first) {
+                assertEquals("created-1", first.name);
+                assertEquals("true", method.getResponse().getHeader("Idempotent-Replayed"));
+
+                service.create(new ExampleDto(), new MethodCallback<ExampleDto>() {
+                    @Override
+                    public void onSuccess(Method method, ExampleDto second) {
+                        assertEquals("created-2", second.name);
+                        finishTest();
+                    }
+
+                    @Override
+                    public void onFailure(Method method, Throwable exception) {
+                        fail(exception.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Method method, Throwable exception) {
+                fail(exception.getMessage());
+            }
+        });
+
+        delayTestFinish(10000);
+    }
+}
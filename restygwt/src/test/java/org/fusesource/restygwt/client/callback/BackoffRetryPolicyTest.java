@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.callback;
+
+import com.google.gwt.http.client.Header;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.RequestTimeoutException;
+import com.google.gwt.http.client.Response;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.callback.BackoffRetryPolicy.Jitter;
+
+public class BackoffRetryPolicyTest extends TestCase {
+
+    private static BackoffRetryPolicy policy(Jitter jitter, final double random) {
+        return new BackoffRetryPolicy(5, 100, 1000, jitter) {
+            @Override
+            protected double random() {
+                return random;
+            }
+        };
+    }
+
+    public void testExponentialDelayIsCapped() {
+        BackoffRetryPolicy policy = policy(Jitter.NONE, 0.5);
+        assertEquals(100, policy.getBackoffDelay(0, 0));
+        assertEquals(200, policy.getBackoffDelay(1, 100));
+        assertEquals(800, policy.getBackoffDelay(3, 400));
+        assertEquals(1000, policy.getBackoffDelay(4, 800));
+        assertEquals(1000, policy.getBackoffDelay(40, 1000));
+    }
+
+    public void testFullJitter() {
+        assertEquals(0, policy(Jitter.FULL, 0).getBackoffDelay(3, 0));
+        assertEquals(400, policy(Jitter.FULL, 0.5).getBackoffDelay(3, 0));
+        assertEquals(500, policy(Jitter.FULL, 0.5).getBackoffDelay(10, 0));
+    }
+
+    public void testDecorrelatedJitter() {
+        // between the base delay and three times the previous delay
+        assertEquals(100, policy(Jitter.DECORRELATED, 0).getBackoffDelay(0, 0));
+        assertEquals(200, policy(Jitter.DECORRELATED, 0.5).getBackoffDelay(0, 0));
+        assertEquals(350, policy(Jitter.DECORRELATED, 0.5).getBackoffDelay(1, 200));
+        assertEquals(1000, policy(Jitter.DECORRELATED, 0.9).getBackoffDelay(2, 900));
+    }
+
+    public void testRetryAfter() {
+        assertEquals(-1, BackoffRetryPolicy.getRetryAfter(null, 0));
+        assertEquals(-1, BackoffRetryPolicy.getRetryAfter(" ", 0));
+        assertEquals(120000, BackoffRetryPolicy.getRetryAfter("120", 0));
+        assertEquals(0, BackoffRetryPolicy.getRetryAfter("0", 0));
+        assertEquals(-1, BackoffRetryPolicy.getRetryAfter("12a", 0));
+        assertEquals(-1, BackoffRetryPolicy.getRetryAfter("soon", 0));
+
+        long now = 784111777000L - 5000;
+        assertEquals(5000, BackoffRetryPolicy.getRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now));
+        assertEquals(0, BackoffRetryPolicy.getRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now + 60000));
+    }
+
+    public void testStatusCodeClassifier() {
+        assertTrue(StatusCodeRetryClassifier.INSTANCE.isRetryable(null, response(503), null));
+        assertTrue(StatusCodeRetryClassifier.INSTANCE.isRetryable(null, response(0), null));
+        assertFalse(StatusCodeRetryClassifier.INSTANCE.isRetryable(null, response(404), null));
+        assertFalse(StatusCodeRetryClassifier.INSTANCE.isRetryable(null, null, new RequestException()));
+        assertTrue(new StatusCodeRetryClassifier(404).isRetryable(null, response(404), null));
+    }
+
+    public void testLegacyStatusCodeClassifier() {
+        StatusCodeRetryClassifier classifier = StatusCodeRetryClassifier.ALL_BUT_REDIRECTS_AND_NOT_FOUND;
+        assertTrue(classifier.isRetryable(null, response(500), null));
+        assertTrue(classifier.isRetryable(null, response(501), null));
+        assertTrue(classifier.isRetryable(null, response(0), null));
+        assertFalse(classifier.isRetryable(null, response(302), null));
+        assertFalse(classifier.isRetryable(null, response(404), null));
+        assertFalse(classifier.isRetryable(null, null, new RequestTimeoutException(null, 100)));
+    }
+
+    public void testExceptionClassifier() {
+        RequestTimeoutException timeout = new RequestTimeoutException(null, 100);
+        assertTrue(ExceptionRetryClassifier.INSTANCE.isRetryable(null, null, timeout));
+        assertFalse(ExceptionRetryClassifier.INSTANCE.isRetryable(null, null, new RequestException()));
+        assertFalse(ExceptionRetryClassifier.INSTANCE.isRetryable(null, response(503), null));
+        // subclasses count as well
+        assertTrue(new ExceptionRetryClassifier(RequestException.class).isRetryable(null, null, timeout));
+    }
+
+    private static Response response(final int statusCode) {
+        return new Response() {
+            @Override
+            public String getHeader(String header) {
+                return null;
+            }
+
+            @Override
+            public Header[] getHeaders() {
+                return new Header[0];
+            }
+
+            @Override
+            public String getHeadersAsString() {
+                return "";
+            }
+
+            @Override
+            public int getStatusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "";
+            }
+
+            @Override
+            public String getText() {
+                return "";
+            }
+        };
+    }
+}
@@ -52,8 +52,12 @@ import org.fusesource.restygwt.client.AbstractNestedJsonEncoderDecoder;
 import org.fusesource.restygwt.client.Defaults;
 import org.fusesource.restygwt.client.Json;
 import org.fusesource.restygwt.client.JsonEncoderDecoder;
+import org.fusesource.restygwt.client.JsonListView;
+import org.fusesource.restygwt.client.JsonMapView;
+import org.fusesource.restygwt.client.LazyJsonList;
 import org.fusesource.restygwt.client.MethodCallback;
 import org.fusesource.restygwt.client.ObjectEncoderDecoder;
+import org.fusesource.restygwt.client.ObjectViewEncoderDecoder;
 import org.fusesource.restygwt.client.RestService;
 import org.fusesource.restygwt.client.basic.Optional;
 import org.fusesource.restygwt.client.codec.EncoderDecoderTestGwt.WithEnum.Cycle;
@@ -316,6 +320,17 @@ public class EncoderDecoderTestGwt extends GWTTestCase {
         assertEquals(b.age, bRoundTrip.age);
     }
 
+    public void testBigIntegerDecode() {
+        AbstractJsonEncoderDecoder<BigInteger> encoder = AbstractJsonEncoderDecoder.BIG_INTEGER;
+        assertEquals(new BigInteger("-1234567890123456789012345678901234567890"),
+            encoder.decode(new JSONString("-1234567890123456789012345678901234567890")));
+        assertEquals(new BigInteger("12000"), encoder.decode(new JSONString("1.2E4")));
+        assertEquals(BigInteger.valueOf(42), encoder.decode(new JSONNumber(42)));
+        assertEquals(new BigInteger("1000000000000000000000"), encoder.decode(new JSONNumber(1e21)));
+        assertEquals(BigInteger.valueOf(5), encoder.decode(new JSONString("+5")));
+        assertEquals(5L, AbstractJsonEncoderDecoder.LONG.decode(new JSONString("+5")).longValue());
+    }
+
     public void testObjectEncoderDecoder() {
         {
             double value = Math.random() * 10000;
@@ -351,6 +366,67 @@ public class EncoderDecoderTestGwt extends GWTTestCase {
 
     }
 
+    public void testObjectViewEncoderDecoder() {
+        JSONValue json = JSONParser.parseStrict(
+            "{\"name\":\"fred\",\"shoeSize\":12,\"tags\":[\"geek\",{\"a\":null}],\"pet\":{\"name\":\"dino\"}}");
+        Object decoded = ObjectViewEncoderDecoder.INSTANCE.decode(json);
+        assertTrue(decoded instanceof JsonMapView);
+
+        JsonMapView view = (JsonMapView) decoded;
+        assertEquals(4, view.size());
+        assertEquals("fred", view.get("name"));
+        assertEquals(12.0, view.get("shoeSize"));
+        assertNull(view.get("unknown"));
+        assertTrue(view.get("pet") instanceof JsonMapView);
+        assertSame(view.get("pet"), view.get("pet"));
+        assertTrue(view.get("tags") instanceof JsonListView);
+        assertTrue(((List<?>) view.get("tags")).get(1) instanceof Map);
+        assertTrue(((Map<?, ?>) ((List<?>) view.get("tags")).get(1)).containsKey("a"));
+
+        try {
+            view.put("name", "barney");
+            fail("views are read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        Map<String, Object> copy = view.copy();
+        assertFalse(copy instanceof JsonMapView);
+        assertEquals(ObjectEncoderDecoder.INSTANCE.decode(json), copy);
+        assertEquals(copy, view);
+        copy.put("name", "barney");
+        assertEquals("fred", view.get("name"));
+
+        assertSame(json, ObjectEncoderDecoder.INSTANCE.encode(view));
+    }
+
+    static class WithPropertiesView {
+
+        @Json(lazy = true)
+        public Map<String, Object> properties;
+
+        @Json(lazy = true)
+        public List<Object> values;
+    }
+
+    interface WithPropertiesViewCodec extends JsonEncoderDecoder<WithPropertiesView> {
+    }
+
+    public void testObjectViewFields() {
+        WithPropertiesViewCodec codec = GWT.create(WithPropertiesViewCodec.class);
+        WithPropertiesView decoded =
+            codec.decode(JSONParser.parseStrict("{\"properties\":{\"a\":1,\"b\":[true]},\"values\":[\"x\"]}"));
+
+        assertTrue(decoded.properties instanceof JsonMapView);
+        assertEquals(1.0, decoded.properties.get("a"));
+        assertTrue(decoded.values instanceof JsonListView);
+        assertEquals("x", decoded.values.get(0));
+
+        WithPropertiesView empty = codec.decode(JSONParser.parseStrict("{}"));
+        assertNull(empty.properties);
+        assertNull(empty.values);
+    }
+
     public void testIntegerToStringDecode() {
         Integer i = 123;
         assertEquals(i.toString(), AbstractJsonEncoderDecoder.STRING.decode(AbstractJsonEncoderDecoder.INT.encode(i)));
@@ -838,6 +914,29 @@ public class EncoderDecoderTestGwt extends GWTTestCase {
         assertEquals(roundTrip.getId(), 9007199254741115L);
     }
 
+    public void testSuperlongLongsEncodedAsString() {
+        ShortyCodec shortyCodec = GWT.create(ShortyCodec.class);
+        Shorty shorty = new Shorty();
+        shorty.id = 9007199254741115L;// = 2^53 + 123;
+
+        Defaults.setLongsAsStrings(true);
+        try {
+            JSONValue json = shortyCodec.encode(shorty);
+            assertEquals("{\"shorty\":0, \"id\":\"9007199254741115\"}", json.toString());
+            Shorty roundTrip = shortyCodec.decode(json);
+            assertEquals(roundTrip.getId(), 9007199254741115L);
+
+            long[] array = { 9007199254741115L, -1 };
+            AbstractJsonEncoderDecoder<Long> encoder = AbstractJsonEncoderDecoder.LONG;
+            JSONValue arrayJson = AbstractJsonEncoderDecoder.toJSON(array, encoder);
+            assertEquals("[\"9007199254741115\",\"-1\"]", arrayJson.toString());
+            assertEquals(Arrays.toString(array),
+                Arrays.toString(AbstractJsonEncoderDecoder.toArray(arrayJson, encoder, new long[2])));
+        } finally {
+            Defaults.setLongsAsStrings(false);
+        }
+    }
+
     static class Bean {
 
         @JsonIgnore
@@ -1025,6 +1124,16 @@ public class EncoderDecoderTestGwt extends GWTTestCase {
         assertEquals(roundTrip.lang, Language.FRENCH);
     }
 
+    public void testEnumAndJsonValueWithUnknownValue() {
+        LangRequestCodec codec = GWT.create(LangRequestCodec.class);
+        try {
+            codec.decode(JSONParser.parseStrict("{\"lang\":\"FRENCH\"}"));
+            fail("the constant name is not the json value");
+        } catch (JsonEncoderDecoder.DecodingException e) {
+            assertEquals("can not find enum for given value: FRENCH", e.getMessage());
+        }
+    }
+
     static class WithEnum {
 
         enum Cycle { BEGIN, LIFE, END }
@@ -1068,6 +1177,118 @@ public class EncoderDecoderTestGwt extends GWTTestCase {
         assertEquals(roundTrip.getLast(), null);
     }
 
+    static class WithLazyList {
+
+        @Json(lazy = true)
+        public List<LangRequest> requests;
+
+        public List<LangRequest> eagerRequests;
+    }
+
+    interface WithLazyListCodec extends JsonEncoderDecoder<WithLazyList> {
+    }
+
+    public void testLazyList() {
+        WithLazyListCodec codec = GWT.create(WithLazyListCodec.class);
+        WithLazyList roundTrip = codec.decode(JSONParser.parseStrict(
+            "{\"requests\":[{\"lang\":\"en\"},{\"lang\":\"fr\"}], \"eagerRequests\":[{\"lang\":\"en\"}]}"));
+
+        assertFalse(roundTrip.eagerRequests instanceof LazyJsonList);
+        assertEquals(Language.ENGLISH, roundTrip.eagerRequests.get(0).lang);
+
+        assertTrue(roundTrip.requests instanceof LazyJsonList);
+        LazyJsonList<LangRequest> lazy = (LazyJsonList<LangRequest>) roundTrip.requests;
+        assertEquals(2, lazy.size());
+        assertFalse(lazy.isDecoded(0));
+        assertFalse(lazy.isDecoded(1));
+
+        LangRequest second = lazy.get(1);
+        assertEquals(Language.FRENCH, second.lang);
+        assertFalse(lazy.isDecoded(0));
+        assertTrue(lazy.isDecoded(1));
+        assertSame(second, lazy.get(1));
+
+        JSONValue json = codec.encode(roundTrip);
+        assertEquals("[{\"lang\":\"en\"},{\"lang\":\"fr\"}]", json.isObject().get("requests").toString());
+    }
+
+    static class Wide {
+        public String f01;
+        public String f02;
+        public String f03;
+        public String f04;
+        public String f05;
+        public String f06;
+        public String f07;
+        public String f08;
+        public String f09;
+        public String f10;
+        public String f11;
+        public String f12;
+        public String f13;
+        public String f14;
+        public int count;
+        public short small;
+        public List<String> tags;
+        @JsonProperty("renamed")
+        public String original;
+        private String initialized = "initial";
+
+        public String getInitialized() {
+            return initialized;
+        }
+
+        public void setInitialized(String initialized) {
+            this.initialized = initialized;
+        }
+    }
+
+    interface WideCodec extends JsonEncoderDecoder<Wide> {
+    }
+
+    static class Narrow {
+        public String name;
+        private String initialized = "initial";
+
+        public String getInitialized() {
+            return initialized;
+        }
+
+        public void setInitialized(String initialized) {
+            this.initialized = initialized;
+        }
+    }
+
+    interface NarrowCodec extends JsonEncoderDecoder<Narrow> {
+    }
+
+    public void testSparseWideObject() {
+        WideCodec codec = GWT.create(WideCodec.class);
+        Wide sparse = codec.decode(JSONParser.parseStrict(
+            "{\"f13\":\"thirteen\", \"count\":3, \"renamed\":\"name\", \"unknown\":true, \"tags\":[\"a\"]}"));
+
+        assertEquals("thirteen", sparse.f13);
+        assertEquals(3, sparse.count);
+        assertEquals("name", sparse.original);
+        assertEquals(Arrays.asList("a"), sparse.tags);
+        assertNull(sparse.f01);
+        assertNull(sparse.f14);
+        assertEquals(0, sparse.small);
+        // missing keys reset the property like the per field lookup of a narrow class does
+        assertNull(sparse.getInitialized());
+        NarrowCodec narrowCodec = GWT.create(NarrowCodec.class);
+        assertNull(narrowCodec.decode(JSONParser.parseStrict("{\"name\":\"name\"}")).getInitialized());
+
+        Wide full = new Wide();
+        full.f01 = "one";
+        full.small = 2;
+        Wide roundTrip = codec.decode(codec.encode(full));
+        assertEquals("one", roundTrip.f01);
+        assertEquals(2, roundTrip.small);
+        assertNull(roundTrip.f02);
+        assertEquals("initial", roundTrip.getInitialized());
+    }
+
     static class WithOptionalPrimitive {
         public Optional<Integer> bar;
     }
@@ -224,4 +224,31 @@ public class PolymorphicEncoderDecoderTestGwt extends GWTTestCase {
         A obj = codec.decode(json);
     }
 
+    static class UnlistedSubOfB extends B {
+    }
+
+    public void testEncodeDispatchesToMostSpecificType() {
+        IdNamePolymorphicCodec codec = GWT.create(IdNamePolymorphicCodec.class);
+
+        B b = new B();
+        b.setCode("code");
+        b.setDesc("desc");
+        JSONValue json = codec.encode(b);
+        assertEquals("\"B\"", json.isObject().get("@class").toString());
+        assertEquals("\"desc\"", json.isObject().get("desc").toString());
+
+        A a = new A();
+        a.setCode("code");
+        json = codec.encode(a);
+        assertEquals("\"A\"", json.isObject().get("@class").toString());
+        assertNull(json.isObject().get("desc"));
+
+        // classes which are not a listed sub type get encoded like their closest listed super type
+        UnlistedSubOfB sub = new UnlistedSubOfB();
+        sub.setDesc("sub");
+        json = codec.encode(sub);
+        assertEquals("\"B\"", json.isObject().get("@class").toString());
+        assertEquals("\"sub\"", json.isObject().get("desc").toString());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestTimeoutException;
+import com.google.gwt.http.client.Response;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+
+public class AdaptiveTimeoutDispatcherFilterTest extends TestCase {
+
+    private static final RequestCallback NOOP = new RequestCallback() {
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+        }
+    };
+
+    private long time;
+
+    private final AdaptiveTimeoutDispatcherFilter filter = new AdaptiveTimeoutDispatcherFilter(0.99, 3, 100, 5000) {
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    };
+
+    public void testKeepsTimeoutUntilEnoughSamples() {
+        for (int i = 1; i < AdaptiveTimeoutDispatcherFilter.MIN_SAMPLES; i++) {
+            filter.record("pets", 200);
+        }
+        assertEquals(0, filter.getTimeout("pets"));
+        assertEquals(30000, send(endpoint("pets", false)).getTimeoutMillis());
+
+        filter.record("pets", 200);
+        assertEquals(600, filter.getTimeout("pets"));
+        assertEquals(600, send(endpoint("pets", false)).getTimeoutMillis());
+        assertEquals(30000, send(endpoint("owners", false)).getTimeoutMillis());
+    }
+
+    public void testExplicitTimeoutWins() {
+        for (int i = 0; i < 100; i++) {
+            filter.record("pets", 200);
+        }
+        assertEquals(30000, send(endpoint("pets", true)).getTimeoutMillis());
+        assertEquals(30000, send(endpoint(null, false)).getTimeoutMillis());
+    }
+
+    public void testBounds() {
+        for (int i = 0; i < 100; i++) {
+            filter.record("fast", 1);
+            filter.record("slow", 10000);
+        }
+        assertEquals(100, filter.getTimeout("fast"));
+        assertEquals(5000, filter.getTimeout("slow"));
+    }
+
+    public void testRecordsFirstAttempt() {
+        for (int i = 0; i < AdaptiveTimeoutDispatcherFilter.MIN_SAMPLES; i++) {
+            time = 0;
+            RequestBuilder builder = send(endpoint("pets", false));
+            time = 50;
+            builder.getCallback().onResponseReceived(null, null);
+            time = 500;
+            builder.getCallback().onResponseReceived(null, null);
+        }
+        assertEquals(50, filter.getLatency("pets"), 0.001);
+        assertEquals(150, filter.getTimeout("pets"));
+
+        for (int i = 0; i < 100; i++) {
+            RequestBuilder builder = send(endpoint("pets", false));
+            builder.getCallback().onError(null, new RequestTimeoutException(null, builder.getTimeoutMillis()));
+        }
+        assertEquals(5000, filter.getTimeout("pets"));
+    }
+
+    public void testFollowsDrift() {
+        for (int i = 0; i < AdaptiveTimeoutDispatcherFilter.WINDOW; i++) {
+            filter.record("pets", 1000);
+        }
+        assertEquals(3000, filter.getTimeout("pets"));
+        for (int i = 0; i < AdaptiveTimeoutDispatcherFilter.MIN_SAMPLES; i++) {
+            filter.record("pets", 100);
+        }
+        assertEquals(300, filter.getTimeout("pets"));
+    }
+
+    private RequestBuilder send(Method method) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, "pets");
+        builder.setTimeoutMillis(30000);
+        builder.setCallback(NOOP);
+        assertTrue(filter.filter(method, builder));
+        return builder;
+    }
+
+    private static Method endpoint(final String endpoint, final boolean explicitTimeout) {
+        return new Method() {
+
+            @Override
+            public String getEndpoint() {
+                return endpoint;
+            }
+
+            @Override
+            public boolean hasExplicitTimeout() {
+                return explicitTimeout;
+            }
+        };
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.cache.Domain;
+import org.fusesource.restygwt.client.dispatcher.BulkheadDispatcherFilter.Overflow;
+
+public class BulkheadDispatcherFilterTest extends TestCase {
+
+    private static final String REPORT = "com.example.Report";
+    private static final String ORDER = "com.example.Order";
+
+    private final List<String> sent = new ArrayList<String>();
+    private final List<String> failed = new ArrayList<String>();
+
+    private long time;
+
+    private BulkheadDispatcherFilter filter(Overflow overflow) {
+        // one request in flight and one waiting per domain
+        return new BulkheadDispatcherFilter(1, 1, overflow) {
+
+            @Override
+            protected void reject(RequestCallback callback, BulkheadFullException exception) {
+                callback.onError(null, exception);
+            }
+
+            @Override
+            protected long now() {
+                return time;
+            }
+        };
+    }
+
+    public void testQueuesUntilSlotIsFree() {
+        BulkheadDispatcherFilter filter = filter(Overflow.REJECT);
+        RequestBuilder first = builder("1", 0);
+        assertTrue(filter.filter(method(REPORT), first));
+        assertFalse(filter.filter(method(REPORT), builder("2", 0)));
+        assertEquals(1, filter.getInFlight(REPORT));
+        assertEquals(1, filter.getQueueLength(REPORT));
+
+        // another domain has slots of its own
+        assertTrue(filter.filter(method(ORDER), builder("3", 0)));
+        // services without a domain are not limited
+        assertTrue(filter.filter(method(), builder("4", 0)));
+        assertTrue(filter.filter(method(), builder("5", 0)));
+
+        first.getCallback().onResponseReceived(null, null);
+        assertEquals("[2]", sent.toString());
+        assertEquals(1, filter.getInFlight(REPORT));
+        assertEquals(0, filter.getQueueLength(REPORT));
+    }
+
+    public void testRejects() {
+        BulkheadDispatcherFilter filter = filter(Overflow.REJECT);
+        assertTrue(filter.filter(method(REPORT), builder("1", 0)));
+        assertFalse(filter.filter(method(REPORT), builder("2", 0)));
+        assertFalse(filter.filter(method(REPORT), builder("3", 0)));
+        assertEquals("[3]", failed.toString());
+        assertEquals(1, filter.getQueueLength(REPORT));
+    }
+
+    public void testDropsOldest() {
+        BulkheadDispatcherFilter filter = filter(Overflow.DROP_OLDEST);
+        RequestBuilder first = builder("1", 0);
+        assertTrue(filter.filter(method(REPORT), first));
+        assertFalse(filter.filter(method(REPORT), builder("2", 0)));
+        assertFalse(filter.filter(method(REPORT), builder("3", 0)));
+        assertEquals("[2]", failed.toString());
+
+        first.getCallback().onError(null, new RuntimeException());
+        assertEquals("[3]", sent.toString());
+    }
+
+    public void testLimitPerDomain() {
+        BulkheadDispatcherFilter filter = filter(Overflow.REJECT);
+        filter.setLimit(ORDER, 3, 0);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(filter.filter(method(REPORT, ORDER), builder("order" + i, 0)));
+        }
+        assertFalse(filter.filter(method(ORDER), builder("order3", 0)));
+        assertEquals("[order3]", failed.toString());
+        assertEquals(3, filter.getInFlight(ORDER));
+        assertEquals(0, filter.getInFlight(REPORT));
+    }
+
+    public void testReclaimsSlotsOfCancelledRequests() {
+        BulkheadDispatcherFilter filter = filter(Overflow.REJECT);
+        assertTrue(filter.filter(method(REPORT), builder("1", 1000)));
+        time = 1000;
+        assertFalse(filter.filter(method(REPORT), builder("2", 1000)));
+        time = 1001;
+        assertFalse(filter.filter(method(REPORT), builder("3", 1000)));
+        assertEquals("[2]", sent.toString());
+        assertEquals(1, filter.getInFlight(REPORT));
+        assertEquals(1, filter.getQueueLength(REPORT));
+    }
+
+    public void testSendsQueuedRequestsThroughSendingFilter() throws Exception {
+        BulkheadDispatcherFilter filter = filter(Overflow.REJECT);
+        final List<String> hedged = new ArrayList<String>();
+        SendingDispatcherFilter hedging = new SendingDispatcherFilter() {
+
+            @Override
+            public boolean filter(Method method, RequestBuilder builder) {
+                return true;
+            }
+
+            @Override
+            public Request send(Method method, RequestBuilder builder) {
+                hedged.add(builder.getUrl());
+                return null;
+            }
+        };
+        DefaultFilterawareDispatcher dispatcher = new DefaultFilterawareDispatcher(filter, hedging);
+        Method second = method(REPORT);
+        second.setDispatcher(dispatcher);
+        RequestBuilder first = builder("1", 0);
+        dispatcher.send(method(REPORT), first);
+        dispatcher.send(second, builder("2", 0));
+        assertEquals(1, filter.getQueueLength(REPORT));
+
+        first.getCallback().onResponseReceived(null, null);
+        assertEquals("[http://example.com/1, http://example.com/2]", hedged.toString());
+        assertEquals("[]", sent.toString());
+    }
+
+    private static Method method(String... domains) {
+        Method method = new Method() {
+        };
+        if (domains.length > 0) {
+            StringBuilder value = new StringBuilder("[");
+            for (String domain : domains) {
+                value.append(value.length() > 1 ? "," : "").append('"').append(domain).append('"');
+            }
+            method.addData(Domain.CACHE_DOMAIN_KEY, value.append(']').toString());
+        }
+        return method;
+    }
+
+    private RequestBuilder builder(final String name, int timeoutMillis) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, "http://example.com/" + name) {
+
+            @Override
+            public Request send() {
+                sent.add(name);
+                return null;
+            }
+        };
+        builder.setTimeoutMillis(timeoutMillis);
+        builder.setCallback(new RequestCallback() {
+
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                if (exception instanceof BulkheadFullException) {
+                    failed.add(name);
+                }
+            }
+        });
+        return builder;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.dispatcher.CircuitBreaker.State;
+
+public class CircuitBreakerTest extends TestCase {
+
+    private final List<String> changes = new ArrayList<String>();
+
+    // 50% of at least 4 calls in 1s, slow above 100ms, open for 500ms, 2 probes
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("root/", 0.5, 100, 4, 1000, 500, 2) {
+        @Override
+        protected void onStateChange(State from, State to) {
+            changes.add(from + "->" + to);
+        }
+    };
+
+    public void testOpensAtFailureRate() {
+        circuitBreaker.record(0, 10, false);
+        circuitBreaker.record(10, 10, true);
+        circuitBreaker.record(20, 10, false);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.record(30, 10, true);
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest(40));
+        assertEquals(490, circuitBreaker.getRemainingOpenMillis(40));
+    }
+
+    public void testNeedsMinimumCalls() {
+        circuitBreaker.record(0, 10, true);
+        circuitBreaker.record(10, 10, true);
+        circuitBreaker.record(20, 10, true);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(1.0, circuitBreaker.getFailureRate(20), 0.001);
+    }
+
+    public void testSlowCallsAreFailures() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(i, 150, false);
+        }
+        assertEquals(State.OPEN, circuitBreaker.getState());
+    }
+
+    public void testOldCallsLeaveTheWindow() {
+        circuitBreaker.record(0, 10, true);
+        circuitBreaker.record(10, 10, true);
+        circuitBreaker.record(1500, 20, false);
+        circuitBreaker.record(1510, 40, false);
+        circuitBreaker.record(1520, 30, true);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(1.0 / 3, circuitBreaker.getFailureRate(1520), 0.001);
+        assertEquals(30, circuitBreaker.getAverageLatency(1520));
+    }
+
+    public void testHalfOpenProbesClose() {
+        open();
+        assertTrue(circuitBreaker.allowRequest(600));
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowRequest(610));
+        assertFalse(circuitBreaker.allowRequest(620));
+        circuitBreaker.record(650, 10, false);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.record(660, 10, false);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(0.0, circuitBreaker.getFailureRate(660), 0.001);
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", changes.toString());
+    }
+
+    public void testForgetsUnreportedProbes() {
+        open();
+        assertTrue(circuitBreaker.allowRequest(600, 100));
+        assertTrue(circuitBreaker.allowRequest(610, 100));
+        circuitBreaker.record(660, 60, false);
+        // the second probe got cancelled and never reports back
+        assertFalse(circuitBreaker.allowRequest(700, 100));
+        assertTrue(circuitBreaker.allowRequest(710, 100));
+        assertFalse(circuitBreaker.allowRequest(720, 100));
+        circuitBreaker.record(730, 20, false);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+    }
+
+    public void testFailedProbeOpensAgain() {
+        open();
+        assertTrue(circuitBreaker.allowRequest(600));
+        circuitBreaker.record(650, 10, true);
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest(1100));
+        assertTrue(circuitBreaker.allowRequest(1150));
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->OPEN, OPEN->HALF_OPEN]", changes.toString());
+    }
+
+    public void testOrigin() {
+        assertEquals("http://host:8080/", CircuitBreakerDispatcherFilter.getOrigin("http://host:8080/api/x?y=z"));
+        assertEquals("https://host/", CircuitBreakerDispatcherFilter.getOrigin("https://host"));
+        assertEquals("", CircuitBreakerDispatcherFilter.getOrigin("api/x"));
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(i * 10, 10, true);
+        }
+        assertEquals(State.OPEN, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+
+public class HedgingDispatcherFilterTest extends TestCase {
+
+    private final List<Response> responses = new ArrayList<Response>();
+
+    private final RequestCallback callback = new RequestCallback() {
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            fail(exception.toString());
+        }
+    };
+
+    private Timer timer;
+    private long time;
+
+    public void testConfiguredDelayUntilEnoughSamples() {
+        HedgingDispatcherFilter filter = new HedgingDispatcherFilter(300, 5, true);
+        for (int i = 1; i < HedgingDispatcherFilter.MIN_SAMPLES; i++) {
+            filter.recordLatency("pets", 10);
+        }
+        assertEquals(300, filter.getHedgeDelay("pets"));
+        filter.recordLatency("pets", 10);
+        assertEquals(10, filter.getHedgeDelay("pets"));
+        assertEquals(300, filter.getHedgeDelay("owners"));
+    }
+
+    public void testDelayFollowsPercentile() {
+        HedgingDispatcherFilter filter = new HedgingDispatcherFilter(300, 5, true);
+        for (int i = 1; i <= 1000; i++) {
+            filter.recordLatency("pets", i % 100);
+        }
+        assertEquals(95, filter.getHedgeDelay("pets"), 3);
+    }
+
+    public void testWithoutLatencyTracking() {
+        HedgingDispatcherFilter filter = new HedgingDispatcherFilter(300, 5, false);
+        for (int i = 0; i < 100; i++) {
+            filter.recordLatency("pets", 10);
+        }
+        assertEquals(300, filter.getHedgeDelay("pets"));
+    }
+
+    public void testBudget() {
+        HedgingDispatcherFilter filter = new HedgingDispatcherFilter(300, 10, true);
+        assertFalse(filter.acquireHedge());
+        int hedges = 0;
+        for (int i = 0; i < 1000; i++) {
+            filter.countRequest();
+            if (filter.acquireHedge()) {
+                hedges++;
+            }
+        }
+        assertEquals(100, hedges);
+        assertEquals(100, filter.getHedgeCount());
+        assertEquals(1000, filter.getRequestCount());
+    }
+
+    public void testFirstResponseWins() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.GET);
+        Request request = filter.send(new Method() {
+        }, builder);
+        assertEquals(1, builder.attempts.size());
+        assertTrue(request.isPending());
+
+        time = 300;
+        timer.run();
+        assertEquals(2, builder.attempts.size());
+        assertEquals(1, filter.getHedgeCount());
+
+        Response second = response(200);
+        builder.attempts.get(1).callback.onResponseReceived(null, second);
+        assertEquals(1, responses.size());
+        assertSame(second, responses.get(0));
+        assertFalse(request.isPending());
+
+        // the losing request got cancelled and a late response of it is dropped
+        assertTrue(builder.attempts.get(0).cancelled);
+        assertFalse(builder.attempts.get(1).cancelled);
+        builder.attempts.get(0).callback.onResponseReceived(null, response(200));
+        assertEquals(1, responses.size());
+    }
+
+    public void testNoHedgeAfterResponse() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.GET);
+        filter.send(new Method() {
+        }, builder);
+        builder.attempts.get(0).callback.onResponseReceived(null, response(200));
+
+        timer.run();
+        assertEquals(1, builder.attempts.size());
+        assertEquals(0, filter.getHedgeCount());
+        assertEquals(1, responses.size());
+    }
+
+    public void testNetworkFailureLeavesAnswerToOtherRequest() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.GET);
+        filter.send(new Method() {
+        }, builder);
+        timer.run();
+
+        builder.attempts.get(0).callback.onResponseReceived(null, response(0));
+        assertTrue(responses.isEmpty());
+        assertFalse(builder.attempts.get(1).cancelled);
+
+        builder.attempts.get(1).callback.onResponseReceived(null, response(200));
+        assertEquals(1, responses.size());
+        assertEquals(200, responses.get(0).getStatusCode());
+    }
+
+    public void testNetworkFailureOfAllRequests() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.GET);
+        filter.send(new Method() {
+        }, builder);
+        timer.run();
+
+        builder.attempts.get(1).callback.onResponseReceived(null, response(0));
+        builder.attempts.get(0).callback.onResponseReceived(null, response(0));
+        assertEquals(1, responses.size());
+        assertEquals(0, responses.get(0).getStatusCode());
+    }
+
+    public void testCancelCancelsAllRequests() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.GET);
+        Request request = filter.send(new Method() {
+        }, builder);
+        timer.run();
+
+        request.cancel();
+        assertTrue(builder.attempts.get(0).cancelled);
+        assertTrue(builder.attempts.get(1).cancelled);
+        assertFalse(request.isPending());
+    }
+
+    public void testSendsOtherMethodsOnce() throws RequestException {
+        HedgingDispatcherFilter filter = filter();
+        StubBuilder builder = new StubBuilder(RequestBuilder.POST);
+        filter.send(new Method() {
+        }, builder);
+        assertEquals(1, builder.sent);
+        assertTrue(builder.attempts.isEmpty());
+        assertNull(timer);
+    }
+
+    public void testBudgetSavesUpOnlyFewHedges() {
+        HedgingDispatcherFilter filter = new HedgingDispatcherFilter(300, 10, true);
+        for (int i = 0; i < 1000; i++) {
+            filter.countRequest();
+        }
+        int hedges = 0;
+        while (filter.acquireHedge()) {
+            hedges++;
+        }
+        assertEquals(HedgingDispatcherFilter.MAX_HEDGES, hedges);
+    }
+
+    /**
+     * hedges after 300ms, every request may be hedged
+     */
+    private HedgingDispatcherFilter filter() {
+        return new HedgingDispatcherFilter(300, 100, true) {
+
+            @Override
+            protected long now() {
+                return time;
+            }
+
+            @Override
+            protected void schedule(Timer timer, int delayMillis) {
+                assertEquals(300, delayMillis);
+                HedgingDispatcherFilterTest.this.timer = timer;
+            }
+        };
+    }
+
+    private class StubBuilder extends RequestBuilder {
+
+        private final List<StubRequest> attempts = new ArrayList<StubRequest>();
+        private int sent;
+
+        StubBuilder(RequestBuilder.Method method) {
+            super(method, "http://example.com/pets?name=rex");
+            setCallback(callback);
+        }
+
+        @Override
+        public Request send() {
+            sent++;
+            return new StubRequest(getCallback());
+        }
+
+        @Override
+        public Request sendRequest(String requestData, RequestCallback callback) {
+            StubRequest request = new StubRequest(callback);
+            attempts.add(request);
+            return request;
+        }
+    }
+
+    private static class StubRequest extends Request {
+
+        private final RequestCallback callback;
+        private boolean cancelled;
+
+        StubRequest(RequestCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static Response response(final int status) {
+        return new Response() {
+
+            @Override
+            public String getHeader(String header) {
+                return null;
+            }
+
+            @Override
+            public com.google.gwt.http.client.Header[] getHeaders() {
+                return new com.google.gwt.http.client.Header[0];
+            }
+
+            @Override
+            public String getHeadersAsString() {
+                return "";
+            }
+
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "";
+            }
+
+            @Override
+            public String getText() {
+                return "";
+            }
+        };
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.ServiceRoots;
+import org.fusesource.restygwt.client.dispatcher.LoadBalancingDispatcherFilter.Strategy;
+
+public class LoadBalancingDispatcherFilterTest extends TestCase {
+
+    private static final String EU = "http://eu.example.com/api/";
+    private static final String US = "http://us.example.com/api/";
+    private static final String ASIA = "http://asia.example.com/api/";
+
+    private static final RequestCallback NOOP = new RequestCallback() {
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+        }
+    };
+
+    private final LinkedList<Double> randoms = new LinkedList<Double>();
+
+    private long time;
+
+    @Override
+    protected void setUp() throws Exception {
+        ServiceRoots.addEndpoints("edge", EU, US, ASIA);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ServiceRoots.setBalancer(null);
+    }
+
+    private LoadBalancingDispatcherFilter filter(Strategy strategy) {
+        // ejecting for one second after two failures
+        LoadBalancingDispatcherFilter filter = new LoadBalancingDispatcherFilter(strategy, 2, 1000) {
+
+            @Override
+            protected double random() {
+                return randoms.removeFirst();
+            }
+
+            @Override
+            protected long now() {
+                return time;
+            }
+        };
+        ServiceRoots.setBalancer(filter);
+        return filter;
+    }
+
+    public void testServiceRoots() {
+        assertTrue(ServiceRoots.isBalanced("edge"));
+        assertEquals(Arrays.asList(EU, US, ASIA), ServiceRoots.getEndpoints("edge"));
+        // the first endpoint without a balancer
+        assertEquals(EU, ServiceRoots.get("edge"));
+        assertEquals(US, ServiceRoots.find(US + "pets/1"));
+
+        ServiceRoots.add("single", "http://example.com/api");
+        assertFalse(ServiceRoots.isBalanced("single"));
+        assertEquals("http://example.com/api/", ServiceRoots.get("single"));
+
+        ServiceRoots.add("none", null);
+        assertNull(ServiceRoots.get("none"));
+    }
+
+    public void testRoundRobin() {
+        filter(Strategy.ROUND_ROBIN);
+        assertEquals(EU, ServiceRoots.get("edge"));
+        assertEquals(US, ServiceRoots.get("edge"));
+        assertEquals(ASIA, ServiceRoots.get("edge"));
+        assertEquals(EU, ServiceRoots.get("edge"));
+    }
+
+    public void testLeastOutstanding() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.LEAST_OUTSTANDING);
+        RequestBuilder eu = send(filter, ServiceRoots.get("edge"));
+        assertEquals(EU, eu.getUrl());
+        assertEquals(US, send(filter, ServiceRoots.get("edge")).getUrl());
+        assertEquals(ASIA, send(filter, ServiceRoots.get("edge")).getUrl());
+        assertEquals(1, filter.getOutstanding(EU));
+
+        eu.getCallback().onResponseReceived(null, response(200));
+        assertEquals(0, filter.getOutstanding(EU));
+        assertEquals(EU, ServiceRoots.get("edge"));
+    }
+
+    public void testReclaimsCancelledCalls() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.LEAST_OUTSTANDING);
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, ServiceRoots.get("edge"));
+        builder.setTimeoutMillis(500);
+        builder.setCallback(NOOP);
+        assertTrue(filter.filter(new Method() {
+        }, builder));
+        assertEquals(1, filter.getOutstanding(EU));
+
+        // cancelled, the callback never gets called
+        time = 501;
+        assertEquals(0, filter.getOutstanding(EU));
+    }
+
+    public void testPowerOfTwoChoices() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.POWER_OF_TWO_CHOICES);
+        complete(send(filter, EU), 10, 200);
+        complete(send(filter, US), 100, 200);
+        complete(send(filter, ASIA), 1000, 200);
+
+        // EU against US and US against ASIA
+        randoms.addAll(Arrays.asList(0.0, 0.0, 0.5, 0.0));
+        assertEquals(EU, ServiceRoots.get("edge"));
+        assertEquals(US, ServiceRoots.get("edge"));
+
+        // calls in flight make EU look slower than US
+        for (int i = 0; i < 10; i++) {
+            send(filter, EU);
+        }
+        randoms.addAll(Arrays.asList(0.0, 0.0));
+        assertEquals(US, ServiceRoots.get("edge"));
+    }
+
+    public void testEjectsFailingEndpoint() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.ROUND_ROBIN);
+        ServiceRoots.get("edge");
+        complete(send(filter, EU), 10, 503);
+        assertFalse(filter.isEjected(EU));
+        RequestBuilder builder = send(filter, EU);
+        builder.getCallback().onError(null, new RuntimeException());
+        assertTrue(filter.isEjected(EU));
+        // a retry of the same call does not count again as completed
+        builder.getCallback().onResponseReceived(null, response(200));
+        assertEquals(0, filter.getOutstanding(EU));
+
+        for (int i = 0; i < 6; i++) {
+            assertFalse(EU.equals(ServiceRoots.get("edge")));
+        }
+        time = 1010;
+        assertFalse(filter.isEjected(EU));
+    }
+
+    public void testUsesAllEndpointsWhenAllAreEjected() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.ROUND_ROBIN);
+        ServiceRoots.get("edge");
+        for (String url : Arrays.asList(EU, US, ASIA)) {
+            complete(send(filter, url), 10, 0);
+            complete(send(filter, url), 10, 0);
+            assertTrue(filter.isEjected(url));
+        }
+        assertEquals(US, ServiceRoots.get("edge"));
+    }
+
+    public void testIgnoresOtherUrls() {
+        LoadBalancingDispatcherFilter filter = filter(Strategy.ROUND_ROBIN);
+        RequestBuilder builder = send(filter, "http://example.com/other/");
+        assertTrue(builder.getCallback() == NOOP);
+    }
+
+    private RequestBuilder send(LoadBalancingDispatcherFilter filter, String url) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url);
+        builder.setCallback(NOOP);
+        assertTrue(filter.filter(new Method() {
+        }, builder));
+        return builder;
+    }
+
+    private void complete(RequestBuilder builder, long latency, int status) {
+        time += latency;
+        builder.getCallback().onResponseReceived(null, response(status));
+    }
+
+    private static Response response(final int status) {
+        return new Response() {
+
+            @Override
+            public String getHeader(String header) {
+                return null;
+            }
+
+            @Override
+            public com.google.gwt.http.client.Header[] getHeaders() {
+                return new com.google.gwt.http.client.Header[0];
+            }
+
+            @Override
+            public String getHeadersAsString() {
+                return "";
+            }
+
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "";
+            }
+
+            @Override
+            public String getText() {
+                return "";
+            }
+        };
+    }
+}
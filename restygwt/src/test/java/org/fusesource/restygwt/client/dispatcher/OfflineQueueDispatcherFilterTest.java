@@ -0,0 +1,308 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Header;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+
+public class OfflineQueueDispatcherFilterTest extends TestCase {
+
+    private final VolatileOfflineQueueStorage storage = new VolatileOfflineQueueStorage();
+
+    private final TestFilter filter = new TestFilter(storage);
+
+    public void testPassesGetRequests() {
+        filter.navigatorOnline = false;
+        assertTrue(filter.filter(new Method() {}, new RequestBuilder(RequestBuilder.GET, "pets")));
+        assertEquals(0, filter.getQueueLength());
+    }
+
+    public void testQueuesWhileNavigatorIsOffline() {
+        filter.navigatorOnline = false;
+        RecordingCallback callback = new RecordingCallback();
+        assertFalse(filter.filter(new Method() {}, builder("pets/1", callback)));
+        filter.time += 300;
+        assertEquals(1, filter.getQueueLength());
+        assertEquals(300, filter.getQueueAge());
+        assertEquals(0, filter.sent.size());
+        assertEquals(1, stored().size());
+
+        filter.navigatorOnline = true;
+        filter.resume();
+        assertEquals(1, filter.sent.size());
+        assertEquals("{\"name\":\"pets/1\"}", filter.sent.get(0).getBody());
+        filter.respond(0, 201);
+        assertEquals(Collections.singletonList(201), callback.statuses);
+        assertEquals(0, filter.getQueueLength());
+        assertEquals(0, stored().size());
+    }
+
+    public void testQueuesAfterNetworkError() {
+        RecordingCallback first = new RecordingCallback();
+        RequestBuilder builder = builder("pets/1", first);
+        assertTrue(filter.filter(new Method() {}, builder));
+        RecordingCallback second = new RecordingCallback();
+        assertTrue(filter.filter(new Method() {}, builder("pets/2", second)));
+
+        // the first request fails with a network error, the second one gets queued behind it
+        filter.navigatorOnline = false;
+        builder.getCallback().onResponseReceived(null, response(0));
+        assertFalse(filter.isOnline());
+        assertEquals(Collections.singletonList(5000), filter.probes);
+        RecordingCallback third = new RecordingCallback();
+        assertFalse(filter.filter(new Method() {}, builder("pets/3", third)));
+        assertEquals(2, filter.getQueueLength());
+        assertEquals(0, filter.sent.size());
+
+        // the probe finds the browser still offline
+        filter.probe();
+        assertEquals(Arrays.asList(5000, 10000), filter.probes);
+        assertEquals(0, filter.sent.size());
+
+        // the replay fails as the connection got lost again
+        filter.navigatorOnline = true;
+        filter.probe();
+        filter.navigatorOnline = false;
+        filter.respond(0, 0);
+        assertEquals(Arrays.asList(5000, 10000, 20000), filter.probes);
+        assertEquals(2, filter.getQueueLength());
+
+        filter.navigatorOnline = true;
+        filter.resume();
+        filter.respond(1, 200);
+        assertEquals("pets/1", filter.sent.get(1).getUrl());
+        assertEquals(Collections.singletonList(200), first.statuses);
+        assertEquals("pets/3", filter.sent.get(2).getUrl());
+        filter.respond(2, 409);
+        assertEquals(Collections.singletonList(409), third.statuses);
+        assertEquals(0, filter.getQueueLength());
+        assertTrue(filter.isOnline());
+        assertTrue(second.statuses.isEmpty());
+    }
+
+    public void testPassesStatusZeroWhileNavigatorIsOnline() {
+        RecordingCallback callback = new RecordingCallback();
+        RequestBuilder builder = builder("pets/1", callback);
+        assertTrue(filter.filter(new Method() {}, builder));
+
+        // e.g. a refused cross origin request
+        builder.getCallback().onResponseReceived(null, response(0));
+        assertEquals(Collections.singletonList(0), callback.statuses);
+        assertTrue(filter.isOnline());
+        assertEquals(0, filter.getQueueLength());
+        assertTrue(filter.probes.isEmpty());
+    }
+
+    public void testLimitsProbes() {
+        filter.navigatorOnline = false;
+        assertFalse(filter.filter(new Method() {}, builder("pets/1", new RecordingCallback())));
+        filter.navigatorOnline = true;
+        filter.resume();
+        filter.navigatorOnline = false;
+        filter.respond(0, 0);
+        for (int i = 0; i < 5; i++) {
+            filter.probe();
+        }
+        assertEquals(Arrays.asList(5000, 10000, 20000), filter.probes);
+
+        // the online event starts over
+        filter.navigatorOnline = true;
+        filter.resume();
+        filter.navigatorOnline = false;
+        filter.respond(1, 0);
+        assertEquals(Arrays.asList(5000, 10000, 20000, 5000), filter.probes);
+    }
+
+    public void testHoldsStoredRequestsUntilConfirmed() {
+        storage.add(new QueuedRequest(2, 0, "PUT", "pets/2", Collections.<String, String>emptyMap(), null, null));
+        storage.add(new QueuedRequest(1, 0, "DELETE", "pets/1", Collections.<String, String>emptyMap(), null, null));
+        TestFilter reloaded = new TestFilter(storage);
+        assertEquals(2, reloaded.getStoredRequests().size());
+        assertEquals(0, reloaded.getQueueLength());
+
+        // new requests do not wait for the stored ones
+        RecordingCallback callback = new RecordingCallback();
+        RequestBuilder builder = builder("pets/3", callback);
+        assertTrue(reloaded.filter(new Method() {}, builder));
+        assertEquals(0, reloaded.sent.size());
+
+        reloaded.replayStoredRequests();
+        assertEquals(0, reloaded.getStoredRequests().size());
+        assertEquals("pets/1", reloaded.sent.get(0).getUrl());
+        reloaded.respond(0, 204);
+        assertEquals("pets/2", reloaded.sent.get(1).getUrl());
+        reloaded.respond(1, 200);
+        assertEquals(0, stored().size());
+    }
+
+    public void testDiscardsStoredRequests() {
+        storage.add(new QueuedRequest(1, 0, "DELETE", "pets/1", Collections.<String, String>emptyMap(), null, null));
+        TestFilter reloaded = new TestFilter(storage);
+        reloaded.discardStoredRequests();
+        assertEquals(0, reloaded.getStoredRequests().size());
+        assertEquals(0, reloaded.sent.size());
+        assertEquals(0, stored().size());
+    }
+
+    public void testDoesNotPersistCredentials() {
+        filter.navigatorOnline = false;
+        assertFalse(filter.filter(withCredentials(), builder("pets/1", new RecordingCallback())));
+        assertEquals(Collections.singletonMap("Content-Type", "application/json"), stored().get(0).getHeaders());
+        assertEquals(4, filter.getQueuedRequests().get(0).getHeaders().size());
+
+        filter.setPersistCredentials(true);
+        assertFalse(filter.filter(withCredentials(), builder("pets/2", new RecordingCallback())));
+        assertEquals(4, stored().get(1).getHeaders().size());
+    }
+
+    private List<QueuedRequest> stored() {
+        final List<QueuedRequest> result = new ArrayList<QueuedRequest>();
+        storage.load(new OfflineQueueStorage.LoadCallback() {
+            @Override
+            public void onLoad(List<QueuedRequest> requests) {
+                result.addAll(requests);
+            }
+        });
+        return result;
+    }
+
+    private static Method withCredentials() {
+        final Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+        requestHeaders.put("Content-Type", "application/json");
+        requestHeaders.put("Authorization", "Bearer secret");
+        requestHeaders.put("Cookie", "session=secret");
+        requestHeaders.put("X-XSRF-Token", "secret");
+        return new Method() {
+            @Override
+            public Map<String, String> getHeaders() {
+                return requestHeaders;
+            }
+        };
+    }
+
+    private static RequestBuilder builder(String url, RequestCallback callback) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.POST, url);
+        builder.setRequestData("{\"name\":\"" + url + "\"}");
+        builder.setCallback(callback);
+        return builder;
+    }
+
+    private static Response response(final int status) {
+        return new Response() {
+            @Override
+            public String getHeader(String header) {
+                return null;
+            }
+
+            @Override
+            public Header[] getHeaders() {
+                return new Header[0];
+            }
+
+            @Override
+            public String getHeadersAsString() {
+                return "";
+            }
+
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "";
+            }
+
+            @Override
+            public String getText() {
+                return "";
+            }
+        };
+    }
+
+    private static class RecordingCallback implements RequestCallback {
+
+        private final List<Integer> statuses = new ArrayList<Integer>();
+
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+            statuses.add(response.getStatusCode());
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+            fail(exception.getMessage());
+        }
+    }
+
+    private static class TestFilter extends OfflineQueueDispatcherFilter {
+
+        private boolean navigatorOnline = true;
+        private long time = 1000;
+        private final List<Integer> probes = new ArrayList<Integer>();
+        private final List<QueuedRequest> sent = new ArrayList<QueuedRequest>();
+        private final List<RequestCallback> callbacks = new ArrayList<RequestCallback>();
+
+        TestFilter(OfflineQueueStorage storage) {
+            super(storage, 5000, 3);
+        }
+
+        void respond(int index, int status) {
+            callbacks.get(index).onResponseReceived(null, response(status));
+        }
+
+        @Override
+        protected Request send(QueuedRequest request, RequestCallback callback) {
+            sent.add(request);
+            callbacks.add(callback);
+            return null;
+        }
+
+        @Override
+        protected void scheduleReplay(int delayMillis) {
+            probes.add(delayMillis);
+        }
+
+        @Override
+        protected boolean isNavigatorOnline() {
+            return navigatorOnline;
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
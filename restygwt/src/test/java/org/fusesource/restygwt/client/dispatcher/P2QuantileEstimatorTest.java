@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class P2QuantileEstimatorTest extends TestCase {
+
+    public void testExactForFewValues() {
+        P2QuantileEstimator estimator = new P2QuantileEstimator(0.5);
+        assertTrue(Double.isNaN(estimator.getQuantile()));
+        estimator.add(30);
+        estimator.add(10);
+        estimator.add(20);
+        assertEquals(20.0, estimator.getQuantile(), 0.0);
+        assertEquals(3, estimator.getCount());
+    }
+
+    public void testUniformDistribution() {
+        P2QuantileEstimator estimator = new P2QuantileEstimator(0.95);
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            estimator.add(random.nextDouble() * 1000);
+        }
+        assertEquals(950, estimator.getQuantile(), 15);
+    }
+
+    public void testLongTail() {
+        // 90% fast responses around 50ms, 10% slow ones around 1000ms
+        P2QuantileEstimator estimator = new P2QuantileEstimator(0.5);
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            estimator.add(random.nextInt(10) == 0 ? 1000 + random.nextInt(100) : 40 + random.nextInt(20));
+        }
+        assertEquals(50, estimator.getQuantile(), 5);
+    }
+
+    public void testRejectsInvalidQuantile() {
+        try {
+            new P2QuantileEstimator(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.client.dispatcher;
+
+import com.google.gwt.http.client.Header;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.fusesource.restygwt.client.Method;
+import org.fusesource.restygwt.client.cache.Domain;
+
+public class RateLimitingDispatcherFilterTest extends TestCase {
+
+    private static final String ROOT = "http://partner.example.com/";
+
+    private final List<String> sent = new ArrayList<String>();
+    private final List<Throwable> errors = new ArrayList<Throwable>();
+    private final List<Integer> scheduled = new ArrayList<Integer>();
+
+    private long time;
+
+    // one request per 100ms, two at once, two waiting
+    private final RateLimitingDispatcherFilter filter = new RateLimitingDispatcherFilter(10, 2, 2) {
+
+        @Override
+        protected void schedule(int delayMillis) {
+            scheduled.add(delayMillis);
+        }
+
+        @Override
+        protected void reject(RequestCallback callback, RateLimitExceededException exception) {
+            callback.onError(null, exception);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    };
+
+    public void testTokenBucketRefills() {
+        TokenBucket bucket = new TokenBucket("root/", 10, 2, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(100, bucket.getWaitMillis(0));
+        assertEquals(50, bucket.getWaitMillis(50));
+        assertTrue(bucket.tryAcquire(100));
+        assertFalse(bucket.tryAcquire(100));
+        // never more than the burst
+        assertTrue(bucket.tryAcquire(10000));
+        assertTrue(bucket.tryAcquire(10000));
+        assertFalse(bucket.tryAcquire(10000));
+    }
+
+    public void testTokenBucketFollowsServer() {
+        TokenBucket bucket = new TokenBucket("root/", 10, 5, 0);
+        bucket.limitRemaining(0, 1, 1000);
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+
+        bucket.limitRemaining(0, 0, 1000);
+        assertEquals(1000, bucket.getWaitMillis(0));
+        assertFalse(bucket.tryAcquire(500));
+        assertTrue(bucket.tryAcquire(1000));
+
+        bucket.pause(1000, 2000);
+        assertFalse(bucket.tryAcquire(2999));
+        assertTrue(bucket.tryAcquire(3000));
+    }
+
+    public void testQueuesAndFailsFast() {
+        assertTrue(filter.filter(method(), builder("1")));
+        assertTrue(filter.filter(method(), builder("2")));
+        assertFalse(filter.filter(method(), builder("3")));
+        assertFalse(filter.filter(method(), builder("4")));
+        assertEquals(2, filter.getQueueLength(ROOT));
+        assertEquals(100, scheduled.get(0).intValue());
+
+        assertFalse(filter.filter(method(), builder("5")));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof RateLimitExceededException);
+        assertEquals(ROOT, ((RateLimitExceededException) errors.get(0)).getBucketKey());
+
+        time = 100;
+        filter.drain();
+        assertEquals("[3]", sent.toString());
+        assertEquals(100, scheduled.get(1).intValue());
+        time = 200;
+        filter.drain();
+        assertEquals("[3, 4]", sent.toString());
+        assertEquals(0, filter.getQueueLength(ROOT));
+        assertEquals(2, scheduled.size());
+    }
+
+    public void testDrainsAtEarliestWait() {
+        filter.setLimit("com.example.Report", 1, 1);
+        filter.setLimit("com.example.Export", 0.1, 1);
+        Method report = method();
+        report.addData(Domain.CACHE_DOMAIN_KEY, "[\"com.example.Report\"]");
+        Method export = method();
+        export.addData(Domain.CACHE_DOMAIN_KEY, "[\"com.example.Export\"]");
+
+        assertTrue(filter.filter(report, builder("report1")));
+        assertFalse(filter.filter(report, builder("report2")));
+        assertTrue(filter.filter(method(), builder("1")));
+        assertTrue(filter.filter(method(), builder("2")));
+        assertFalse(filter.filter(method(), builder("3")));
+        // a later drain does not postpone the earlier one
+        assertTrue(filter.filter(export, builder("export1")));
+        assertFalse(filter.filter(export, builder("export2")));
+        assertEquals("[1000, 100]", scheduled.toString());
+
+        time = 100;
+        filter.drain();
+        assertEquals("[3]", sent.toString());
+        assertEquals("[1000, 100, 900]", scheduled.toString());
+    }
+
+    public void testSendsQueuedRequestsThroughSendingFilter() throws Exception {
+        final List<String> hedged = new ArrayList<String>();
+        SendingDispatcherFilter hedging = new SendingDispatcherFilter() {
+
+            @Override
+            public boolean filter(Method method, RequestBuilder builder) {
+                return true;
+            }
+
+            @Override
+            public Request send(Method method, RequestBuilder builder) {
+                hedged.add(builder.getUrl());
+                return null;
+            }
+        };
+        DefaultFilterawareDispatcher dispatcher = new DefaultFilterawareDispatcher(filter, hedging);
+        for (int i = 1; i <= 3; i++) {
+            Method method = method();
+            method.setDispatcher(dispatcher);
+            dispatcher.send(method, builder(String.valueOf(i)));
+        }
+        assertEquals(1, filter.getQueueLength(ROOT));
+
+        time = 100;
+        filter.drain();
+        assertEquals("[" + ROOT + "pets/1, " + ROOT + "pets/2, " + ROOT + "pets/3]", hedged.toString());
+        assertEquals("[]", sent.toString());
+    }
+
+    public void testRejectsRateWithoutPermits() {
+        try {
+            filter.setLimit("com.example.Report", 0, 1);
+            fail("a rate of 0 never lets a request through");
+        } catch (IllegalArgumentException e) {
+            assertNull(filter.getTokenBucket("com.example.Report"));
+        }
+    }
+
+    public void testDomainLimit() {
+        filter.setLimit("com.example.Report", 1, 1);
+        Method report = method();
+        report.addData(Domain.CACHE_DOMAIN_KEY, "[\"com.example.Report\",\"com.example.Order\"]");
+        assertTrue(filter.filter(report, builder("1")));
+        assertFalse(filter.filter(report, builder("2")));
+        assertEquals(1, filter.getQueueLength("com.example.Report"));
+
+        // other domains of the same service root are not held back
+        assertTrue(filter.filter(method(), builder("3")));
+        assertEquals(0, filter.getQueueLength(ROOT));
+    }
+
+    public void testAdaptsToHeaders() {
+        RequestBuilder builder = builder("1");
+        assertTrue(filter.filter(method(), builder));
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Retry-After", "3");
+        builder.getCallback().onResponseReceived(null, response(429, headers));
+        assertEquals(3000, filter.getTokenBucket(ROOT).getWaitMillis(0));
+        assertFalse(filter.filter(method(), builder("2")));
+
+        time = 3000;
+        filter.drain();
+        assertEquals("[2]", sent.toString());
+
+        headers.clear();
+        headers.put(RateLimitingDispatcherFilter.RATE_LIMIT_REMAINING, "0");
+        headers.put(RateLimitingDispatcherFilter.RATE_LIMIT_RESET, "60");
+        builder.getCallback().onResponseReceived(null, response(200, headers));
+        assertEquals(60000, filter.getTokenBucket(ROOT).getWaitMillis(3000));
+    }
+
+    public void testReset() {
+        assertEquals(5000, RateLimitingDispatcherFilter.getReset("5", 1000));
+        assertEquals(4000, RateLimitingDispatcherFilter.getReset("1500000005", 1500000001000L));
+        assertEquals(-1, RateLimitingDispatcherFilter.getReset("soon", 0));
+        assertEquals(-1, RateLimitingDispatcherFilter.getReset(null, 0));
+    }
+
+    private static Method method() {
+        return new Method() {
+        };
+    }
+
+    private RequestBuilder builder(final String name) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, ROOT + "pets/" + name) {
+
+            @Override
+            public Request send() {
+                sent.add(name);
+                return null;
+            }
+        };
+        builder.setCallback(new RequestCallback() {
+
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                errors.add(exception);
+            }
+        });
+        return builder;
+    }
+
+    private static Response response(final int status, final Map<String, String> headers) {
+        return new Response() {
+
+            @Override
+            public String getHeader(String header) {
+                return headers.get(header);
+            }
+
+            @Override
+            public Header[] getHeaders() {
+                return new Header[0];
+            }
+
+            @Override
+            public String getHeadersAsString() {
+                return "";
+            }
+
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public String getStatusText() {
+                return "";
+            }
+
+            @Override
+            public String getText() {
+                return "";
+            }
+        };
+    }
+}
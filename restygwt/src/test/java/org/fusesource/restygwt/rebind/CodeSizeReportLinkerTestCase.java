@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class CodeSizeReportLinkerTestCase {
+
+    private final CodeSizeArtifact small =
+        new CodeSizeArtifact("a.Small_Generated_", "a.Small", 10, new TreeSet<String>());
+    private final CodeSizeArtifact large = new CodeSizeArtifact("a.Large_Generated_", "a.Large", 2048,
+        new TreeSet<String>(Arrays.asList("a.Small_Generated_", "b.Other_Generated_")));
+
+    @Test
+    public void testSortsLargestFirst() {
+        assertEquals(Arrays.asList(large, small), CodeSizeReportLinker.sort(Arrays.asList(small, large)));
+    }
+
+    @Test
+    public void testCsv() {
+        List<CodeSizeArtifact> sizes = CodeSizeReportLinker.sort(Arrays.asList(small, large));
+        assertEquals("class,source,size,fanOut,dependencies\n" +
+            "a.Large_Generated_,a.Large,2048,2,a.Small_Generated_ b.Other_Generated_\n" +
+            "a.Small_Generated_,a.Small,10,0,\n", CodeSizeReportLinker.toCsv(sizes));
+    }
+
+    @Test
+    public void testJson() {
+        List<CodeSizeArtifact> sizes = CodeSizeReportLinker.sort(Arrays.asList(small, large));
+        assertEquals("[\n" +
+            "  {\"class\": \"a.Large_Generated_\", \"source\": \"a.Large\", \"size\": 2048, \"fanOut\": 2, " +
+            "\"dependencies\": [\"a.Small_Generated_\", \"b.Other_Generated_\"]},\n" +
+            "  {\"class\": \"a.Small_Generated_\", \"source\": \"a.Small\", \"size\": 10, \"fanOut\": 0, " +
+            "\"dependencies\": []}\n" +
+            "]\n", CodeSizeReportLinker.toJson(sizes));
+    }
+}
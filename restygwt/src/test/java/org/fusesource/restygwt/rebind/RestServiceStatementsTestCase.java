@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fusesource.restygwt.rebind;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RestServiceStatementsTestCase {
+
+    private final StringBuilder out = new StringBuilder();
+    private final RestServiceStatements statements = new RestServiceStatements() {
+        private String indentation = "";
+
+        @Override
+        protected void println(String line) {
+            out.append(indentation).append(line).append('\n');
+        }
+
+        @Override
+        protected void indent(int delta) {
+            for (int i = 0; i < delta; i++) {
+                indentation += "  ";
+            }
+            indentation = indentation.substring(Math.max(0, -delta) * 2);
+        }
+    };
+
+    @Test
+    public void testGetResourceOfDefaultServiceRoot() {
+        statements.writeGetResource(null, null);
+        assertEquals("public org.fusesource.restygwt.client.Resource getResource() {\n" +
+            "  if (this.resource == null) {\n" +
+            "    String serviceRoot = org.fusesource.restygwt.client.Defaults.getServiceRoot();\n" +
+            "    this.resource = new org.fusesource.restygwt.client.Resource(serviceRoot);\n" +
+            "  }\n" +
+            "  return this.resource;\n" +
+            "}\n", out.toString());
+    }
+
+    @Test
+    public void testGetResourceOfServiceRootKey() {
+        statements.writeGetResource("pets", "owners");
+        assertEquals("public org.fusesource.restygwt.client.Resource getResource() {\n" +
+            "  if (this.resource == null) {\n" +
+            "    String serviceRoot = org.fusesource.restygwt.client.ServiceRoots.get(\"pets\");\n" +
+            "    if (org.fusesource.restygwt.client.ServiceRoots.isBalanced(\"pets\")) {\n" +
+            "      // every call picks one of the endpoints\n" +
+            "      return new org.fusesource.restygwt.client.Resource(serviceRoot).resolve(\"owners\");\n" +
+            "    }\n" +
+            "    this.resource = new org.fusesource.restygwt.client.Resource(serviceRoot).resolve(\"owners\");\n" +
+            "  }\n" +
+            "  return this.resource;\n" +
+            "}\n", out.toString());
+    }
+
+    @Test
+    public void testRetryOptions() {
+        statements.writeRetryOptions(-1, null);
+        assertEquals("", out.toString());
+
+        statements.writeRetryOptions(5000, "a.Policy");
+        assertEquals("__method.deadline(5000);\n__method.retryPolicy(a.Policy.INSTANCE);\n", out.toString());
+    }
+
+    @Test
+    public void testEndpointAndIdempotent() {
+        statements.writeEndpoint("a.Service", "get");
+        statements.writeIdempotent("Idempotency-Key");
+        assertEquals("__method.endpoint(\"a.Service.get\");\n__method.idempotent(\"Idempotency-Key\");\n",
+            out.toString());
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"a\\\"b\\\\c\\nd\"", RestServiceStatements.quote("a\"b\\c\nd"));
+    }
+}
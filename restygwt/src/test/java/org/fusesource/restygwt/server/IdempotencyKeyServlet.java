@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2009-2012 the original author or authors.
+ * See the notice.md file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fusesource.restygwt.server;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet component of the IdempotentTestGwt.
+ * <p>
+ * Reference implementation of the server side of {@code @Idempotent}: every POST creates a resource once per
+ * Idempotency-Key and repeated requests with the same key get the stored response. The first response for a key is
+ * dropped with a 502, as if a proxy lost it after the resource got created, so the client has to retry.
+ * </p>
+ */
+public class IdempotencyKeyServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = Logger.getLogger(IdempotencyKeyServlet.class.getName());
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final Map<String, String> responses = new HashMap<String, String>();
+
+    private int created;
+
+    @Override
+    protected synchronized void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key == null) {
+            response.sendError(400, "missing " + IDEMPOTENCY_KEY_HEADER);
+            return;
+        }
+
+        String stored = responses.get(key);
+        if (stored != null) {
+            log.fine("replay response for key " + key);
+            response.setHeader("Idempotent-Replayed", "true");
+            response.getWriter().print(stored);
+            return;
+        }
+
+        ++created;
+        responses.put(key, "{\"name\":\"created-" + created + "\"}");
+        log.fine("created resource " + created + " for key " + key + ", respond code: 502 with purpose");
+        response.setStatus(502);
+    }
+}